@@ -5,22 +5,35 @@ import android.content.Intent;
 import android.content.SharedPreferences;
 import android.provider.Settings;
 
+import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
-import com.facebook.react.bridge.ReactContextBaseJavaModule;
-import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
 
 import org.json.JSONArray;
+import org.json.JSONObject;
 
-public class AppBlockingModule extends ReactContextBaseJavaModule {
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+public class AppBlockingModule extends NativeAppBlockingModuleSpec {
 
     private static final String PREFS_NAME = "MinimalistLauncherPrefs";
-    private static final String KEY_BLOCKED_APPS = "blockedApps";
-    private static final String KEY_BLOCKING_REASON = "blockingReason";
     private static final String KEY_BREAK_GLASS_PHRASE = "breakGlassPhrase";
+    private static final String KEY_BREAK_GLASS_MINUTES = "breakGlassMinutes";
+    private static final String KEY_APP_LIMITS = "appLimits";
+    private static final String KEY_BLOCK_SCHEDULES = "blockSchedules";
+    private static final String KEY_EVENT_COALESCE_MS = "eventCoalesceMs";
+    private static final String EVENT_FOREGROUND_BATCH = "AppBlockingForegroundBatch";
 
     private final ReactApplicationContext reactContext;
+    private int listenerCount;
 
     public AppBlockingModule(ReactApplicationContext reactContext) {
         super(reactContext);
@@ -28,29 +41,61 @@ public class AppBlockingModule extends ReactContextBaseJavaModule {
     }
 
     @Override
-    public String getName() {
-        return "AppBlockingModule";
+    public void invalidate() {
+        ForegroundEventFeed.getInstance().setEmitter(null);
+        super.invalidate();
+    }
+
+    // Required by NativeEventEmitter; the feed only flushes while JS listens
+    @Override
+    public void addListener(String eventName) {
+        if (listenerCount++ == 0) {
+            ForegroundEventFeed.getInstance().setEmitter(this::emitForegroundBatch);
+        }
+    }
+
+    @Override
+    public void removeListeners(double count) {
+        listenerCount = Math.max(0, listenerCount - (int) count);
+        if (listenerCount == 0) {
+            ForegroundEventFeed.getInstance().setEmitter(null);
+        }
     }
 
-    @ReactMethod
+    @Override
     public void isAccessibilityServiceEnabled(Promise promise) {
-        try {
-            String packageName = reactContext.getPackageName();
-            String enabledServices = Settings.Secure.getString(
-                reactContext.getContentResolver(),
-                Settings.Secure.ENABLED_ACCESSIBILITY_SERVICES
-            );
+        ModuleExecutors.getInstance().interactive(() -> {
+            try {
+                promise.resolve(readAccessibilityServiceEnabled());
+            } catch (Exception e) {
+                promise.reject("ERROR", e.getMessage());
+            }
+        });
+    }
 
-            boolean isEnabled = enabledServices != null &&
-                              enabledServices.contains(packageName);
+    @Override
+    public boolean isAccessibilityServiceEnabledSync() {
+        try {
+            return readAccessibilityServiceEnabled();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
 
-            promise.resolve(isEnabled);
+    // Reads the in-memory blocklist snapshot; never touches disk once loaded
+    @Override
+    public boolean isPackageBlockedSync(String packageName) {
+        try {
+            BlocklistSnapshot snapshot = BlocklistStore.getInstance(reactContext).getSnapshot();
+            return FocusExemptions.getInstance(reactContext).blocks(snapshot, packageName);
         } catch (Exception e) {
-            promise.reject("ERROR", e.getMessage());
+            e.printStackTrace();
+            return false;
         }
     }
 
-    @ReactMethod
+    @Override
     public void requestAccessibilityPermission(Promise promise) {
         try {
             Intent intent = new Intent(Settings.ACTION_ACCESSIBILITY_SETTINGS);
@@ -62,19 +107,107 @@ public class AppBlockingModule extends ReactContextBaseJavaModule {
         }
     }
 
-    @ReactMethod
+    @Override
     public void setBlockedApps(ReadableArray packageNames, String reason, Promise promise) {
         try {
-            JSONArray jsonArray = new JSONArray();
-            for (int i = 0; i < packageNames.size(); i++) {
-                jsonArray.put(packageNames.getString(i));
+            BlocklistStore.getInstance(reactContext).setAll(toList(packageNames), reason);
+
+            promise.resolve(true);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    // Blocks every launchable app except these and the system exemptions
+    @Override
+    public void setAllowedApps(ReadableArray packageNames, String reason, Promise promise) {
+        try {
+            BlocklistStore.getInstance(reactContext).setAllowed(toList(packageNames), reason);
+
+            promise.resolve(true);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    @Override
+    public void addBlockedApp(String packageName, String reason, Promise promise) {
+        try {
+            BlocklistStore.getInstance(reactContext).add(packageName, reason);
+
+            promise.resolve(true);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    @Override
+    public void removeBlockedApp(String packageName, Promise promise) {
+        try {
+            BlocklistStore.getInstance(reactContext).remove(packageName);
+
+            promise.resolve(true);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    @Override
+    public void clearBlockedApps(Promise promise) {
+        try {
+            BlocklistStore.getInstance(reactContext).clear();
+
+            promise.resolve(true);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    @Override
+    public void applyBlocklistDelta(ReadableArray adds, ReadableArray removes, String reason,
+                                    double expectedVersion, Promise promise) {
+        try {
+            long version = BlocklistStore.getInstance(reactContext).applyDelta(
+                toList(adds), toList(removes), reason, (long) expectedVersion);
+            if (version < 0) {
+                promise.reject("STALE_VERSION", "Blocklist changed since version " + (long) expectedVersion);
+                return;
+            }
+
+            promise.resolve((double) version);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    @Override
+    public void getBlockedApps(Promise promise) {
+        try {
+            BlocklistSnapshot snapshot = BlocklistStore.getInstance(reactContext).getSnapshot();
+
+            WritableArray packages = Arguments.createArray();
+            for (String packageName : snapshot.getPackages()) {
+                packages.pushString(packageName);
             }
 
+            WritableMap result = Arguments.createMap();
+            result.putDouble("version", (double) snapshot.getVersion());
+            result.putString("mode", snapshot.isAllowlist() ? "allowlist" : "blocklist");
+            result.putArray("packages", packages);
+            result.putString("reason", snapshot.getReason());
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    @Override
+    public void setBreakGlassPhrase(String phrase, Promise promise) {
+        try {
             SharedPreferences prefs = reactContext
                 .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
             SharedPreferences.Editor editor = prefs.edit();
-            editor.putString(KEY_BLOCKED_APPS, jsonArray.toString());
-            editor.putString(KEY_BLOCKING_REASON, reason);
+            editor.putString(KEY_BREAK_GLASS_PHRASE, phrase);
             editor.apply();
 
             promise.resolve(true);
@@ -83,22 +216,28 @@ public class AppBlockingModule extends ReactContextBaseJavaModule {
         }
     }
 
-    @ReactMethod
-    public void addBlockedApp(String packageName, String reason, Promise promise) {
+    @Override
+    public void setBreakGlassDuration(double minutes, Promise promise) {
         try {
             SharedPreferences prefs = reactContext
                 .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            String blockedAppsJson = prefs.getString(KEY_BLOCKED_APPS, "[]");
+            prefs.edit().putInt(KEY_BREAK_GLASS_MINUTES, (int) minutes).apply();
 
-            JSONArray jsonArray = new JSONArray(blockedAppsJson);
-            jsonArray.put(packageName);
+            promise.resolve(true);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
 
-            SharedPreferences.Editor editor = prefs.edit();
-            editor.putString(KEY_BLOCKED_APPS, jsonArray.toString());
-            if (reason != null && !reason.isEmpty()) {
-                editor.putString(KEY_BLOCKING_REASON, reason);
-            }
-            editor.apply();
+    @Override
+    public void setAppLimit(String packageName, double minutesPerDay, Promise promise) {
+        try {
+            SharedPreferences prefs = reactContext
+                .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            JSONObject limits = new JSONObject(prefs.getString(KEY_APP_LIMITS, "{}"));
+            limits.put(packageName, (long) minutesPerDay);
+
+            prefs.edit().putString(KEY_APP_LIMITS, limits.toString()).apply();
 
             promise.resolve(true);
         } catch (Exception e) {
@@ -106,26 +245,71 @@ public class AppBlockingModule extends ReactContextBaseJavaModule {
         }
     }
 
-    @ReactMethod
-    public void removeBlockedApp(String packageName, Promise promise) {
+    @Override
+    public void removeAppLimit(String packageName, Promise promise) {
+        try {
+            SharedPreferences prefs = reactContext
+                .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            JSONObject limits = new JSONObject(prefs.getString(KEY_APP_LIMITS, "{}"));
+            limits.remove(packageName);
+
+            prefs.edit().putString(KEY_APP_LIMITS, limits.toString()).apply();
+
+            promise.resolve(true);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    @Override
+    public void getAppLimits(Promise promise) {
         try {
             SharedPreferences prefs = reactContext
                 .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            String blockedAppsJson = prefs.getString(KEY_BLOCKED_APPS, "[]");
+            JSONObject limits = new JSONObject(prefs.getString(KEY_APP_LIMITS, "{}"));
+
+            WritableMap result = Arguments.createMap();
+            Iterator<String> keys = limits.keys();
+            while (keys.hasNext()) {
+                String packageName = keys.next();
+                result.putDouble(packageName, (double) limits.getLong(packageName));
+            }
 
-            JSONArray jsonArray = new JSONArray(blockedAppsJson);
-            JSONArray newArray = new JSONArray();
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
 
-            for (int i = 0; i < jsonArray.length(); i++) {
-                String pkg = jsonArray.getString(i);
-                if (!pkg.equals(packageName)) {
-                    newArray.put(pkg);
+    @Override
+    public void setSchedules(ReadableArray schedules, Promise promise) {
+        try {
+            JSONArray rules = new JSONArray();
+            for (int i = 0; i < schedules.size(); i++) {
+                ReadableMap schedule = schedules.getMap(i);
+
+                JSONArray packages = new JSONArray();
+                ReadableArray packageNames = schedule.getArray("packages");
+                for (int j = 0; j < packageNames.size(); j++) {
+                    packages.put(packageNames.getString(j));
+                }
+                JSONArray days = new JSONArray();
+                ReadableArray dayNumbers = schedule.getArray("days");
+                for (int j = 0; j < dayNumbers.size(); j++) {
+                    days.put((int) dayNumbers.getDouble(j));
                 }
+
+                JSONObject rule = new JSONObject();
+                rule.put("packages", packages);
+                rule.put("days", days);
+                rule.put("startMinute", schedule.getInt("startMinute"));
+                rule.put("endMinute", schedule.getInt("endMinute"));
+                rules.put(rule);
             }
 
-            SharedPreferences.Editor editor = prefs.edit();
-            editor.putString(KEY_BLOCKED_APPS, newArray.toString());
-            editor.apply();
+            SharedPreferences prefs = reactContext
+                .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            prefs.edit().putString(KEY_BLOCK_SCHEDULES, rules.toString()).apply();
 
             promise.resolve(true);
         } catch (Exception e) {
@@ -133,33 +317,145 @@ public class AppBlockingModule extends ReactContextBaseJavaModule {
         }
     }
 
-    @ReactMethod
-    public void clearBlockedApps(Promise promise) {
+    @Override
+    public void getSchedules(Promise promise) {
         try {
             SharedPreferences prefs = reactContext
                 .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            SharedPreferences.Editor editor = prefs.edit();
-            editor.putString(KEY_BLOCKED_APPS, "[]");
-            editor.apply();
+            JSONArray rules = new JSONArray(prefs.getString(KEY_BLOCK_SCHEDULES, "[]"));
 
-            promise.resolve(true);
+            WritableArray result = Arguments.createArray();
+            for (int i = 0; i < rules.length(); i++) {
+                JSONObject rule = rules.getJSONObject(i);
+
+                WritableArray packages = Arguments.createArray();
+                JSONArray packageNames = rule.getJSONArray("packages");
+                for (int j = 0; j < packageNames.length(); j++) {
+                    packages.pushString(packageNames.getString(j));
+                }
+                WritableArray days = Arguments.createArray();
+                JSONArray dayNumbers = rule.getJSONArray("days");
+                for (int j = 0; j < dayNumbers.length(); j++) {
+                    days.pushInt(dayNumbers.getInt(j));
+                }
+
+                WritableMap schedule = Arguments.createMap();
+                schedule.putArray("packages", packages);
+                schedule.putArray("days", days);
+                schedule.putInt("startMinute", rule.getInt("startMinute"));
+                schedule.putInt("endMinute", rule.getInt("endMinute"));
+                result.pushMap(schedule);
+            }
+
+            promise.resolve(result);
         } catch (Exception e) {
             promise.reject("ERROR", e.getMessage());
         }
     }
 
-    @ReactMethod
-    public void setBreakGlassPhrase(String phrase, Promise promise) {
+    @Override
+    public void getBlockingLatencyStats(Promise promise) {
+        try {
+            WritableMap result = Arguments.createMap();
+            for (Map.Entry<String, BlockingLatency.Stats> entry : BlockingLatency.getStats().entrySet()) {
+                BlockingLatency.Stats stats = entry.getValue();
+                WritableMap path = Arguments.createMap();
+                path.putInt("count", stats.count);
+                path.putDouble("averageMs", stats.count > 0 ? (double) stats.totalMs / stats.count : 0);
+                path.putDouble("maxMs", (double) stats.maxMs);
+                path.putDouble("lastMs", (double) stats.lastMs);
+                result.putMap(entry.getKey(), path);
+            }
+
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    @Override
+    public void setEventCoalescingWindow(double windowMs, Promise promise) {
         try {
             SharedPreferences prefs = reactContext
                 .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            SharedPreferences.Editor editor = prefs.edit();
-            editor.putString(KEY_BREAK_GLASS_PHRASE, phrase);
-            editor.apply();
+            prefs.edit().putLong(KEY_EVENT_COALESCE_MS, (long) windowMs).apply();
 
             promise.resolve(true);
         } catch (Exception e) {
             promise.reject("ERROR", e.getMessage());
         }
     }
+
+    @Override
+    public void getForegroundEventStats(Promise promise) {
+        try {
+            ForegroundTracker tracker = ForegroundTracker.getCurrent();
+            if (tracker == null) {
+                promise.resolve(null);
+                return;
+            }
+
+            WritableMap result = Arguments.createMap();
+            result.putString("foreground", tracker.getForeground());
+            result.putDouble("received", (double) tracker.getReceivedCount());
+            result.putDouble("ignored", (double) tracker.getIgnoredCount());
+            result.putDouble("coalesced", (double) tracker.getCoalescedCount());
+            result.putDouble("actedOn", (double) tracker.getActedOnCount());
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    private boolean emitForegroundBatch(ForegroundEventFeed.Batch batch) {
+        if (!reactContext.hasActiveReactInstance()) return false;
+
+        WritableArray packages = Arguments.createArray();
+        for (String packageName : batch.packages) {
+            packages.pushString(packageName);
+        }
+        WritableArray packageIndexes = Arguments.createArray();
+        WritableArray timestamps = Arguments.createArray();
+        WritableArray decisions = Arguments.createArray();
+        for (int i = 0; i < batch.timestamps.length; i++) {
+            packageIndexes.pushInt(batch.packageIndexes[i]);
+            timestamps.pushDouble((double) batch.timestamps[i]);
+            decisions.pushInt(batch.decisions[i]);
+        }
+
+        WritableMap payload = Arguments.createMap();
+        payload.putArray("packages", packages);
+        payload.putArray("packageIndexes", packageIndexes);
+        payload.putArray("timestamps", timestamps);
+        payload.putArray("decisions", decisions);
+        payload.putInt("dropped", batch.dropped);
+        try {
+            reactContext
+                .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                .emit(EVENT_FOREGROUND_BATCH, payload);
+            return true;
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private boolean readAccessibilityServiceEnabled() {
+        String packageName = reactContext.getPackageName();
+        String enabledServices = Settings.Secure.getString(
+            reactContext.getContentResolver(),
+            Settings.Secure.ENABLED_ACCESSIBILITY_SERVICES
+        );
+
+        return enabledServices != null &&
+               enabledServices.contains(packageName);
+    }
+
+    private static List<String> toList(ReadableArray array) {
+        List<String> list = new ArrayList<>(array.size());
+        for (int i = 0; i < array.size(); i++) {
+            list.add(array.getString(i));
+        }
+        return list;
+    }
 }
@@ -1,25 +1,31 @@
 package com.minimalistlauncher;
 
-import com.facebook.react.ReactPackage;
+import com.facebook.react.BaseReactPackage;
 import com.facebook.react.bridge.NativeModule;
 import com.facebook.react.bridge.ReactApplicationContext;
-import com.facebook.react.uimanager.ViewManager;
+import com.facebook.react.module.model.ReactModuleInfo;
+import com.facebook.react.module.model.ReactModuleInfoProvider;
 
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.List;
 
-public class AppBlockingPackage implements ReactPackage {
+// The module is created on its first use from JS rather than at startup
+public class AppBlockingPackage extends BaseReactPackage {
 
     @Override
-    public List<ViewManager> createViewManagers(ReactApplicationContext reactContext) {
-        return Collections.emptyList();
+    public NativeModule getModule(String name, ReactApplicationContext reactContext) {
+        return AppBlockingModule.NAME.equals(name) ? new AppBlockingModule(reactContext) : null;
     }
 
     @Override
-    public List<NativeModule> createNativeModules(ReactApplicationContext reactContext) {
-        List<NativeModule> modules = new ArrayList<>();
-        modules.add(new AppBlockingModule(reactContext));
-        return modules;
+    public ReactModuleInfoProvider getReactModuleInfoProvider() {
+        ReactModuleInfo info = new ReactModuleInfo(
+            AppBlockingModule.NAME,
+            AppBlockingModule.class.getName(),
+            false, // canOverrideExistingModule
+            false, // needsEagerInit
+            false, // isCxxModule
+            true   // isTurboModule
+        );
+        return () -> Collections.singletonMap(AppBlockingModule.NAME, info);
     }
 }
@@ -1,52 +1,182 @@
 package com.minimalistlauncher;
 
 import android.accessibilityservice.AccessibilityService;
+import android.accessibilityservice.AccessibilityServiceInfo;
+import android.app.AlarmManager;
+import android.content.BroadcastReceiver;
+import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.SharedPreferences;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.provider.Settings;
 import android.view.accessibility.AccessibilityEvent;
+import android.view.accessibility.AccessibilityNodeInfo;
+import android.widget.Toast;
 
-import org.json.JSONArray;
 import org.json.JSONException;
+import org.json.JSONObject;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 
 public class AppBlockingService extends AccessibilityService {
 
     private static final String PREFS_NAME = "MinimalistLauncherPrefs";
-    private static final String KEY_BLOCKED_APPS = "blockedApps";
-    private static final String KEY_BLOCKING_REASON = "blockingReason";
+    private static final String KEY_APP_LIMITS = "appLimits";
+    private static final String KEY_LIMIT_USAGE = "limitUsage";
+    private static final String KEY_BLOCK_SCHEDULES = "blockSchedules";
+    private static final String KEY_EVENT_COALESCE_MS = "eventCoalesceMs";
+    private static final long DEFAULT_COALESCE_MS = 250;
+    private static final String LIMIT_REACHED_REASON = "Daily time limit reached";
+    private static final String SCHEDULED_REASON = "Blocked by schedule";
 
-    private Set<String> blockedApps = new HashSet<>();
-    private String blockingReason = "";
+    private volatile BlockSchedule schedule = BlockSchedule.EMPTY;
     private String lastBlockedPackage = "";
+    private String currentForeground = "";
+
+    private SharedPreferences prefs;
+    private BlocklistStore blocklistStore;
+    private TemporaryAllowances allowances;
+    private ForegroundEventFeed foregroundFeed;
+    private FocusExemptions focusExemptions;
+    private Handler handler;
+    private UsageLimitEngine limitEngine;
+    private boolean hasLimits;
+    private AlarmManager alarmManager;
+    private BlockingOverlay overlay;
+    private ForegroundTracker foregroundTracker;
+    private EventSubscription subscription;
+
+    // SharedPreferences keeps listeners weakly, so hold a strong reference.
+    private final SharedPreferences.OnSharedPreferenceChangeListener prefsListener =
+        (sharedPreferences, key) -> {
+            // A null key means the preferences were cleared
+            if (key == null || KEY_APP_LIMITS.equals(key)) {
+                loadAppLimits();
+                updateSubscription();
+            }
+            if (key == null || KEY_BLOCK_SCHEDULES.equals(key)) {
+                loadSchedules();
+                updateSubscription();
+            }
+            if (key == null || KEY_EVENT_COALESCE_MS.equals(key)) {
+                foregroundTracker.setWindowMs(prefs.getLong(KEY_EVENT_COALESCE_MS, DEFAULT_COALESCE_MS));
+            }
+        };
+
+    // Blocklist edits arrive on the bridge thread; handle them with the events
+    private final BlocklistStore.Listener blocklistListener =
+        snapshot -> handler.post(() -> {
+            updateSubscription();
+            checkForeground();
+        });
+
+    // Events from every app are needed while JS shows the foreground feed
+    private final ForegroundEventFeed.Listener feedListener =
+        listening -> handler.post(this::updateSubscription);
+
+    // Block an app again as soon as its break glass time runs out
+    private final TemporaryAllowances.Listener allowanceListener =
+        packageName -> checkForeground();
+
+    // Fires at the next schedule boundary, so nothing polls in between
+    private final AlarmManager.OnAlarmListener scheduleAlarm = () -> {
+        armScheduleAlarm();
+        checkForeground();
+    };
+
+    private final BroadcastReceiver deviceStateReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            String action = intent.getAction();
+            if (Intent.ACTION_SCREEN_OFF.equals(action)) {
+                // Time with the screen off doesn't count against a limit
+                limitEngine.onForegroundChanged(null);
+                persistLimitUsage();
+            } else if (Intent.ACTION_USER_PRESENT.equals(action)) {
+                limitEngine.onForegroundChanged(currentForeground);
+                // The expiry timer doesn't run while the device sleeps
+                allowances.expireDue();
+            } else if (Intent.ACTION_TIME_CHANGED.equals(action) ||
+                       Intent.ACTION_TIMEZONE_CHANGED.equals(action)) {
+                // Schedules follow wall-clock time
+                armScheduleAlarm();
+                checkForeground();
+            }
+        }
+    };
+
+    private final UsageLimitEngine.Listener limitListener = new UsageLimitEngine.Listener() {
+        @Override
+        public void onLimitWarning(String packageName, long remainingMs) {
+            long minutes = Math.max(1, remainingMs / 60000);
+            String label = AppMetadataCache.getInstance(AppBlockingService.this)
+                .getLabel(AppBlockingService.this, packageName);
+            Toast.makeText(AppBlockingService.this,
+                minutes + " min left today for " + label,
+                Toast.LENGTH_LONG).show();
+        }
+
+        @Override
+        public void onLimitReached(String packageName) {
+            persistLimitUsage();
+            if (!packageName.equals(currentForeground)) return;
+
+            // Same checks as a window change, so a break-glass allowance holds
+            String reason = blockReasonFor(packageName);
+            if (reason != null) {
+                block(packageName, reason, SystemClock.uptimeMillis());
+            }
+        }
+    };
 
     @Override
     public void onAccessibilityEvent(AccessibilityEvent event) {
         if (event.getEventType() == AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED) {
             if (event.getPackageName() == null) return;
 
-            String packageName = event.getPackageName().toString();
+            // Bursts and transient windows are filtered out before they
+            // reach onForegroundChanged
+            foregroundTracker.onWindowEvent(
+                event.getPackageName().toString(), event.getClassName(), event.getEventTime());
+        }
+    }
 
-            // Don't block the launcher itself or system UI
-            if (packageName.equals(getPackageName()) ||
-                packageName.equals("com.android.systemui")) {
-                return;
-            }
+    private void onForegroundChanged(String packageName, long eventUptime) {
+        // Leaving the blocked app takes the overlay down
+        if (overlay != null && overlay.isShowing() && !packageName.equals(overlay.getBlockedPackage())) {
+            overlay.hide();
+        }
 
-            // Reload blocked apps from shared preferences
-            loadBlockedApps();
+        currentForeground = packageName;
+        if (hasLimits) {
+            limitEngine.onForegroundChanged(packageName);
+            persistLimitUsage();
+        }
 
-            // Check if this app is blocked
-            if (blockedApps.contains(packageName)) {
-                // Prevent showing blocking activity repeatedly
-                if (!packageName.equals(lastBlockedPackage)) {
-                    lastBlockedPackage = packageName;
-                    showBlockingOverlay(packageName);
-                }
-            } else {
-                lastBlockedPackage = "";
-            }
+        // Don't block the launcher itself
+        if (packageName.equals(getPackageName())) {
+            foregroundFeed.record(packageName, System.currentTimeMillis(),
+                ForegroundEventFeed.DECISION_ALLOWED);
+            return;
+        }
+
+        // Check if this app is blocked or out of time for today
+        String reason = blockReasonFor(packageName);
+        foregroundFeed.record(packageName, System.currentTimeMillis(), reason != null
+            ? ForegroundEventFeed.DECISION_BLOCKED
+            : ForegroundEventFeed.DECISION_ALLOWED);
+        if (reason != null) {
+            block(packageName, reason, eventUptime);
+        } else {
+            lastBlockedPackage = "";
         }
     }
 
@@ -58,32 +188,252 @@ public class AppBlockingService extends AccessibilityService {
     @Override
     protected void onServiceConnected() {
         super.onServiceConnected();
-        loadBlockedApps();
+        prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
+        prefs.registerOnSharedPreferenceChangeListener(prefsListener);
+        blocklistStore = BlocklistStore.getInstance(this);
+        handler = new Handler(Looper.getMainLooper());
+
+        foregroundTracker = new ForegroundTracker(getPackageName(), transientPackages(),
+            prefs.getLong(KEY_EVENT_COALESCE_MS, DEFAULT_COALESCE_MS),
+            new ForegroundTracker.Scheduler() {
+                @Override
+                public void schedule(Runnable task, long delayMs) {
+                    handler.postDelayed(task, delayMs);
+                }
+
+                @Override
+                public void cancel(Runnable task) {
+                    handler.removeCallbacks(task);
+                }
+            }, this::onForegroundChanged);
+        ForegroundTracker.setCurrent(foregroundTracker);
+        blocklistStore.addListener(blocklistListener);
+        allowances = TemporaryAllowances.getInstance(this);
+        foregroundFeed = ForegroundEventFeed.getInstance();
+        foregroundFeed.setListener(feedListener);
+        focusExemptions = FocusExemptions.getInstance(this);
+        allowances.addListener(allowanceListener);
+
+        // Inflate the blocking UI and load app labels before the first block
+        AppCatalog.getInstance(this).prewarm();
+        try {
+            overlay = new BlockingOverlay(this, this::updateSubscription);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+
+        limitEngine = new UsageLimitEngine(Clock.SYSTEM, new UsageLimitEngine.Scheduler() {
+            @Override
+            public void schedule(Runnable task, long delayMs) {
+                handler.postDelayed(task, delayMs);
+            }
+
+            @Override
+            public void cancel(Runnable task) {
+                handler.removeCallbacks(task);
+            }
+        }, limitListener);
+        loadAppLimits();
+        restoreLimitUsage();
+
+        alarmManager = (AlarmManager) getSystemService(Context.ALARM_SERVICE);
+        loadSchedules();
+
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_SCREEN_OFF);
+        filter.addAction(Intent.ACTION_USER_PRESENT);
+        filter.addAction(Intent.ACTION_TIME_CHANGED);
+        filter.addAction(Intent.ACTION_TIMEZONE_CHANGED);
+        registerReceiver(deviceStateReceiver, filter);
+
+        updateSubscription();
     }
 
-    private void loadBlockedApps() {
-        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-        String blockedAppsJson = prefs.getString(KEY_BLOCKED_APPS, "[]");
-        blockingReason = prefs.getString(KEY_BLOCKING_REASON, "This app is blocked");
+    @Override
+    public void onDestroy() {
+        if (prefs != null) {
+            prefs.unregisterOnSharedPreferenceChangeListener(prefsListener);
+            blocklistStore.removeListener(blocklistListener);
+            allowances.removeListener(allowanceListener);
+            foregroundFeed.setListener(null);
+        }
+        if (overlay != null) {
+            overlay.hide();
+        }
+        ForegroundTracker.setCurrent(null);
+        if (limitEngine != null) {
+            limitEngine.onForegroundChanged(null);
+            persistLimitUsage();
+            alarmManager.cancel(scheduleAlarm);
+            unregisterReceiver(deviceStateReceiver);
+        }
+        super.onDestroy();
+    }
 
-        blockedApps.clear();
+    private void loadAppLimits() {
+        Map<String, Long> limits = new HashMap<>();
         try {
-            JSONArray jsonArray = new JSONArray(blockedAppsJson);
-            for (int i = 0; i < jsonArray.length(); i++) {
-                blockedApps.add(jsonArray.getString(i));
+            JSONObject json = new JSONObject(prefs.getString(KEY_APP_LIMITS, "{}"));
+            Iterator<String> keys = json.keys();
+            while (keys.hasNext()) {
+                String packageName = keys.next();
+                limits.put(packageName, json.getLong(packageName) * 60000);
             }
         } catch (JSONException e) {
             e.printStackTrace();
         }
+
+        hasLimits = !limits.isEmpty();
+        limitEngine.setLimits(limits);
+        limitEngine.onForegroundChanged(currentForeground);
+    }
+
+    private void loadSchedules() {
+        schedule = BlockSchedule.fromJson(prefs.getString(KEY_BLOCK_SCHEDULES, "[]"));
+        armScheduleAlarm();
+        checkForeground();
+    }
+
+    private void armScheduleAlarm() {
+        alarmManager.cancel(scheduleAlarm);
+
+        long next = schedule.nextTransition(System.currentTimeMillis());
+        if (next < 0) return;
+
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.S || alarmManager.canScheduleExactAlarms()) {
+            alarmManager.setExact(AlarmManager.RTC, next, "MinimalistLauncher:schedule",
+                scheduleAlarm, handler);
+        } else {
+            alarmManager.set(AlarmManager.RTC, next, "MinimalistLauncher:schedule",
+                scheduleAlarm, handler);
+        }
+    }
+
+    // Windows that draw over the current app without replacing it
+    private Set<String> transientPackages() {
+        Set<String> packages = new HashSet<>();
+        packages.add("com.android.systemui");
+
+        String inputMethod = Settings.Secure.getString(
+            getContentResolver(), Settings.Secure.DEFAULT_INPUT_METHOD);
+        if (inputMethod != null && inputMethod.indexOf('/') > 0) {
+            packages.add(inputMethod.substring(0, inputMethod.indexOf('/')));
+        }
+        return packages;
     }
 
-    private void showBlockingOverlay(String packageName) {
+    private String blockReasonFor(String packageName) {
+        if (allowances.isAllowed(packageName)) {
+            return null;
+        }
+        BlocklistSnapshot snapshot = blocklistStore.getSnapshot();
+        if (focusExemptions.blocks(snapshot, packageName)) {
+            return snapshot.getReason();
+        }
+        if (schedule.isBlocked(packageName, System.currentTimeMillis())) {
+            return SCHEDULED_REASON;
+        }
+        if (hasLimits && limitEngine.isLimitReached(packageName)) {
+            return LIMIT_REACHED_REASON;
+        }
+        return null;
+    }
+
+    // Narrows window events to the packages the current rules care about
+    private void updateSubscription() {
+        EventSubscription next = EventSubscription.forRules(getPackageName(),
+            blocklistStore.getSnapshot(), schedule, hasLimits,
+            overlay != null && overlay.isShowing(), foregroundFeed.isListening());
+        if (next.equals(subscription)) return;
+
+        AccessibilityServiceInfo info = getServiceInfo();
+        if (info == null) return;
+
+        next.applyTo(info);
+        setServiceInfo(info);
+        subscription = next;
+    }
+
+    // A block that starts while the app is already open takes effect right away
+    private void checkForeground() {
+        if (subscription != null && subscription.isFiltered()) {
+            // Switches to apps outside the subscription are never delivered,
+            // so ask the framework which window is really in front
+            AccessibilityNodeInfo root = getRootInActiveWindow();
+            if (root != null) {
+                CharSequence active = root.getPackageName();
+                if (active != null && foregroundTracker.sync(active.toString(), root.getClassName())) {
+                    currentForeground = active.toString();
+                }
+                root.recycle();
+            }
+        }
+
+        String packageName = currentForeground;
+        if (packageName.isEmpty() || packageName.equals(getPackageName())) return;
+
+        String reason = blockReasonFor(packageName);
+        if (reason != null) {
+            block(packageName, reason, SystemClock.uptimeMillis());
+        }
+    }
+
+    // Stored as "dayStart|pkg=ms,pkg=ms" so a write is a single short string
+    private void persistLimitUsage() {
+        if (!hasLimits) return;
+
+        StringBuilder value = new StringBuilder();
+        value.append(limitEngine.getDayStart()).append('|');
+        for (Map.Entry<String, Long> entry : limitEngine.getUsage().entrySet()) {
+            value.append(entry.getKey()).append('=').append(entry.getValue()).append(',');
+        }
+        prefs.edit().putString(KEY_LIMIT_USAGE, value.toString()).apply();
+    }
+
+    private void restoreLimitUsage() {
+        String value = prefs.getString(KEY_LIMIT_USAGE, null);
+        if (value == null) return;
+
+        try {
+            int bar = value.indexOf('|');
+            long dayStart = Long.parseLong(value.substring(0, bar));
+            Map<String, Long> used = new HashMap<>();
+            for (String pair : value.substring(bar + 1).split(",")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0) {
+                    used.put(pair.substring(0, eq), Long.parseLong(pair.substring(eq + 1)));
+                }
+            }
+            limitEngine.restoreUsage(dayStart, used);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void block(String packageName, String reason, long eventUptime) {
+        // Prevent showing the blocking screen repeatedly
+        if (packageName.equals(lastBlockedPackage) && (overlay == null || overlay.isShowing())) {
+            return;
+        }
+        lastBlockedPackage = packageName;
+        showBlockingOverlay(packageName, reason, eventUptime);
+    }
+
+    private void showBlockingOverlay(String packageName, String blockingReason, long eventUptime) {
+        if (overlay != null && overlay.show(packageName, blockingReason, eventUptime)) {
+            // Watch every app while it shows, to take it down when the user leaves
+            updateSubscription();
+            return;
+        }
+
+        // Fallback when the overlay window can't be added
         Intent intent = new Intent(this, BlockingActivity.class);
         intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK |
                        Intent.FLAG_ACTIVITY_CLEAR_TOP |
                        Intent.FLAG_ACTIVITY_NO_HISTORY);
         intent.putExtra("blockedPackage", packageName);
         intent.putExtra("blockingReason", blockingReason);
+        intent.putExtra("eventUptime", eventUptime);
 
         try {
             startActivity(intent);
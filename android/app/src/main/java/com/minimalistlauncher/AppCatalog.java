@@ -0,0 +1,477 @@
+package com.minimalistlauncher;
+
+import android.content.ActivityNotFoundException;
+import android.content.BroadcastReceiver;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+import android.icu.text.AlphabeticIndex;
+import android.net.Uri;
+import android.os.Build;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntFunction;
+
+/**
+ * Launchable apps, sorted for the current locale, persisted and patched
+ * from package broadcasts so reads never query the PackageManager.
+ */
+public final class AppCatalog {
+
+    private static final String FILE_NAME = "app_catalog.bin";
+    // Format 1 had no launcher activity and format 2 no primary flag; both
+    // are rescanned once
+    private static final int FILE_FORMAT = 3;
+
+    public static final class Entry {
+        public final String packageName;
+        // Launched directly, with no resolution step
+        public final ComponentName component;
+        public final String appName;
+        public final long lastUpdateTime;
+        // The activity the system resolves the package to
+        public final boolean primary;
+        final CollationKey sortKey;
+        // Alphabetical section, for the locale the entry was created under
+        final int bucket;
+
+        Entry(String packageName, String activityName, String appName, long lastUpdateTime,
+              boolean primary, CollationKey sortKey, int bucket) {
+            this.packageName = packageName;
+            this.component = new ComponentName(packageName, activityName);
+            this.appName = appName;
+            this.lastUpdateTime = lastUpdateTime;
+            this.primary = primary;
+            this.sortKey = sortKey;
+            this.bucket = bucket;
+        }
+
+        Entry withPrimary(boolean isPrimary) {
+            if (isPrimary == primary) return this;
+            return new Entry(packageName, component.getClassName(), appName, lastUpdateTime,
+                isPrimary, sortKey, bucket);
+        }
+    }
+
+    /** First entry of an alphabetical section, for jump lists. */
+    public static final class Section {
+        public final String label;
+        public final int offset;
+
+        Section(String label, int offset) {
+            this.label = label;
+            this.offset = offset;
+        }
+    }
+
+    public static final class Snapshot {
+        public final long version;
+        public final List<Entry> entries;
+        public final List<Section> sections;
+        private final Map<String, Entry> byPackage;
+
+        Snapshot(long version, List<Entry> entries, List<Section> sections) {
+            this.version = version;
+            this.entries = Collections.unmodifiableList(entries);
+            this.sections = Collections.unmodifiableList(sections);
+
+            byPackage = new HashMap<>(entries.size() * 2);
+            for (Entry entry : entries) {
+                if (entry.primary || !byPackage.containsKey(entry.packageName)) {
+                    byPackage.put(entry.packageName, entry);
+                }
+            }
+        }
+
+        /**
+         * The package's primary launcher activity, the same one resolving the
+         * package would give, or null if it has none.
+         */
+        public Entry find(String packageName) {
+            return byPackage.get(packageName);
+        }
+    }
+
+    private static AppCatalog instance;
+
+    private final Context context;
+    private final AppMetadataCache labels;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor();
+    private volatile Snapshot snapshot;
+
+    // Both are locale-specific and rebuilt on ACTION_LOCALE_CHANGED
+    private Collator collator;
+    private AlphabeticIndex.ImmutableIndex<Void> alphabeticIndex;
+
+    private final BroadcastReceiver packageReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (Intent.ACTION_LOCALE_CHANGED.equals(intent.getAction())) {
+                writer.execute(AppCatalog.this::rebuildForLocale);
+                return;
+            }
+
+            Uri data = intent.getData();
+            if (data == null) return;
+
+            String packageName = data.getSchemeSpecificPart();
+            boolean replacing = intent.getBooleanExtra(Intent.EXTRA_REPLACING, false);
+
+            // An update sends REMOVED then ADDED; only act on the ADDED half
+            if (Intent.ACTION_PACKAGE_REMOVED.equals(intent.getAction()) && replacing) {
+                return;
+            }
+
+            writer.execute(() -> refreshPackage(packageName));
+        }
+    };
+
+    private AppCatalog(Context context) {
+        this.context = context;
+        this.labels = AppMetadataCache.getInstance(context);
+        initLocale();
+    }
+
+    public static synchronized AppCatalog getInstance(Context context) {
+        if (instance == null) {
+            instance = new AppCatalog(context.getApplicationContext());
+            instance.registerPackageReceiver();
+        }
+        return instance;
+    }
+
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    snapshot = load();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    /** The snapshot if it is already loaded, without ever blocking on a load. */
+    public Snapshot peekSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Starts the app's launcher activity straight from the catalog. If the
+     * stored activity is gone, e.g. before a package broadcast is handled,
+     * it falls back to resolving one and refreshes the package's entries.
+     * Returns false if the app has nothing to launch.
+     */
+    public boolean launch(Context from, String packageName) {
+        if (packageName == null) return false;
+
+        // Never wait on a load here; an unloaded catalog just resolves
+        Snapshot current = snapshot;
+        Entry entry = current != null ? current.find(packageName) : null;
+        if (entry != null) {
+            try {
+                from.startActivity(new Intent(Intent.ACTION_MAIN)
+                    .addCategory(Intent.CATEGORY_LAUNCHER)
+                    .setComponent(entry.component)
+                    .addFlags(Intent.FLAG_ACTIVITY_NEW_TASK));
+                return true;
+            } catch (ActivityNotFoundException e) {
+                // Stale entry; resolve it below
+            }
+        }
+
+        Intent resolved = context.getPackageManager().getLaunchIntentForPackage(packageName);
+        if (current != null && (entry != null || resolved != null)) {
+            writer.execute(() -> refreshPackage(packageName));
+        }
+        if (resolved == null) return false;
+
+        resolved.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+        from.startActivity(resolved);
+        return true;
+    }
+
+    /** Loads the snapshot in the background so later reads don't wait. */
+    public void prewarm() {
+        writer.execute(this::getSnapshot);
+    }
+
+    private void registerPackageReceiver() {
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        filter.addDataScheme("package");
+
+        IntentFilter localeFilter = new IntentFilter(Intent.ACTION_LOCALE_CHANGED);
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
+            context.registerReceiver(packageReceiver, filter, Context.RECEIVER_EXPORTED);
+            context.registerReceiver(packageReceiver, localeFilter, Context.RECEIVER_EXPORTED);
+        } else {
+            context.registerReceiver(packageReceiver, filter);
+            context.registerReceiver(packageReceiver, localeFilter);
+        }
+    }
+
+    private synchronized void initLocale() {
+        Locale locale = Locale.getDefault();
+        collator = newCollator(locale);
+        alphabeticIndex = new AlphabeticIndex<Void>(locale)
+            .addLabels(Locale.ENGLISH)
+            .buildImmutableIndex();
+    }
+
+    static Collator newCollator(Locale locale) {
+        Collator collator = Collator.getInstance(locale);
+        // Ignore case, but still order accented letters after their base letter
+        collator.setStrength(Collator.SECONDARY);
+        return collator;
+    }
+
+    private synchronized Entry newEntry(String packageName, String activityName, String appName,
+                                        long lastUpdateTime, boolean primary) {
+        return new Entry(packageName, activityName, appName, lastUpdateTime, primary,
+            collator.getCollationKey(appName), alphabeticIndex.getBucketIndex(appName));
+    }
+
+    private Snapshot build(long version, List<Entry> entries) {
+        AlphabeticIndex.ImmutableIndex<Void> index;
+        synchronized (this) {
+            index = alphabeticIndex;
+        }
+        return build(version, entries, bucket -> index.getBucket(bucket).getLabel());
+    }
+
+    static Snapshot build(long version, List<Entry> entries, IntFunction<String> bucketLabel) {
+        Collections.sort(entries, (a, b) -> {
+            int order = a.sortKey.compareTo(b.sortKey);
+            return order != 0 ? order : a.packageName.compareTo(b.packageName);
+        });
+
+        // Entries are already sorted, so a section starts wherever the bucket
+        // changes; adjacent buckets sharing a label are merged
+        List<Section> sections = new ArrayList<>();
+        int lastBucket = -1;
+        String lastLabel = null;
+        for (int i = 0; i < entries.size(); i++) {
+            int bucket = entries.get(i).bucket;
+            if (bucket == lastBucket) continue;
+            lastBucket = bucket;
+
+            String label = bucketLabel.apply(bucket);
+            if (!label.equals(lastLabel)) {
+                sections.add(new Section(label, i));
+                lastLabel = label;
+            }
+        }
+        return new Snapshot(version, entries, sections);
+    }
+
+    private void rebuildForLocale() {
+        initLocale();
+        labels.clear();
+
+        // Labels are localized too, so reload them rather than re-keying
+        List<Entry> entries = scanAll(Collections.<String, Entry>emptyMap());
+        Snapshot updated;
+        synchronized (this) {
+            updated = build(getSnapshot().version + 1, entries);
+            snapshot = updated;
+        }
+        persist(updated);
+    }
+
+    private Snapshot load() {
+        Snapshot stored = readFromDisk();
+        if (stored == null) {
+            Snapshot scanned = build(1, scanAll(Collections.<String, Entry>emptyMap()));
+            persist(scanned);
+            return scanned;
+        }
+
+        // Packages may have changed while the process was dead. Reconcile
+        // against the current launcher activities, reusing stored labels for
+        // anything whose lastUpdateTime is unchanged.
+        Map<String, Entry> known = new HashMap<>();
+        for (Entry entry : stored.entries) {
+            known.put(entry.component.flattenToString(), entry);
+        }
+        Snapshot reconciled = build(stored.version + 1, scanAll(known));
+        if (sameEntries(stored.entries, reconciled.entries)) {
+            return stored;
+        }
+
+        Snapshot updated = reconciled;
+        persist(updated);
+        return updated;
+    }
+
+    private List<Entry> scanAll(Map<String, Entry> known) {
+        PackageManager pm = context.getPackageManager();
+        Intent intent = new Intent(Intent.ACTION_MAIN, null);
+        intent.addCategory(Intent.CATEGORY_LAUNCHER);
+
+        Map<String, Long> updateTimes = new HashMap<>();
+        for (PackageInfo info : pm.getInstalledPackages(0)) {
+            updateTimes.put(info.packageName, info.lastUpdateTime);
+        }
+
+        // Results are in resolution order, so a package's first one is primary
+        List<Entry> entries = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (ResolveInfo app : pm.queryIntentActivities(intent, 0)) {
+            String packageName = app.activityInfo.packageName;
+            String activityName = app.activityInfo.name;
+            Long updateTime = updateTimes.get(packageName);
+            long lastUpdateTime = updateTime != null ? updateTime : 0;
+            boolean primary = seen.add(packageName);
+
+            Entry cached = known.get(packageName + "/" + activityName);
+            if (cached != null && cached.lastUpdateTime == lastUpdateTime) {
+                entries.add(cached.withPrimary(primary));
+            } else {
+                String appName = labels.getActivityLabel(app, pm, lastUpdateTime);
+                entries.add(newEntry(packageName, activityName, appName, lastUpdateTime, primary));
+            }
+        }
+        return entries;
+    }
+
+    private void refreshPackage(String packageName) {
+        PackageManager pm = context.getPackageManager();
+        Intent intent = new Intent(Intent.ACTION_MAIN, null);
+        intent.addCategory(Intent.CATEGORY_LAUNCHER);
+        intent.setPackage(packageName);
+
+        List<Entry> fresh = new ArrayList<>();
+        List<ResolveInfo> activities = pm.queryIntentActivities(intent, 0);
+        if (!activities.isEmpty()) {
+            long lastUpdateTime = 0;
+            try {
+                lastUpdateTime = pm.getPackageInfo(packageName, 0).lastUpdateTime;
+            } catch (PackageManager.NameNotFoundException e) {
+                // Removed between the broadcast and this lookup
+            }
+            for (ResolveInfo app : activities) {
+                String appName = labels.getActivityLabel(app, pm, lastUpdateTime);
+                fresh.add(newEntry(packageName, app.activityInfo.name, appName, lastUpdateTime,
+                    fresh.isEmpty()));
+            }
+        }
+
+        Snapshot updated;
+        synchronized (this) {
+            Snapshot current = getSnapshot();
+            List<Entry> entries = new ArrayList<>(current.entries.size() + fresh.size());
+            for (Entry entry : current.entries) {
+                if (!entry.packageName.equals(packageName)) {
+                    entries.add(entry);
+                }
+            }
+            entries.addAll(fresh);
+            updated = build(current.version + 1, entries);
+            if (sameEntries(current.entries, updated.entries)) {
+                return;
+            }
+            snapshot = updated;
+        }
+        persist(updated);
+    }
+
+    private static boolean sameEntries(List<Entry> a, List<Entry> b) {
+        if (a.size() != b.size()) return false;
+        for (int i = 0; i < a.size(); i++) {
+            Entry x = a.get(i);
+            Entry y = b.get(i);
+            if (!x.component.equals(y.component) ||
+                !x.appName.equals(y.appName) ||
+                x.primary != y.primary ||
+                x.lastUpdateTime != y.lastUpdateTime) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Snapshot readFromDisk() {
+        File file = new File(context.getFilesDir(), FILE_NAME);
+        if (!file.exists()) return null;
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FILE_FORMAT) return null;
+
+            long version = in.readLong();
+            int count = in.readInt();
+            List<Entry> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String packageName = in.readUTF();
+                String activityName = in.readUTF();
+                String appName = in.readUTF();
+                long lastUpdateTime = in.readLong();
+                boolean primary = in.readBoolean();
+                entries.add(newEntry(packageName, activityName, appName, lastUpdateTime, primary));
+            }
+            // Stored order is from the previous locale; re-sort under this one
+            return build(version, entries);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private void persist(Snapshot snapshot) {
+        File file = new File(context.getFilesDir(), FILE_NAME);
+        File temp = new File(context.getFilesDir(), FILE_NAME + ".tmp");
+
+        try (FileOutputStream stream = new FileOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            out.writeInt(FILE_FORMAT);
+            out.writeLong(snapshot.version);
+            out.writeInt(snapshot.entries.size());
+            for (Entry entry : snapshot.entries) {
+                out.writeUTF(entry.packageName);
+                out.writeUTF(entry.component.getClassName());
+                out.writeUTF(entry.appName);
+                out.writeLong(entry.lastUpdateTime);
+                out.writeBoolean(entry.primary);
+            }
+            out.flush();
+            stream.getFD().sync();
+        } catch (IOException e) {
+            e.printStackTrace();
+            temp.delete();
+            return;
+        }
+
+        if (!temp.renameTo(file)) {
+            temp.delete();
+        }
+    }
+}
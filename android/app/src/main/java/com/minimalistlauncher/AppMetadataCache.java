@@ -0,0 +1,220 @@
+package com.minimalistlauncher;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+
+import androidx.collection.LruCache;
+
+/**
+ * Byte-bounded LRU of app labels and icons, keyed by package and
+ * lastUpdateTime so an app update leaves its old entries to age out.
+ */
+public final class AppMetadataCache implements ComponentCallbacks2 {
+
+    private static final int MAX_BYTES = 4 * 1024 * 1024;
+    // Rough cost of a String beyond its characters
+    private static final int STRING_OVERHEAD = 40;
+
+    /** Loads the values the cache misses on; swapped out in harnesses. */
+    interface Loader {
+        long lastUpdateTime(String packageName);
+
+        String applicationLabel(String packageName);
+
+        Bitmap icon(String packageName, int sizePx);
+    }
+
+    private static AppMetadataCache instance;
+
+    private final Loader loader;
+    private final LruCache<String, Object> cache;
+
+    private volatile long hits;
+    private volatile long misses;
+    private volatile long evictions;
+
+    AppMetadataCache(Loader loader, int maxBytes) {
+        this.loader = loader;
+        this.cache = new LruCache<String, Object>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, Object value) {
+                int size = STRING_OVERHEAD + key.length() * 2;
+                if (value instanceof Bitmap) {
+                    return size + ((Bitmap) value).getAllocationByteCount();
+                }
+                return size + STRING_OVERHEAD + ((String) value).length() * 2;
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, String key, Object oldValue, Object newValue) {
+                if (evicted) evictions++;
+            }
+        };
+    }
+
+    public static synchronized AppMetadataCache getInstance(Context context) {
+        if (instance == null) {
+            Context app = context.getApplicationContext();
+            int maxBytes = (int) Math.min(MAX_BYTES, Runtime.getRuntime().maxMemory() / 32);
+            instance = new AppMetadataCache(systemLoader(app.getPackageManager()), maxBytes);
+            app.registerComponentCallbacks(instance);
+        }
+        return instance;
+    }
+
+    static Loader systemLoader(PackageManager pm) {
+        return new Loader() {
+            @Override
+            public long lastUpdateTime(String packageName) {
+                try {
+                    PackageInfo info = pm.getPackageInfo(packageName, 0);
+                    return info.lastUpdateTime;
+                } catch (PackageManager.NameNotFoundException e) {
+                    return -1;
+                }
+            }
+
+            @Override
+            public String applicationLabel(String packageName) {
+                try {
+                    ApplicationInfo info = pm.getApplicationInfo(packageName, 0);
+                    return pm.getApplicationLabel(info).toString();
+                } catch (PackageManager.NameNotFoundException e) {
+                    return null;
+                }
+            }
+
+            @Override
+            public Bitmap icon(String packageName, int sizePx) {
+                try {
+                    Drawable drawable = pm.getApplicationIcon(packageName);
+                    Bitmap bitmap = Bitmap.createBitmap(sizePx, sizePx, Bitmap.Config.ARGB_8888);
+                    drawable.setBounds(0, 0, sizePx, sizePx);
+                    drawable.draw(new Canvas(bitmap));
+                    return bitmap;
+                } catch (PackageManager.NameNotFoundException e) {
+                    return null;
+                }
+            }
+        };
+    }
+
+    /**
+     * The app's label, or the package name if it isn't installed. Apps in
+     * the catalog are answered from it without touching the PackageManager.
+     */
+    public String getLabel(Context context, String packageName) {
+        AppCatalog.Snapshot catalog = AppCatalog.getInstance(context).peekSnapshot();
+        AppCatalog.Entry entry = catalog != null ? catalog.find(packageName) : null;
+        if (entry != null) return entry.appName;
+
+        return getLabel(packageName, loader.lastUpdateTime(packageName));
+    }
+
+    /** The application label for a known lastUpdateTime. */
+    public String getLabel(String packageName, long lastUpdateTime) {
+        if (lastUpdateTime < 0) return packageName;
+
+        String key = "label:" + packageName + "@" + lastUpdateTime;
+        Object cached = cache.get(key);
+        if (cached != null) {
+            hits++;
+            return (String) cached;
+        }
+
+        misses++;
+        String label = loader.applicationLabel(packageName);
+        if (label == null) return packageName;
+        cache.put(key, label);
+        return label;
+    }
+
+    /** The label of one launcher activity, which may differ from the app's. */
+    public String getActivityLabel(ResolveInfo info, PackageManager pm, long lastUpdateTime) {
+        String key = "activity:" + info.activityInfo.packageName + "/"
+            + info.activityInfo.name + "@" + lastUpdateTime;
+        Object cached = cache.get(key);
+        if (cached != null) {
+            hits++;
+            return (String) cached;
+        }
+
+        misses++;
+        String label = info.loadLabel(pm).toString();
+        cache.put(key, label);
+        return label;
+    }
+
+    /** The app icon drawn at sizePx square, or null if it isn't installed. */
+    public Bitmap getIcon(String packageName, int sizePx) {
+        long lastUpdateTime = loader.lastUpdateTime(packageName);
+        if (lastUpdateTime < 0) return null;
+
+        String key = "icon:" + packageName + "@" + lastUpdateTime + ":" + sizePx;
+        Object cached = cache.get(key);
+        if (cached != null) {
+            hits++;
+            return (Bitmap) cached;
+        }
+
+        misses++;
+        Bitmap icon = loader.icon(packageName, sizePx);
+        if (icon != null) {
+            cache.put(key, icon);
+        }
+        return icon;
+    }
+
+    /** Drops everything, e.g. when labels change with the locale. */
+    public void clear() {
+        cache.evictAll();
+    }
+
+    public long getHitCount() {
+        return hits;
+    }
+
+    public long getMissCount() {
+        return misses;
+    }
+
+    public long getEvictionCount() {
+        return evictions;
+    }
+
+    public int getSizeBytes() {
+        return cache.size();
+    }
+
+    public int getMaxSizeBytes() {
+        return cache.maxSize();
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_MODERATE || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+            // Everything here can be reloaded
+            cache.evictAll();
+        } else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            cache.trimToSize(cache.maxSize() / 2);
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        cache.evictAll();
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+        // Locale changes are handled by the catalog, which calls clear()
+    }
+}
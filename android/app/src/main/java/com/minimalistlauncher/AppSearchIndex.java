@@ -0,0 +1,212 @@
+package com.minimalistlauncher;
+
+import java.text.Normalizer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Fuzzy search over app labels and package names. Normalized text is kept
+ * per package, so a catalog change only normalizes the packages that are new,
+ * and queries reuse preallocated buffers instead of allocating per keystroke.
+ */
+public final class AppSearchIndex {
+
+    private static final int SCORE_PREFIX = 1000;
+    private static final int SCORE_WORD_PREFIX = 800;
+    private static final int SCORE_SUBSTRING = 600;
+    private static final int SCORE_SUBSEQUENCE = 400;
+    private static final int SCORE_PACKAGE = 200;
+
+    private static final class Item {
+        final AppCatalog.Entry entry;
+        final char[] label;
+        final char[] packageName;
+
+        Item(AppCatalog.Entry entry) {
+            this.entry = entry;
+            this.label = normalize(entry.appName).toCharArray();
+            this.packageName = entry.packageName.toLowerCase().toCharArray();
+        }
+    }
+
+    public interface ResultConsumer {
+        void accept(AppCatalog.Entry entry, int score);
+    }
+
+    private static AppSearchIndex instance;
+
+    private final Supplier<AppCatalog.Snapshot> catalog;
+    private long indexedVersion = -1;
+    private Item[] items = new Item[0];
+    private Map<String, Item> itemsByKey = new HashMap<>();
+
+    // Reused across queries
+    private char[] queryBuffer = new char[32];
+    private int[] topItems = new int[0];
+    private int[] topScores = new int[0];
+
+    AppSearchIndex(Supplier<AppCatalog.Snapshot> catalog) {
+        this.catalog = catalog;
+    }
+
+    public static synchronized AppSearchIndex getInstance(AppCatalog catalog) {
+        if (instance == null) {
+            instance = new AppSearchIndex(catalog::getSnapshot);
+        }
+        return instance;
+    }
+
+    /**
+     * Reports up to {@code limit} matches for {@code query}, best first, and
+     * returns how many were reported.
+     */
+    public synchronized int search(String query, int limit, ResultConsumer consumer) {
+        syncWithCatalog();
+
+        int queryLength = normalizeQuery(query);
+        if (queryLength == 0 || limit <= 0) return 0;
+
+        if (topItems.length < limit) {
+            topItems = new int[limit];
+            topScores = new int[limit];
+        }
+
+        int found = 0;
+        for (int i = 0; i < items.length; i++) {
+            int score = score(items[i], queryBuffer, queryLength);
+            if (score <= 0) continue;
+
+            // Insert into the bounded top list, kept in descending order
+            if (found < limit) {
+                found++;
+            } else if (score <= topScores[limit - 1]) {
+                continue;
+            }
+            int pos = found - 1;
+            while (pos > 0 && topScores[pos - 1] < score) {
+                topScores[pos] = topScores[pos - 1];
+                topItems[pos] = topItems[pos - 1];
+                pos--;
+            }
+            topScores[pos] = score;
+            topItems[pos] = i;
+        }
+
+        for (int i = 0; i < found; i++) {
+            consumer.accept(items[topItems[i]].entry, topScores[i]);
+        }
+        return found;
+    }
+
+    private void syncWithCatalog() {
+        AppCatalog.Snapshot snapshot = catalog.get();
+        if (snapshot.version == indexedVersion) return;
+
+        List<AppCatalog.Entry> entries = snapshot.entries;
+        Item[] rebuilt = new Item[entries.size()];
+        Map<String, Item> rebuiltByKey = new HashMap<>(entries.size() * 2);
+        for (int i = 0; i < rebuilt.length; i++) {
+            AppCatalog.Entry entry = entries.get(i);
+            String key = entry.packageName + '/' + entry.appName;
+            Item item = itemsByKey.get(key);
+            if (item == null || item.entry != entry) {
+                item = new Item(entry);
+            }
+            rebuilt[i] = item;
+            rebuiltByKey.put(key, item);
+        }
+
+        items = rebuilt;
+        itemsByKey = rebuiltByKey;
+        indexedVersion = snapshot.version;
+    }
+
+    private int normalizeQuery(String query) {
+        if (query == null) return 0;
+
+        String trimmed = query.trim();
+        for (int i = 0; i < trimmed.length(); i++) {
+            if (trimmed.charAt(i) > 0x7f) {
+                // Only non-ASCII input needs the accent-folding path
+                trimmed = normalize(trimmed);
+                break;
+            }
+        }
+
+        int length = trimmed.length();
+        if (queryBuffer.length < length) {
+            queryBuffer = new char[length * 2];
+        }
+        for (int i = 0; i < length; i++) {
+            queryBuffer[i] = Character.toLowerCase(trimmed.charAt(i));
+        }
+        return length;
+    }
+
+    private static int score(Item item, char[] query, int queryLength) {
+        char[] label = item.label;
+
+        int index = indexOf(label, query, queryLength);
+        if (index == 0) {
+            return SCORE_PREFIX - label.length;
+        }
+        if (index > 0) {
+            // Prefer matches at the start of a word, then earlier matches
+            char before = label[index - 1];
+            if (before == ' ' || before == '-' || before == '.' || before == '_') {
+                return SCORE_WORD_PREFIX - index;
+            }
+            return SCORE_SUBSTRING - index;
+        }
+
+        int gaps = subsequenceGaps(label, query, queryLength);
+        if (gaps >= 0) {
+            return Math.max(SCORE_SUBSEQUENCE - gaps, SCORE_PACKAGE + 1);
+        }
+
+        if (indexOf(item.packageName, query, queryLength) >= 0) {
+            return SCORE_PACKAGE;
+        }
+        return 0;
+    }
+
+    private static int indexOf(char[] text, char[] query, int queryLength) {
+        outer:
+        for (int i = 0; i + queryLength <= text.length; i++) {
+            for (int j = 0; j < queryLength; j++) {
+                if (text[i + j] != query[j]) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    // Characters skipped between the first and last matched character, or -1
+    // if query is not a subsequence of text
+    private static int subsequenceGaps(char[] text, char[] query, int queryLength) {
+        int j = 0;
+        int gaps = 0;
+        for (int i = 0; i < text.length && j < queryLength; i++) {
+            if (text[i] == query[j]) {
+                j++;
+            } else if (j > 0) {
+                gaps++;
+            }
+        }
+        return j == queryLength ? gaps : -1;
+    }
+
+    static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder out = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                out.append(Character.toLowerCase(c));
+            }
+        }
+        return out.toString();
+    }
+}
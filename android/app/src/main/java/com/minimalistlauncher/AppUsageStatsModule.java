@@ -1,8 +1,6 @@
 package com.minimalistlauncher;
 
 import android.app.AppOpsManager;
-import android.app.usage.UsageStats;
-import android.app.usage.UsageStatsManager;
 import android.content.Context;
 import android.content.Intent;
 import android.provider.Settings;
@@ -11,16 +9,14 @@ import android.os.Process;
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
-import com.facebook.react.bridge.ReactContextBaseJavaModule;
-import com.facebook.react.bridge.ReactMethod;
-import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
 
 import java.util.Calendar;
-import java.util.List;
 import java.util.Map;
 
-public class AppUsageStatsModule extends ReactContextBaseJavaModule {
+public class AppUsageStatsModule extends NativeAppUsageStatsModuleSpec {
 
     private final ReactApplicationContext reactContext;
 
@@ -30,27 +26,17 @@ public class AppUsageStatsModule extends ReactContextBaseJavaModule {
     }
 
     @Override
-    public String getName() {
-        return "AppUsageStatsModule";
-    }
-
-    @ReactMethod
     public void hasUsageStatsPermission(Promise promise) {
-        try {
-            AppOpsManager appOps = (AppOpsManager) reactContext
-                .getSystemService(Context.APP_OPS_SERVICE);
-            int mode = appOps.checkOpNoThrow(
-                AppOpsManager.OPSTR_GET_USAGE_STATS,
-                Process.myUid(),
-                reactContext.getPackageName()
-            );
-            promise.resolve(mode == AppOpsManager.MODE_ALLOWED);
-        } catch (Exception e) {
-            promise.reject("ERROR", e.getMessage());
-        }
+        ModuleExecutors.getInstance().interactive(() -> {
+            try {
+                promise.resolve(hasUsageAccess(reactContext));
+            } catch (Exception e) {
+                promise.reject("ERROR", e.getMessage());
+            }
+        });
     }
 
-    @ReactMethod
+    @Override
     public void requestUsageStatsPermission(Promise promise) {
         try {
             Intent intent = new Intent(Settings.ACTION_USAGE_ACCESS_SETTINGS);
@@ -62,119 +48,199 @@ public class AppUsageStatsModule extends ReactContextBaseJavaModule {
         }
     }
 
-    @ReactMethod
+    @Override
     public void getUsageStats(String startDateStr, String endDateStr, Promise promise) {
         try {
             long startTime = Long.parseLong(startDateStr);
             long endTime = Long.parseLong(endDateStr);
 
-            UsageStatsManager usageStatsManager = (UsageStatsManager) reactContext
-                .getSystemService(Context.USAGE_STATS_SERVICE);
-
-            Map<String, UsageStats> usageStatsMap = usageStatsManager
-                .queryAndAggregateUsageStats(startTime, endTime);
-
-            WritableMap result = Arguments.createMap();
-
-            for (Map.Entry<String, UsageStats> entry : usageStatsMap.entrySet()) {
-                UsageStats stats = entry.getValue();
-                WritableMap appData = Arguments.createMap();
-                appData.putDouble("totalTimeInForeground",
-                    (double) stats.getTotalTimeInForeground());
-                appData.putDouble("lastTimeUsed",
-                    (double) stats.getLastTimeUsed());
-                appData.putDouble("firstTimeStamp",
-                    (double) stats.getFirstTimeStamp());
-                appData.putDouble("lastTimeStamp",
-                    (double) stats.getLastTimeStamp());
-
-                result.putMap(stats.getPackageName(), appData);
-            }
-
-            promise.resolve(result);
+            ModuleExecutors.getInstance().bulk(
+                "getUsageStats:" + startTime + ":" + endTime, promise,
+                () -> UsageEngine.getInstance(reactContext).getRange(startTime, endTime),
+                usage -> toWritableMap(usage, true));
         } catch (Exception e) {
             promise.reject("ERROR", e.getMessage());
         }
     }
 
-    @ReactMethod
+    @Override
     public void getDailyUsage(String dateStr, Promise promise) {
         try {
-            // Parse YYYY-MM-DD format
-            String[] parts = dateStr.split("-");
-            int year = Integer.parseInt(parts[0]);
-            int month = Integer.parseInt(parts[1]) - 1; // Calendar months are 0-indexed
-            int day = Integer.parseInt(parts[2]);
-
-            Calendar calendar = Calendar.getInstance();
-            calendar.set(year, month, day, 0, 0, 0);
-            calendar.set(Calendar.MILLISECOND, 0);
-            long startTime = calendar.getTimeInMillis();
-
-            calendar.set(Calendar.HOUR_OF_DAY, 23);
-            calendar.set(Calendar.MINUTE, 59);
-            calendar.set(Calendar.SECOND, 59);
-            calendar.set(Calendar.MILLISECOND, 999);
-            long endTime = calendar.getTimeInMillis();
-
-            UsageStatsManager usageStatsManager = (UsageStatsManager) reactContext
-                .getSystemService(Context.USAGE_STATS_SERVICE);
-
-            Map<String, UsageStats> usageStatsMap = usageStatsManager
-                .queryAndAggregateUsageStats(startTime, endTime);
-
-            WritableMap result = Arguments.createMap();
-
-            for (Map.Entry<String, UsageStats> entry : usageStatsMap.entrySet()) {
-                UsageStats stats = entry.getValue();
-                WritableMap appData = Arguments.createMap();
-                appData.putDouble("totalTimeInForeground",
-                    (double) stats.getTotalTimeInForeground());
-                appData.putDouble("lastTimeUsed",
-                    (double) stats.getLastTimeUsed());
-
-                result.putMap(stats.getPackageName(), appData);
-            }
+            long dayStart = parseDayStart(dateStr);
 
-            promise.resolve(result);
+            ModuleExecutors.getInstance().bulk(
+                "getDailyUsage:" + dayStart, promise,
+                () -> UsageEngine.getInstance(reactContext).getDay(dayStart),
+                usage -> toWritableMap(usage, false));
         } catch (Exception e) {
             promise.reject("ERROR", e.getMessage());
         }
     }
 
-    @ReactMethod
+    @Override
     public void getTodayUsage(Promise promise) {
         try {
-            Calendar calendar = Calendar.getInstance();
-            calendar.set(Calendar.HOUR_OF_DAY, 0);
-            calendar.set(Calendar.MINUTE, 0);
-            calendar.set(Calendar.SECOND, 0);
-            calendar.set(Calendar.MILLISECOND, 0);
-            long startTime = calendar.getTimeInMillis();
-            long endTime = System.currentTimeMillis();
-
-            UsageStatsManager usageStatsManager = (UsageStatsManager) reactContext
-                .getSystemService(Context.USAGE_STATS_SERVICE);
-
-            Map<String, UsageStats> usageStatsMap = usageStatsManager
-                .queryAndAggregateUsageStats(startTime, endTime);
-
-            WritableMap result = Arguments.createMap();
-
-            for (Map.Entry<String, UsageStats> entry : usageStatsMap.entrySet()) {
-                UsageStats stats = entry.getValue();
-                WritableMap appData = Arguments.createMap();
-                appData.putDouble("totalTimeInForeground",
-                    (double) stats.getTotalTimeInForeground());
-                appData.putDouble("lastTimeUsed",
-                    (double) stats.getLastTimeUsed());
-
-                result.putMap(stats.getPackageName(), appData);
+            ModuleExecutors.getInstance().bulk(
+                "getTodayUsage", promise,
+                () -> UsageEngine.getInstance(reactContext).getToday(),
+                usage -> toWritableMap(usage, false));
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    @Override
+    public void getUsageHistory(String startDateStr, String endDateStr, Promise promise) {
+        try {
+            long startDay = parseDayStart(startDateStr);
+            // The end date is inclusive
+            long endDay = UsageEventIngestor.nextDayStart(parseDayStart(endDateStr));
+
+            ModuleExecutors.getInstance().bulk(
+                "getUsageHistory:" + startDay + ":" + endDay, promise,
+                () -> UsageEngine.getInstance(reactContext).getHistory(startDay, endDay),
+                totals -> {
+                    WritableMap result = Arguments.createMap();
+                    for (Map.Entry<String, Long> entry : totals.entrySet()) {
+                        WritableMap appData = Arguments.createMap();
+                        appData.putDouble("totalTimeInForeground", (double) entry.getValue());
+                        result.putMap(entry.getKey(), appData);
+                    }
+                    return result;
+                });
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    // A call with a requestGroup supersedes the previous one in that group
+    @Override
+    public void queryUsage(ReadableMap options, Promise promise) {
+        try {
+            // Without an explicit range, query today
+            boolean hasRange = options.hasKey("startTime") && options.hasKey("endTime");
+            long startTime = hasRange ? (long) options.getDouble("startTime") : -1;
+            long endTime = hasRange ? (long) options.getDouble("endTime") : -1;
+
+            UsageQuery query = new UsageQuery();
+            StringBuilder key = new StringBuilder("queryUsage:")
+                .append(startTime).append(':').append(endTime);
+            if (options.hasKey("minForegroundMs")) {
+                query.setMinForegroundMs((long) options.getDouble("minForegroundMs"));
+                key.append(":min=").append(options.getDouble("minForegroundMs"));
+            }
+            if (options.hasKey("topN")) {
+                query.setTopN(options.getInt("topN"));
+                key.append(":top=").append(options.getInt("topN"));
+            }
+            if (options.hasKey("pageSize")) {
+                query.setPageSize(options.getInt("pageSize"));
+                key.append(":page=").append(options.getInt("pageSize"));
+            }
+            if (options.hasKey("sortBy")) {
+                query.setSortBy(options.getString("sortBy"));
+                key.append(":sort=").append(options.getString("sortBy"));
+            }
+            if (options.hasKey("cursor") && !options.isNull("cursor")) {
+                query.setCursor(options.getString("cursor"));
+                key.append(":cursor=").append(options.getString("cursor"));
             }
+            String group = options.hasKey("requestGroup") && !options.isNull("requestGroup")
+                ? "queryUsage:" + options.getString("requestGroup")
+                : null;
+
+            ModuleExecutors.getInstance().bulk(group, key.toString(), promise, () -> {
+                UsageEngine engine = UsageEngine.getInstance(reactContext);
+                Map<String, UsageEngine.UsageRecord> usage = hasRange
+                    ? engine.getRange(startTime, endTime)
+                    : engine.getToday();
+                return query.run(usage.values());
+            }, this::toWritablePage);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
 
-            promise.resolve(result);
+    @Override
+    public void invalidateUsageCache(Promise promise) {
+        try {
+            UsageEngine.getInstance(reactContext).invalidate();
+            promise.resolve(true);
         } catch (Exception e) {
             promise.reject("ERROR", e.getMessage());
         }
     }
+
+    static boolean hasUsageAccess(Context context) {
+        AppOpsManager appOps = (AppOpsManager) context
+            .getSystemService(Context.APP_OPS_SERVICE);
+        int mode = appOps.checkOpNoThrow(
+            AppOpsManager.OPSTR_GET_USAGE_STATS,
+            Process.myUid(),
+            context.getPackageName()
+        );
+        return mode == AppOpsManager.MODE_ALLOWED;
+    }
+
+    private static long parseDayStart(String dateStr) {
+        // Parse YYYY-MM-DD format
+        String[] parts = dateStr.split("-");
+        int year = Integer.parseInt(parts[0]);
+        int month = Integer.parseInt(parts[1]) - 1; // Calendar months are 0-indexed
+        int day = Integer.parseInt(parts[2]);
+
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(year, month, day, 0, 0, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+
+    private WritableMap toWritablePage(UsageQuery.Page page) {
+        AppMetadataCache labels = AppMetadataCache.getInstance(reactContext);
+        WritableArray entries = Arguments.createArray();
+        for (UsageEngine.UsageRecord stats : page.entries) {
+            WritableMap appData = Arguments.createMap();
+            appData.putString("packageName", stats.packageName);
+            appData.putString("appName", labels.getLabel(reactContext, stats.packageName));
+            appData.putDouble("totalTimeInForeground", (double) stats.totalTimeInForeground);
+            appData.putDouble("lastTimeUsed", (double) stats.lastTimeUsed);
+            appData.putInt("sessionCount", stats.sessionCount);
+            entries.pushMap(appData);
+        }
+
+        WritableMap result = Arguments.createMap();
+        result.putArray("entries", entries);
+        if (page.nextCursor != null) {
+            result.putString("nextCursor", page.nextCursor);
+        } else {
+            result.putNull("nextCursor");
+        }
+        result.putInt("matchedCount", page.matchedCount);
+        result.putDouble("totalForegroundMs", (double) page.totalForegroundMs);
+        return result;
+    }
+
+    private WritableMap toWritableMap(Map<String, UsageEngine.UsageRecord> usage,
+                                      boolean includeTimeStamps) {
+        WritableMap result = Arguments.createMap();
+
+        for (UsageEngine.UsageRecord stats : usage.values()) {
+            WritableMap appData = Arguments.createMap();
+            appData.putDouble("totalTimeInForeground",
+                (double) stats.totalTimeInForeground);
+            appData.putDouble("lastTimeUsed",
+                (double) stats.lastTimeUsed);
+            appData.putInt("sessionCount", stats.sessionCount);
+            if (includeTimeStamps) {
+                appData.putDouble("firstTimeStamp",
+                    (double) stats.firstTimeStamp);
+                appData.putDouble("lastTimeStamp",
+                    (double) stats.lastTimeStamp);
+            }
+
+            result.putMap(stats.packageName, appData);
+        }
+
+        return result;
+    }
 }
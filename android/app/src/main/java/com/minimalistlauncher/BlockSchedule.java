@@ -0,0 +1,246 @@
+package com.minimalistlauncher;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Recurring weekly block rules compiled into a timeline of the week.
+ *
+ * The week is split at every rule boundary into segments, each holding the
+ * set of packages blocked during it, so a lookup is a binary search over the
+ * segment starts. Times are local wall-clock minutes of the week, which keeps
+ * a 9:00 rule at 9:00 across DST changes. Instances are immutable.
+ */
+public final class BlockSchedule {
+
+    static final int MINUTES_PER_DAY = 24 * 60;
+    static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+
+    public static final BlockSchedule EMPTY = compile(Collections.<Rule>emptyList());
+
+    /**
+     * Blocks the packages from startMinute to endMinute (minutes after local
+     * midnight) on each of the days (0 = Sunday). An end at or before the
+     * start runs past midnight into the next day.
+     */
+    public static final class Rule {
+        final Set<String> packages;
+        final int[] days;
+        final int startMinute;
+        final int endMinute;
+
+        public Rule(Set<String> packages, int[] days, int startMinute, int endMinute) {
+            this.packages = packages;
+            this.days = days;
+            this.startMinute = startMinute;
+            this.endMinute = endMinute;
+        }
+    }
+
+    // Sorted segment starts in minutes of the week; starts[0] is always 0
+    private final int[] starts;
+    private final List<Set<String>> blocked;
+    private final int ruleCount;
+    // Every package blocked at some point in the week
+    private final Set<String> packages;
+
+    private BlockSchedule(int[] starts, List<Set<String>> blocked, int ruleCount) {
+        this.starts = starts;
+        this.blocked = blocked;
+        this.ruleCount = ruleCount;
+
+        Set<String> all = new HashSet<>();
+        for (Set<String> set : blocked) {
+            all.addAll(set);
+        }
+        this.packages = Collections.unmodifiableSet(all);
+    }
+
+    public static BlockSchedule fromJson(String json) {
+        List<Rule> rules = new ArrayList<>();
+        try {
+            JSONArray array = new JSONArray(json);
+            for (int i = 0; i < array.length(); i++) {
+                JSONObject rule = array.getJSONObject(i);
+
+                JSONArray packageArray = rule.getJSONArray("packages");
+                Set<String> packages = new HashSet<>();
+                for (int j = 0; j < packageArray.length(); j++) {
+                    packages.add(packageArray.getString(j));
+                }
+
+                JSONArray dayArray = rule.getJSONArray("days");
+                int[] days = new int[dayArray.length()];
+                for (int j = 0; j < days.length; j++) {
+                    days[j] = dayArray.getInt(j);
+                }
+
+                rules.add(new Rule(packages, days,
+                    rule.getInt("startMinute"), rule.getInt("endMinute")));
+            }
+        } catch (JSONException e) {
+            e.printStackTrace();
+        }
+        return compile(rules);
+    }
+
+    public static BlockSchedule compile(List<Rule> rules) {
+        // Minute of the week -> packages starting (+1) or ending (-1) there
+        Map<Integer, Map<String, Integer>> changes = new HashMap<>();
+        for (Rule rule : rules) {
+            int start = clampMinute(rule.startMinute);
+            int end = clampMinute(rule.endMinute);
+            int length = end > start ? end - start : end - start + MINUTES_PER_DAY;
+
+            for (int day : rule.days) {
+                if (day < 0 || day > 6) continue;
+                int from = day * MINUTES_PER_DAY + start;
+                int to = from + length;
+                if (to <= MINUTES_PER_WEEK) {
+                    addInterval(changes, rule.packages, from, to);
+                } else {
+                    // Saturday night runs into Sunday morning
+                    addInterval(changes, rule.packages, from, MINUTES_PER_WEEK);
+                    addInterval(changes, rule.packages, 0, to - MINUTES_PER_WEEK);
+                }
+            }
+        }
+
+        int[] points = new int[changes.size() + 1];
+        int count = 0;
+        points[count++] = 0;
+        for (int point : changes.keySet()) {
+            if (point > 0 && point < MINUTES_PER_WEEK) points[count++] = point;
+        }
+        Arrays.sort(points, 0, count);
+
+        // Sweep the week, snapshotting the active set at each change point
+        Map<String, Integer> active = new HashMap<>();
+        List<Integer> segmentStarts = new ArrayList<>();
+        List<Set<String>> segmentSets = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Map<String, Integer> delta = changes.get(points[i]);
+            if (delta != null) {
+                for (Map.Entry<String, Integer> change : delta.entrySet()) {
+                    int depth = (active.containsKey(change.getKey()) ? active.get(change.getKey()) : 0)
+                        + change.getValue();
+                    if (depth > 0) {
+                        active.put(change.getKey(), depth);
+                    } else {
+                        active.remove(change.getKey());
+                    }
+                }
+            }
+
+            Set<String> set = active.isEmpty()
+                ? Collections.<String>emptySet()
+                : Collections.unmodifiableSet(new HashSet<>(active.keySet()));
+            // Overlapping rules often leave the set unchanged; merge those
+            if (!segmentSets.isEmpty() && segmentSets.get(segmentSets.size() - 1).equals(set)) {
+                continue;
+            }
+            segmentStarts.add(points[i]);
+            segmentSets.add(set);
+        }
+
+        int[] starts = new int[segmentStarts.size()];
+        for (int i = 0; i < starts.length; i++) starts[i] = segmentStarts.get(i);
+        return new BlockSchedule(starts, segmentSets, rules.size());
+    }
+
+    public boolean isEmpty() {
+        return ruleCount == 0;
+    }
+
+    public Set<String> getPackages() {
+        return packages;
+    }
+
+    public boolean isBlocked(String packageName, long now) {
+        if (starts.length == 1 && blocked.get(0).isEmpty()) return false;
+        return blocked.get(segmentAt(minuteOfWeek(now))).contains(packageName);
+    }
+
+    /**
+     * Wall-clock time of the next change to the blocked set after now, or -1
+     * if the set never changes.
+     */
+    public long nextTransition(long now) {
+        if (starts.length == 1) return -1;
+
+        int minute = minuteOfWeek(now);
+        int segment = segmentAt(minute);
+        int next;
+        if (segment + 1 < starts.length) {
+            next = starts[segment + 1];
+        } else if (blocked.get(segment).equals(blocked.get(0))) {
+            // The last segment runs on into the first one; Sunday midnight isn't a change
+            next = starts[1] + MINUTES_PER_WEEK;
+        } else {
+            next = MINUTES_PER_WEEK;
+        }
+
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(now);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        calendar.add(Calendar.DAY_OF_MONTH, next / MINUTES_PER_DAY - minute / MINUTES_PER_DAY);
+        calendar.set(Calendar.HOUR_OF_DAY, (next % MINUTES_PER_DAY) / 60);
+        calendar.set(Calendar.MINUTE, next % 60);
+
+        long time = calendar.getTimeInMillis();
+        if (time <= now) {
+            // The wall time repeats when DST ends; fall back to elapsed minutes
+            time = now + (long) (next - minute) * 60000;
+        }
+        return time;
+    }
+
+    private int segmentAt(int minute) {
+        int index = Arrays.binarySearch(starts, minute);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    static int minuteOfWeek(long time) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(time);
+        return (calendar.get(Calendar.DAY_OF_WEEK) - Calendar.SUNDAY) * MINUTES_PER_DAY
+            + calendar.get(Calendar.HOUR_OF_DAY) * 60
+            + calendar.get(Calendar.MINUTE);
+    }
+
+    private static void addInterval(Map<Integer, Map<String, Integer>> changes,
+                                    Set<String> packages, int from, int to) {
+        if (from >= to) return;
+        for (String packageName : packages) {
+            addChange(changes, from, packageName, 1);
+            addChange(changes, to, packageName, -1);
+        }
+    }
+
+    private static void addChange(Map<Integer, Map<String, Integer>> changes,
+                                  int point, String packageName, int delta) {
+        Map<String, Integer> atPoint = changes.get(point);
+        if (atPoint == null) {
+            atPoint = new HashMap<>();
+            changes.put(point, atPoint);
+        }
+        Integer current = atPoint.get(packageName);
+        atPoint.put(packageName, (current != null ? current : 0) + delta);
+    }
+
+    private static int clampMinute(int minute) {
+        return Math.max(0, Math.min(MINUTES_PER_DAY, minute));
+    }
+}
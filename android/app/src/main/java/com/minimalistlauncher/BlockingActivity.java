@@ -3,8 +3,6 @@ package com.minimalistlauncher;
 import android.app.Activity;
 import android.content.Intent;
 import android.content.SharedPreferences;
-import android.content.pm.ApplicationInfo;
-import android.content.pm.PackageManager;
 import android.os.Bundle;
 import android.view.View;
 import android.view.WindowManager;
@@ -37,6 +35,8 @@ public class BlockingActivity extends Activity {
 
         blockedPackage = getIntent().getStringExtra("blockedPackage");
         blockingReason = getIntent().getStringExtra("blockingReason");
+        BlockingLatency.recordOnFirstDraw(getWindow().getDecorView(),
+            BlockingLatency.PATH_ACTIVITY, getIntent().getLongExtra("eventUptime", 0));
 
         if (blockedPackage == null) {
             finish();
@@ -68,13 +68,7 @@ public class BlockingActivity extends Activity {
     }
 
     private String getAppName(String packageName) {
-        PackageManager pm = getPackageManager();
-        try {
-            ApplicationInfo appInfo = pm.getApplicationInfo(packageName, 0);
-            return pm.getApplicationLabel(appInfo).toString();
-        } catch (PackageManager.NameNotFoundException e) {
-            return packageName;
-        }
+        return AppMetadataCache.getInstance(this).getLabel(this, packageName);
     }
 
     private void handleBreakGlass() {
@@ -88,10 +82,7 @@ public class BlockingActivity extends Activity {
             removeFromBlockedApps(blockedPackage);
 
             // Launch the app
-            Intent launchIntent = getPackageManager().getLaunchIntentForPackage(blockedPackage);
-            if (launchIntent != null) {
-                startActivity(launchIntent);
-            }
+            AppCatalog.getInstance(this).launch(this, blockedPackage);
 
             finish();
         } else {
@@ -101,9 +92,9 @@ public class BlockingActivity extends Activity {
     }
 
     private void removeFromBlockedApps(String packageName) {
-        // Temporarily remove from blocked apps for this session
-        // This could be improved to have a timer to re-add it
-        // For now, the React Native side will manage re-blocking
+        // Let the app through for the break glass duration; the service
+        // blocks it again once the allowance expires
+        TemporaryAllowances.getInstance(this).grant(packageName);
     }
 
     private void goHome() {
@@ -0,0 +1,89 @@
+package com.minimalistlauncher;
+
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Records how long it takes from the window event that triggered a block
+ * until the blocking UI is first drawn, per path (overlay or activity), so
+ * the two can be compared.
+ */
+public final class BlockingLatency {
+
+    public static final String PATH_OVERLAY = "overlay";
+    public static final String PATH_ACTIVITY = "activity";
+
+    private static final String TAG = "BlockingLatency";
+
+    public static final class Stats {
+        public final int count;
+        public final long totalMs;
+        public final long maxMs;
+        public final long lastMs;
+
+        Stats(int count, long totalMs, long maxMs, long lastMs) {
+            this.count = count;
+            this.totalMs = totalMs;
+            this.maxMs = maxMs;
+            this.lastMs = lastMs;
+        }
+    }
+
+    private static final Map<String, Stats> stats = new HashMap<>();
+
+    private BlockingLatency() {
+    }
+
+    public static synchronized void record(String path, long latencyMs) {
+        Stats previous = stats.get(path);
+        if (previous == null) {
+            previous = new Stats(0, 0, 0, 0);
+        }
+        stats.put(path, new Stats(previous.count + 1, previous.totalMs + latencyMs,
+            Math.max(previous.maxMs, latencyMs), latencyMs));
+
+        Log.d(TAG, path + " visible " + latencyMs + " ms after the window event");
+    }
+
+    public static synchronized Map<String, Stats> getStats() {
+        return new HashMap<>(stats);
+    }
+
+    public static synchronized void reset() {
+        stats.clear();
+    }
+
+    /**
+     * Records the latency once the view next draws. eventUptime is in the
+     * SystemClock.uptimeMillis() base, like AccessibilityEvent.getEventTime().
+     */
+    static void recordOnFirstDraw(View view, String path, long eventUptime) {
+        if (eventUptime <= 0) return;
+
+        ViewTreeObserver observer = view.getViewTreeObserver();
+        observer.addOnDrawListener(new ViewTreeObserver.OnDrawListener() {
+            private boolean recorded;
+
+            @Override
+            public void onDraw() {
+                if (recorded) return;
+                recorded = true;
+                record(path, SystemClock.uptimeMillis() - eventUptime);
+
+                // Listeners can't be removed while the tree is dispatching
+                ViewTreeObserver.OnDrawListener listener = this;
+                view.post(() -> {
+                    ViewTreeObserver current = view.getViewTreeObserver();
+                    if (current.isAlive()) {
+                        current.removeOnDrawListener(listener);
+                    }
+                });
+            }
+        });
+    }
+}
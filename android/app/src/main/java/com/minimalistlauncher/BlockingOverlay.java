@@ -0,0 +1,141 @@
+package com.minimalistlauncher;
+
+import android.accessibilityservice.AccessibilityService;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.graphics.PixelFormat;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.WindowManager;
+import android.widget.Button;
+import android.widget.EditText;
+import android.widget.TextView;
+
+/**
+ * Blocking screen shown as an accessibility overlay that is inflated once and
+ * reused. Main thread only.
+ */
+public final class BlockingOverlay {
+
+    private static final String PREFS_NAME = "MinimalistLauncherPrefs";
+    private static final String KEY_BREAK_GLASS_PHRASE = "breakGlassPhrase";
+    private static final String DEFAULT_PHRASE = "I need this";
+
+    private final AccessibilityService service;
+    private final Runnable onHidden;
+    private final WindowManager windowManager;
+    private final WindowManager.LayoutParams layoutParams;
+
+    private final View root;
+    private final TextView titleText;
+    private final TextView messageText;
+    private final TextView reasonText;
+    private final EditText breakGlassInput;
+    private final TextView errorText;
+
+    private String blockedPackage;
+    private boolean attached;
+
+    public BlockingOverlay(AccessibilityService service, Runnable onHidden) {
+        this.service = service;
+        this.onHidden = onHidden;
+        this.windowManager = (WindowManager) service.getSystemService(Context.WINDOW_SERVICE);
+
+        root = LayoutInflater.from(service).inflate(R.layout.activity_blocking, null);
+        titleText = root.findViewById(R.id.blocking_title);
+        messageText = root.findViewById(R.id.blocking_message);
+        reasonText = root.findViewById(R.id.blocking_reason);
+        breakGlassInput = root.findViewById(R.id.break_glass_input);
+        errorText = root.findViewById(R.id.error_text);
+        Button goBackButton = root.findViewById(R.id.go_back_button);
+        Button breakGlassButton = root.findViewById(R.id.break_glass_button);
+
+        goBackButton.setOnClickListener(v -> {
+            service.performGlobalAction(AccessibilityService.GLOBAL_ACTION_HOME);
+            hide();
+        });
+        breakGlassButton.setOnClickListener(v -> handleBreakGlass());
+
+        // Focusable so the break glass field can take keyboard input
+        layoutParams = new WindowManager.LayoutParams(
+            ViewGroup.LayoutParams.MATCH_PARENT,
+            ViewGroup.LayoutParams.MATCH_PARENT,
+            WindowManager.LayoutParams.TYPE_ACCESSIBILITY_OVERLAY,
+            WindowManager.LayoutParams.FLAG_LAYOUT_IN_SCREEN,
+            PixelFormat.OPAQUE);
+        layoutParams.softInputMode = WindowManager.LayoutParams.SOFT_INPUT_ADJUST_RESIZE;
+    }
+
+    /**
+     * Shows the overlay for a package. Returns false if the window could not
+     * be added, in which case the caller should fall back to the activity.
+     */
+    public boolean show(String packageName, String reason, long eventUptime) {
+        blockedPackage = packageName;
+        titleText.setText(appName(packageName) + " is blocked");
+        messageText.setText("This app is currently blocked.");
+        reasonText.setText(reason);
+        breakGlassInput.setText("");
+        errorText.setVisibility(View.GONE);
+
+        if (!attached) {
+            try {
+                windowManager.addView(root, layoutParams);
+                attached = true;
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                return false;
+            }
+        }
+        BlockingLatency.recordOnFirstDraw(root, BlockingLatency.PATH_OVERLAY, eventUptime);
+        return true;
+    }
+
+    public void hide() {
+        if (!attached) return;
+
+        attached = false;
+        blockedPackage = null;
+        try {
+            windowManager.removeViewImmediate(root);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+        onHidden.run();
+    }
+
+    public boolean isShowing() {
+        return attached;
+    }
+
+    public String getBlockedPackage() {
+        return blockedPackage;
+    }
+
+    // Served from the catalog when loaded; never block on loading it here
+    private String appName(String packageName) {
+        return AppMetadataCache.getInstance(service).getLabel(service, packageName);
+    }
+
+    private void handleBreakGlass() {
+        // hide() clears blockedPackage, so keep the target first
+        String packageName = blockedPackage;
+        if (packageName == null) return;
+
+        String input = breakGlassInput.getText().toString().trim();
+
+        SharedPreferences prefs = service.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        String requiredPhrase = prefs.getString(KEY_BREAK_GLASS_PHRASE, DEFAULT_PHRASE);
+
+        if (input.equals(requiredPhrase)) {
+            TemporaryAllowances.getInstance(service).grant(packageName);
+
+            hide();
+            AppCatalog.getInstance(service).launch(service, packageName);
+        } else {
+            errorText.setVisibility(View.VISIBLE);
+            errorText.setText("Incorrect phrase. Type: \"" + requiredPhrase + "\"");
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.minimalistlauncher;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Immutable copy of the blocklist. A new instance is built only when the
+ * stored list changes, so readers can check packages without locking.
+ *
+ * In allowlist mode the packages are the ones let through and every other
+ * package counts as blocked; FocusExemptions narrows that to the apps a
+ * focus mode may restrict.
+ */
+public final class BlocklistSnapshot {
+
+    public static final BlocklistSnapshot EMPTY =
+        new BlocklistSnapshot(0, Collections.<String>emptySet(), "");
+
+    private final long version;
+    private final Set<String> packages;
+    private final String reason;
+    private final boolean allowlist;
+
+    public BlocklistSnapshot(long version, Set<String> packages, String reason) {
+        this(version, packages, reason, false);
+    }
+
+    public BlocklistSnapshot(long version, Set<String> packages, String reason, boolean allowlist) {
+        this.version = version;
+        this.packages = Collections.unmodifiableSet(new HashSet<>(packages));
+        this.reason = reason != null ? reason : "";
+        this.allowlist = allowlist;
+    }
+
+    public static BlocklistSnapshot fromJson(long version, String blockedAppsJson, String reason) {
+        Set<String> packages = new HashSet<>();
+        try {
+            JSONArray jsonArray = new JSONArray(blockedAppsJson);
+            for (int i = 0; i < jsonArray.length(); i++) {
+                packages.add(jsonArray.getString(i));
+            }
+        } catch (JSONException e) {
+            e.printStackTrace();
+        }
+        return new BlocklistSnapshot(version, packages, reason);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public boolean isAllowlist() {
+        return allowlist;
+    }
+
+    /** Blocked packages in blocklist mode, allowed ones in allowlist mode. */
+    public Set<String> getPackages() {
+        return packages;
+    }
+
+    public boolean isBlocked(String packageName) {
+        return packages.contains(packageName) != allowlist;
+    }
+}
@@ -0,0 +1,313 @@
+package com.minimalistlauncher;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * The blocklist, or a focus mode's allowlist, shared by AppBlockingModule and
+ * AppBlockingService. Adds and removes always mean block and unblock.
+ */
+public final class BlocklistStore {
+
+    private static final String FILE_NAME = "blocklist.bin";
+    private static final int FILE_FORMAT = 2;
+    // Format 1 had no mode byte and was always a blocklist
+    private static final int FILE_FORMAT_BLOCKLIST_ONLY = 1;
+
+    // Where the list lived before this store; migrated once
+    private static final String PREFS_NAME = "MinimalistLauncherPrefs";
+    private static final String KEY_BLOCKED_APPS = "blockedApps";
+    private static final String KEY_BLOCKING_REASON = "blockingReason";
+
+    static final String DEFAULT_REASON = "This app is blocked";
+
+    public interface Listener {
+        void onBlocklistChanged(BlocklistSnapshot snapshot);
+    }
+
+    private static BlocklistStore instance;
+
+    private final File file;
+    private final Executor writer;
+
+    private final Set<String> packages = new HashSet<>();
+    private String reason = DEFAULT_REASON;
+    private boolean allowlist;
+    private long version;
+    private boolean writeQueued;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    // Rebuilt on the first read after a change
+    private volatile BlocklistSnapshot snapshot;
+    // Times the list was read from the file or turned into a snapshot
+    private int parses;
+
+    BlocklistStore(File file, Executor writer) {
+        this.file = file;
+        this.writer = writer;
+    }
+
+    public static synchronized BlocklistStore getInstance(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            instance = new BlocklistStore(
+                new File(appContext.getFilesDir(), FILE_NAME),
+                Executors.newSingleThreadExecutor());
+            if (!instance.load()) {
+                instance.migrateFromPrefs(appContext);
+            }
+        }
+        return instance;
+    }
+
+    public BlocklistSnapshot getSnapshot() {
+        BlocklistSnapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    parses++;
+                    snapshot = new BlocklistSnapshot(version, packages, reason, allowlist);
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    synchronized int getParseCount() {
+        return parses;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Blocks the adds and unblocks the removes as one change: one version
+     * bump, one write and one listener call. If expectedVersion is not
+     * negative and doesn't
+     * match the current version, nothing is applied and -1 is returned.
+     * Otherwise returns the resulting version.
+     */
+    public long applyDelta(Collection<String> adds, Collection<String> removes,
+                           String newReason, long expectedVersion) {
+        long result;
+        synchronized (this) {
+            if (expectedVersion >= 0 && expectedVersion != version) {
+                return -1;
+            }
+
+            boolean modified = false;
+            for (String packageName : removes) {
+                modified |= store(packageName, false);
+            }
+            for (String packageName : adds) {
+                modified |= store(packageName, true);
+            }
+            modified |= setReason(newReason);
+
+            if (!modified) {
+                return version;
+            }
+            changed();
+            result = version;
+        }
+        notifyListeners();
+        return result;
+    }
+
+    /** Blocks one package; in allowlist mode that takes it off the list. */
+    public void add(String packageName, String newReason) {
+        setBlocked(packageName, true, newReason);
+    }
+
+    /** Unblocks one package; in allowlist mode that puts it on the list. */
+    public void remove(String packageName) {
+        setBlocked(packageName, false, null);
+    }
+
+    // A blocked package is on a blocklist but off an allowlist
+    private boolean store(String packageName, boolean blocked) {
+        return blocked != allowlist
+            ? packages.add(packageName)
+            : packages.remove(packageName);
+    }
+
+    private void setBlocked(String packageName, boolean blocked, String newReason) {
+        synchronized (this) {
+            boolean modified = store(packageName, blocked);
+            modified |= setReason(newReason);
+            if (!modified) return;
+
+            changed();
+        }
+        notifyListeners();
+    }
+
+    /** Replaces the whole list with a blocklist as one change. */
+    public void setAll(Collection<String> packageNames, String newReason) {
+        replace(packageNames, newReason, false);
+    }
+
+    /** Blocks everything except the given packages, as one change. */
+    public void setAllowed(Collection<String> packageNames, String newReason) {
+        replace(packageNames, newReason, true);
+    }
+
+    /** Blocks nothing; an allowlist goes back to being an empty blocklist. */
+    public void clear() {
+        synchronized (this) {
+            if (packages.isEmpty() && !allowlist) return;
+
+            packages.clear();
+            allowlist = false;
+            changed();
+        }
+        notifyListeners();
+    }
+
+    private void replace(Collection<String> packageNames, String newReason, boolean newAllowlist) {
+        synchronized (this) {
+            Set<String> updated = new HashSet<>(packageNames);
+            boolean reasonChanged = setReason(newReason);
+            if (updated.equals(packages) && allowlist == newAllowlist && !reasonChanged) return;
+
+            packages.clear();
+            packages.addAll(updated);
+            allowlist = newAllowlist;
+            changed();
+        }
+        notifyListeners();
+    }
+
+    // Called outside the lock so listeners can read the store
+    private void notifyListeners() {
+        BlocklistSnapshot current = getSnapshot();
+        for (Listener listener : listeners) {
+            listener.onBlocklistChanged(current);
+        }
+    }
+
+    private boolean setReason(String newReason) {
+        if (newReason == null || newReason.isEmpty() || newReason.equals(reason)) {
+            return false;
+        }
+        reason = newReason;
+        return true;
+    }
+
+    private void changed() {
+        version++;
+        snapshot = null;
+
+        if (!writeQueued) {
+            writeQueued = true;
+            writer.execute(this::write);
+        }
+    }
+
+    private void write() {
+        long writeVersion;
+        String writeReason;
+        boolean writeAllowlist;
+        List<String> writePackages;
+        synchronized (this) {
+            writeQueued = false;
+            writeVersion = version;
+            writeReason = reason;
+            writeAllowlist = allowlist;
+            writePackages = new ArrayList<>(packages);
+        }
+
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            out.writeInt(FILE_FORMAT);
+            out.writeLong(writeVersion);
+            out.writeBoolean(writeAllowlist);
+            out.writeUTF(writeReason);
+            out.writeInt(writePackages.size());
+            for (String packageName : writePackages) {
+                out.writeUTF(packageName);
+            }
+            out.flush();
+            stream.getFD().sync();
+        } catch (IOException e) {
+            e.printStackTrace();
+            temp.delete();
+            return;
+        }
+
+        if (!temp.renameTo(file)) {
+            temp.delete();
+        }
+    }
+
+    // Returns false if there is no readable file
+    synchronized boolean load() {
+        if (!file.exists()) return false;
+
+        parses++;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            int format = in.readInt();
+            if (format != FILE_FORMAT && format != FILE_FORMAT_BLOCKLIST_ONLY) return false;
+
+            long storedVersion = in.readLong();
+            boolean storedAllowlist = format == FILE_FORMAT && in.readBoolean();
+            String storedReason = in.readUTF();
+            int count = in.readInt();
+            Set<String> stored = new HashSet<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                stored.add(in.readUTF());
+            }
+
+            version = storedVersion;
+            reason = storedReason;
+            allowlist = storedAllowlist;
+            packages.clear();
+            packages.addAll(stored);
+            snapshot = null;
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private void migrateFromPrefs(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        String json = prefs.getString(KEY_BLOCKED_APPS, null);
+        if (json == null) return;
+
+        BlocklistSnapshot legacy = BlocklistSnapshot.fromJson(
+            0, json, prefs.getString(KEY_BLOCKING_REASON, DEFAULT_REASON));
+        setAll(legacy.getPackages(), legacy.getReason());
+
+        prefs.edit()
+            .remove(KEY_BLOCKED_APPS)
+            .remove(KEY_BLOCKING_REASON)
+            .apply();
+    }
+}
@@ -0,0 +1,27 @@
+package com.minimalistlauncher;
+
+import android.os.SystemClock;
+
+/**
+ * Time source for the native engines, so they can be driven by a fake clock.
+ */
+public interface Clock {
+
+    Clock SYSTEM = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public long elapsedRealtime() {
+            return SystemClock.elapsedRealtime();
+        }
+    };
+
+    /** Wall-clock time, for anything tied to calendar days. */
+    long currentTimeMillis();
+
+    /** Monotonic time, for measuring durations. */
+    long elapsedRealtime();
+}
@@ -0,0 +1,59 @@
+package com.minimalistlauncher;
+
+import android.accessibilityservice.AccessibilityServiceInfo;
+import android.view.accessibility.AccessibilityEvent;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The packages AppBlockingService needs window events from under the current
+ * rules, so the framework drops the rest before delivering them.
+ */
+public final class EventSubscription {
+
+    /** Null means every package. */
+    final String[] packageNames;
+
+    private EventSubscription(String[] packageNames) {
+        this.packageNames = packageNames;
+    }
+
+    public static EventSubscription forRules(String ownPackage, BlocklistSnapshot blocklist,
+                                             BlockSchedule schedule, boolean hasLimits,
+                                             boolean overlayShowing, boolean feedListening) {
+        // The JS feed reports every app, not just the ones the rules name
+        if (hasLimits || overlayShowing || feedListening || blocklist.isAllowlist()) {
+            return new EventSubscription(null);
+        }
+
+        // Sorted so equal rule sets compare equal
+        Set<String> packages = new TreeSet<>();
+        packages.add(ownPackage);
+        packages.addAll(blocklist.getPackages());
+        packages.addAll(schedule.getPackages());
+        return new EventSubscription(packages.toArray(new String[0]));
+    }
+
+    public boolean isFiltered() {
+        return packageNames != null;
+    }
+
+    /** Applies the subscription to the service's current info. */
+    public void applyTo(AccessibilityServiceInfo info) {
+        info.eventTypes = AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED;
+        info.packageNames = packageNames;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof EventSubscription &&
+            Arrays.equals(packageNames, ((EventSubscription) other).packageNames);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(packageNames);
+    }
+}
@@ -0,0 +1,99 @@
+package com.minimalistlauncher;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.provider.Settings;
+import android.telecom.TelecomManager;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Packages an allowlist focus mode never blocks: this launcher, system UI,
+ * the keyboard, emergency dialing and anything without a launcher entry.
+ */
+public final class FocusExemptions {
+
+    private static FocusExemptions instance;
+
+    private final Set<String> fixed;
+    private final Predicate<String> inCatalog;
+    private final Predicate<String> hasLauncherEntry;
+    // Packages found to have no launcher entry; one that gains one later
+    // shows up in the catalog first
+    private final Set<String> unlaunchable = ConcurrentHashMap.newKeySet();
+
+    FocusExemptions(Set<String> fixed, Predicate<String> inCatalog,
+                    Predicate<String> hasLauncherEntry) {
+        this.fixed = Collections.unmodifiableSet(new HashSet<>(fixed));
+        this.inCatalog = inCatalog;
+        this.hasLauncherEntry = hasLauncherEntry;
+    }
+
+    public static synchronized FocusExemptions getInstance(Context context) {
+        if (instance == null) {
+            Context app = context.getApplicationContext();
+            AppCatalog catalog = AppCatalog.getInstance(app);
+            PackageManager pm = app.getPackageManager();
+            instance = new FocusExemptions(fixedExemptions(app),
+                packageName -> {
+                    AppCatalog.Snapshot apps = catalog.peekSnapshot();
+                    return apps != null && apps.find(packageName) != null;
+                },
+                packageName -> {
+                    Intent intent = new Intent(Intent.ACTION_MAIN, null);
+                    intent.addCategory(Intent.CATEGORY_LAUNCHER);
+                    intent.setPackage(packageName);
+                    return !pm.queryIntentActivities(intent, 0).isEmpty();
+                });
+        }
+        return instance;
+    }
+
+    private static Set<String> fixedExemptions(Context context) {
+        Set<String> packages = new HashSet<>();
+        packages.add(context.getPackageName());
+        packages.add("com.android.systemui");
+        packages.add("com.android.phone");
+        packages.add("com.android.server.telecom");
+        packages.add("com.android.emergency");
+
+        TelecomManager telecom = (TelecomManager) context.getSystemService(Context.TELECOM_SERVICE);
+        String dialer = telecom != null ? telecom.getDefaultDialerPackage() : null;
+        if (dialer != null) {
+            packages.add(dialer);
+        }
+
+        String inputMethod = Settings.Secure.getString(
+            context.getContentResolver(), Settings.Secure.DEFAULT_INPUT_METHOD);
+        if (inputMethod != null && inputMethod.indexOf('/') > 0) {
+            packages.add(inputMethod.substring(0, inputMethod.indexOf('/')));
+        }
+        return packages;
+    }
+
+    /**
+     * Packages missing from the catalog, because it hasn't loaded yet or an
+     * install broadcast is still pending, are checked with the
+     * PackageManager, so a launchable app is never exempt by accident.
+     */
+    public boolean isExempt(String packageName) {
+        if (fixed.contains(packageName)) return true;
+        if (inCatalog.test(packageName)) return false;
+        if (unlaunchable.contains(packageName)) return true;
+
+        if (hasLauncherEntry.test(packageName)) return false;
+        unlaunchable.add(packageName);
+        return true;
+    }
+
+    /** Whether the list blocks the package once exemptions are applied. */
+    public boolean blocks(BlocklistSnapshot snapshot, String packageName) {
+        if (!snapshot.isBlocked(packageName)) return false;
+        return !snapshot.isAllowlist() || !isExempt(packageName);
+    }
+}
@@ -0,0 +1,204 @@
+package com.minimalistlauncher;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Foreground changes published by AppBlockingService for JS.
+ *
+ * Changes go into a fixed-size ring buffer of primitive columns. They are
+ * sent in batches, at most once per flush interval, while an emitter is
+ * attached; until then they stay buffered and the oldest are overwritten
+ * once the buffer is full.
+ */
+public final class ForegroundEventFeed {
+
+    public static final int DECISION_ALLOWED = 0;
+    public static final int DECISION_BLOCKED = 1;
+
+    static final int CAPACITY = 256;
+    static final long FLUSH_INTERVAL_MS = 500;
+
+    /** A batch with its own package table; events refer to it by index. */
+    public static final class Batch {
+        public final List<String> packages;
+        public final int[] packageIndexes;
+        public final long[] timestamps;
+        public final int[] decisions;
+        /** Events overwritten since the previous batch. */
+        public final int dropped;
+
+        Batch(List<String> packages, int[] packageIndexes, long[] timestamps,
+              int[] decisions, int dropped) {
+            this.packages = packages;
+            this.packageIndexes = packageIndexes;
+            this.timestamps = timestamps;
+            this.decisions = decisions;
+            this.dropped = dropped;
+        }
+    }
+
+    public interface Emitter {
+        /** Returns false if the batch could not be delivered. */
+        boolean emit(Batch batch);
+    }
+
+    /** Told when JS starts or stops listening, so the service can widen its events. */
+    public interface Listener {
+        void onListeningChanged(boolean listening);
+    }
+
+    public interface Scheduler {
+        void schedule(Runnable task, long delayMs);
+
+        void cancel(Runnable task);
+    }
+
+    private static ForegroundEventFeed instance;
+
+    private final Clock clock;
+    private final Scheduler scheduler;
+    private final int capacity;
+
+    // Package names interned for the lifetime of the process
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    private final int[] packageIds;
+    private final long[] timestamps;
+    private final byte[] decisions;
+    private int head;
+    private int size;
+    private int dropped;
+
+    private Emitter emitter;
+    private Listener listener;
+    private boolean flushScheduled;
+    private long lastFlush = Long.MIN_VALUE / 2;
+
+    private final Runnable flushTask = this::flush;
+
+    ForegroundEventFeed(Clock clock, Scheduler scheduler, int capacity) {
+        this.clock = clock;
+        this.scheduler = scheduler;
+        this.capacity = capacity;
+        this.packageIds = new int[capacity];
+        this.timestamps = new long[capacity];
+        this.decisions = new byte[capacity];
+    }
+
+    public static synchronized ForegroundEventFeed getInstance() {
+        if (instance == null) {
+            Handler handler = new Handler(Looper.getMainLooper());
+            instance = new ForegroundEventFeed(Clock.SYSTEM, new Scheduler() {
+                @Override
+                public void schedule(Runnable task, long delayMs) {
+                    handler.postDelayed(task, delayMs);
+                }
+
+                @Override
+                public void cancel(Runnable task) {
+                    handler.removeCallbacks(task);
+                }
+            }, CAPACITY);
+        }
+        return instance;
+    }
+
+    public synchronized void record(String packageName, long timestamp, int decision) {
+        Integer id = ids.get(packageName);
+        if (id == null) {
+            id = names.size();
+            names.add(packageName);
+            ids.put(packageName, id);
+        }
+
+        int slot = (head + size) % capacity;
+        if (size == capacity) {
+            // Full: overwrite the oldest event
+            head = (head + 1) % capacity;
+            dropped++;
+        } else {
+            size++;
+        }
+        packageIds[slot] = id;
+        timestamps[slot] = timestamp;
+        decisions[slot] = (byte) decision;
+
+        scheduleFlush();
+    }
+
+    /** Attaches or, with null, detaches the emitter; buffered events follow. */
+    public void setEmitter(Emitter emitter) {
+        Listener notify;
+        synchronized (this) {
+            boolean changed = (this.emitter == null) != (emitter == null);
+            this.emitter = emitter;
+            scheduleFlush();
+            notify = changed ? listener : null;
+        }
+        if (notify != null) {
+            notify.onListeningChanged(emitter != null);
+        }
+    }
+
+    public synchronized boolean isListening() {
+        return emitter != null;
+    }
+
+    public synchronized void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private void scheduleFlush() {
+        if (emitter == null || size == 0 || flushScheduled) return;
+
+        flushScheduled = true;
+        long delay = Math.max(0, lastFlush + FLUSH_INTERVAL_MS - clock.elapsedRealtime());
+        scheduler.schedule(flushTask, delay);
+    }
+
+    // Emits under the lock so a failed emit can leave the buffer untouched
+    private synchronized void flush() {
+        flushScheduled = false;
+        if (emitter == null || size == 0) return;
+
+        lastFlush = clock.elapsedRealtime();
+        if (emitter.emit(buildBatch())) {
+            head = 0;
+            size = 0;
+            dropped = 0;
+        }
+    }
+
+    private Batch buildBatch() {
+        Map<Integer, Integer> indexes = new HashMap<>();
+        List<String> packages = new ArrayList<>();
+        int[] packageIndexes = new int[size];
+        long[] times = new long[size];
+        int[] kinds = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            int slot = (head + i) % capacity;
+            Integer index = indexes.get(packageIds[slot]);
+            if (index == null) {
+                index = packages.size();
+                packages.add(names.get(packageIds[slot]));
+                indexes.put(packageIds[slot], index);
+            }
+            packageIndexes[i] = index;
+            times[i] = timestamps[slot];
+            kinds[i] = decisions[slot];
+        }
+        return new Batch(packages, packageIndexes, times, kinds, dropped);
+    }
+}
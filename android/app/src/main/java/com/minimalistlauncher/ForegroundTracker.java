@@ -0,0 +1,169 @@
+package com.minimalistlauncher;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Turns the raw stream of window state events into foreground app changes.
+ *
+ * Events from transient windows (system UI, the keyboard, our own overlay)
+ * are dropped up front, and repeats for the app already in front are
+ * collapsed. A real change is reported right away unless another change was
+ * reported less than one window ago; then only the latest package of the
+ * burst is reported, once the window has passed.
+ */
+public final class ForegroundTracker {
+
+    public interface Listener {
+        void onForegroundChanged(String packageName, long eventUptime);
+    }
+
+    public interface Scheduler {
+        void schedule(Runnable task, long delayMs);
+
+        void cancel(Runnable task);
+    }
+
+    private static volatile ForegroundTracker current;
+
+    private final String ownPackage;
+    private final String ownClassPrefix;
+    private final Set<String> ignored;
+    private final Scheduler scheduler;
+    private final Listener listener;
+    private volatile long windowMs;
+
+    private String foreground = "";
+    private long lastChangeUptime = Long.MIN_VALUE / 2;
+    // Latest package seen inside the window, reported when it closes
+    private String pending;
+    private long pendingUptime;
+
+    private volatile long received;
+    private volatile long ignoredCount;
+    private volatile long coalesced;
+    private volatile long actedOn;
+
+    private final Runnable flushTask = this::flush;
+
+    public ForegroundTracker(String ownPackage, Set<String> ignoredPackages, long windowMs,
+                             Scheduler scheduler, Listener listener) {
+        this.ownPackage = ownPackage;
+        this.ownClassPrefix = ownPackage + ".";
+        this.ignored = Collections.unmodifiableSet(new HashSet<>(ignoredPackages));
+        this.windowMs = windowMs;
+        this.scheduler = scheduler;
+        this.listener = listener;
+    }
+
+    /** The tracker of the running service, or null if it isn't connected. */
+    public static ForegroundTracker getCurrent() {
+        return current;
+    }
+
+    static void setCurrent(ForegroundTracker tracker) {
+        current = tracker;
+    }
+
+    public void setWindowMs(long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    public String getForeground() {
+        return foreground;
+    }
+
+    public long getReceivedCount() {
+        return received;
+    }
+
+    public long getIgnoredCount() {
+        return ignoredCount;
+    }
+
+    public long getCoalescedCount() {
+        return coalesced;
+    }
+
+    public long getActedOnCount() {
+        return actedOn;
+    }
+
+    public synchronized void onWindowEvent(String packageName, CharSequence className, long eventUptime) {
+        received++;
+
+        if (isTransient(packageName, className)) {
+            ignoredCount++;
+            return;
+        }
+
+        if (pending != null) {
+            // Still inside a burst; the newest package wins
+            coalesced++;
+            pending = packageName;
+            pendingUptime = eventUptime;
+            return;
+        }
+
+        if (packageName.equals(foreground)) {
+            coalesced++;
+            return;
+        }
+
+        long sinceChange = eventUptime - lastChangeUptime;
+        if (sinceChange >= windowMs) {
+            commit(packageName, eventUptime);
+            return;
+        }
+
+        pending = packageName;
+        pendingUptime = eventUptime;
+        scheduler.schedule(flushTask, windowMs - sinceChange);
+    }
+
+    /**
+     * Sets the foreground app found by other means, without reporting it.
+     * Returns false for transient windows, which are never the foreground.
+     */
+    public synchronized boolean sync(String packageName, CharSequence className) {
+        if (isTransient(packageName, className)) return false;
+
+        foreground = packageName;
+        return true;
+    }
+
+    private void flush() {
+        String packageName;
+        long uptime;
+        synchronized (this) {
+            packageName = pending;
+            uptime = pendingUptime;
+            pending = null;
+            if (packageName == null) return;
+
+            if (packageName.equals(foreground)) {
+                // The burst ended where it started
+                coalesced++;
+                return;
+            }
+        }
+        commit(packageName, uptime);
+    }
+
+    private void commit(String packageName, long eventUptime) {
+        synchronized (this) {
+            foreground = packageName;
+            lastChangeUptime = eventUptime;
+            actedOn++;
+        }
+        listener.onForegroundChanged(packageName, eventUptime);
+    }
+
+    // Our own windows other than activities are the blocking overlay
+    private boolean isTransient(String packageName, CharSequence className) {
+        if (ignored.contains(packageName)) return true;
+        if (!packageName.equals(ownPackage)) return false;
+        return className == null || !className.toString().startsWith(ownClassPrefix);
+    }
+}
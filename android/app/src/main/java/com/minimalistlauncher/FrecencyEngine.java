@@ -0,0 +1,281 @@
+package com.minimalistlauncher;
+
+import android.content.Context;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Ranks apps by frecency: each launch or session adds a weight that halves
+ * every HALF_LIFE_MS, and a min-heap keeps the best TOP_K.
+ */
+public final class FrecencyEngine {
+
+    private static final String DIR_NAME = "frecency";
+    private static final String SCORES_FILE = "scores.bin";
+    private static final String IDS_FILE = "ids.bin";
+    private static final int FILE_FORMAT = 1;
+
+    static final long HALF_LIFE_MS = 7L * 24 * 60 * 60 * 1000;
+    // 2^64 of headroom before the epoch has to move
+    private static final long REBASE_AFTER_MS = 64 * HALF_LIFE_MS;
+
+    static final int TOP_K = 32;
+    static final double LAUNCH_WEIGHT = 1.0;
+    // Sessions include the ones launches from here start, so weigh them less
+    static final double SESSION_WEIGHT = 0.5;
+
+    private static FrecencyEngine instance;
+
+    private final File dir;
+    private final Executor writer;
+    private final PackageIdTable ids;
+    private final String ignoredPackage;
+
+    // Weights are stored as w * 2^((t - epoch) / half life), so decay never
+    // touches stored values and only a bumped app can change the order
+    private long epoch;
+    // Indexed by package ID
+    private double[] scaled = new double[64];
+    private int[] heapPosition = new int[64];
+    // Min-heap of package IDs by scaled weight, so heap[0] is the weakest
+    private final int[] heap = new int[TOP_K];
+    private int heapSize;
+    private boolean writeQueued;
+
+    FrecencyEngine(File dir, Executor writer, String ignoredPackage, long now) {
+        this.dir = dir;
+        this.writer = writer;
+        this.ignoredPackage = ignoredPackage;
+        dir.mkdirs();
+        this.ids = new PackageIdTable(new File(dir, IDS_FILE));
+        Arrays.fill(heapPosition, -1);
+        epoch = now;
+    }
+
+    public static synchronized FrecencyEngine getInstance(Context context) {
+        if (instance == null) {
+            Context app = context.getApplicationContext();
+            long now = System.currentTimeMillis();
+            instance = new FrecencyEngine(
+                new File(app.getFilesDir(), DIR_NAME),
+                Executors.newSingleThreadExecutor(),
+                app.getPackageName(),
+                now);
+            if (!instance.load()) {
+                instance.seed(LaunchLog.getInstance(app).getCounts(), now);
+            }
+        }
+        return instance;
+    }
+
+    /** An app opened from the launcher. */
+    public void recordLaunch(String packageName, long timestamp) {
+        add(packageName, LAUNCH_WEIGHT, timestamp);
+    }
+
+    /** A foreground session, however the app was opened. */
+    public void recordSession(String packageName, long timestamp) {
+        add(packageName, SESSION_WEIGHT, timestamp);
+    }
+
+    public void add(String packageName, double weight, long timestamp) {
+        if (packageName == null || packageName.equals(ignoredPackage)) return;
+
+        synchronized (this) {
+            if (timestamp - epoch > REBASE_AFTER_MS) {
+                rebase(timestamp);
+            }
+            int id;
+            try {
+                id = ids.intern(packageName);
+            } catch (IOException e) {
+                // Without a durable ID the score couldn't be saved either
+                e.printStackTrace();
+                return;
+            }
+            ensureCapacity(id + 1);
+            scaled[id] += weight * Math.pow(2, (double) (timestamp - epoch) / HALF_LIFE_MS);
+            offer(id);
+
+            if (writeQueued) return;
+            writeQueued = true;
+        }
+        writer.execute(this::write);
+    }
+
+    /** The current, decayed score; one launch right now scores 1. */
+    public synchronized double getScore(String packageName, long now) {
+        int id = ids.find(packageName);
+        if (id < 0 || id >= scaled.length) return 0;
+        return decayed(scaled[id], now);
+    }
+
+    /** Up to limit packages, best first, from the top TOP_K. */
+    public synchronized List<String> getTop(int limit) {
+        Integer[] order = new Integer[heapSize];
+        for (int i = 0; i < heapSize; i++) {
+            order[i] = heap[i];
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(scaled[b], scaled[a]));
+
+        List<String> top = new ArrayList<>(Math.min(limit, heapSize));
+        for (int i = 0; i < order.length && top.size() < limit; i++) {
+            top.add(ids.nameOf(order[i]));
+        }
+        return top;
+    }
+
+    private double decayed(double value, long now) {
+        return value * Math.pow(2, -(double) (now - epoch) / HALF_LIFE_MS);
+    }
+
+    // Scaling every value by the same factor keeps the heap order intact
+    private void rebase(long newEpoch) {
+        double factor = Math.pow(2, -(double) (newEpoch - epoch) / HALF_LIFE_MS);
+        for (int i = 0; i < scaled.length; i++) {
+            scaled[i] *= factor;
+        }
+        epoch = newEpoch;
+    }
+
+    private void ensureCapacity(int size) {
+        if (size <= scaled.length) return;
+
+        int length = Math.max(size, scaled.length * 2);
+        int old = heapPosition.length;
+        scaled = Arrays.copyOf(scaled, length);
+        heapPosition = Arrays.copyOf(heapPosition, length);
+        Arrays.fill(heapPosition, old, length, -1);
+    }
+
+    // Values only ever grow, so the heap stays exact by checking the bumped ID
+    private void offer(int id) {
+        int position = heapPosition[id];
+        if (position >= 0) {
+            siftDown(position);
+        } else if (heapSize < TOP_K) {
+            heap[heapSize] = id;
+            heapPosition[id] = heapSize;
+            siftUp(heapSize++);
+        } else if (scaled[id] > scaled[heap[0]]) {
+            heapPosition[heap[0]] = -1;
+            heap[0] = id;
+            heapPosition[id] = 0;
+            siftDown(0);
+        }
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (scaled[heap[parent]] <= scaled[heap[position]]) return;
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int smallest = position;
+            int left = 2 * position + 1;
+            int right = left + 1;
+            if (left < heapSize && scaled[heap[left]] < scaled[heap[smallest]]) smallest = left;
+            if (right < heapSize && scaled[heap[right]] < scaled[heap[smallest]]) smallest = right;
+            if (smallest == position) return;
+            swap(position, smallest);
+            position = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int id = heap[a];
+        heap[a] = heap[b];
+        heap[b] = id;
+        heapPosition[heap[a]] = a;
+        heapPosition[heap[b]] = b;
+    }
+
+    // Launch counts carry no per-launch times, so count them all at the last one
+    private void seed(Map<String, LaunchLog.Count> counts, long now) {
+        for (Map.Entry<String, LaunchLog.Count> entry : counts.entrySet()) {
+            LaunchLog.Count count = entry.getValue();
+            if (count.lastLaunch > 0) {
+                add(entry.getKey(), count.launches * LAUNCH_WEIGHT, Math.min(count.lastLaunch, now));
+            }
+        }
+    }
+
+    private void write() {
+        long writeEpoch;
+        double[] writeScaled;
+        synchronized (this) {
+            writeQueued = false;
+            writeEpoch = epoch;
+            writeScaled = Arrays.copyOf(scaled, ids.size());
+        }
+
+        File file = new File(dir, SCORES_FILE);
+        File temp = new File(dir, SCORES_FILE + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            out.writeInt(FILE_FORMAT);
+            out.writeLong(writeEpoch);
+            out.writeInt(writeScaled.length);
+            for (double value : writeScaled) {
+                out.writeDouble(value);
+            }
+            out.flush();
+            stream.getFD().sync();
+        } catch (IOException e) {
+            e.printStackTrace();
+            temp.delete();
+            return;
+        }
+
+        if (!temp.renameTo(file)) {
+            temp.delete();
+        }
+    }
+
+    // Returns false if there is no readable file
+    synchronized boolean load() {
+        File file = new File(dir, SCORES_FILE);
+        if (!file.exists()) return false;
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FILE_FORMAT) return false;
+
+            long storedEpoch = in.readLong();
+            int count = in.readInt();
+            double[] stored = new double[count];
+            for (int i = 0; i < count; i++) {
+                stored[i] = in.readDouble();
+            }
+
+            epoch = storedEpoch;
+            ensureCapacity(count);
+            for (int id = 0; id < count; id++) {
+                scaled[id] = stored[id];
+                if (stored[id] > 0) offer(id);
+            }
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+}
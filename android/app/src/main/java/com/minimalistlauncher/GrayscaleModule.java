@@ -5,10 +5,8 @@ import android.provider.Settings;
 
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
-import com.facebook.react.bridge.ReactContextBaseJavaModule;
-import com.facebook.react.bridge.ReactMethod;
 
-public class GrayscaleModule extends ReactContextBaseJavaModule {
+public class GrayscaleModule extends NativeGrayscaleModuleSpec {
 
     private final ReactApplicationContext reactContext;
 
@@ -25,11 +23,6 @@ public class GrayscaleModule extends ReactContextBaseJavaModule {
     }
 
     @Override
-    public String getName() {
-        return "GrayscaleModule";
-    }
-
-    @ReactMethod
     public void enableGrayscale(Promise promise) {
         try {
             ContentResolver contentResolver = reactContext.getContentResolver();
@@ -54,7 +47,7 @@ public class GrayscaleModule extends ReactContextBaseJavaModule {
         }
     }
 
-    @ReactMethod
+    @Override
     public void disableGrayscale(Promise promise) {
         try {
             ContentResolver contentResolver = reactContext.getContentResolver();
@@ -72,33 +65,29 @@ public class GrayscaleModule extends ReactContextBaseJavaModule {
         }
     }
 
-    @ReactMethod
+    @Override
     public void isGrayscaleEnabled(Promise promise) {
-        try {
-            ContentResolver contentResolver = reactContext.getContentResolver();
-
-            int dalonizerEnabled = Settings.Secure.getInt(
-                contentResolver,
-                ACCESSIBILITY_DISPLAY_DALTONIZER_ENABLED,
-                0
-            );
-
-            int daltonizerMode = Settings.Secure.getInt(
-                contentResolver,
-                ACCESSIBILITY_DISPLAY_DALTONIZER,
-                -1
-            );
-
-            boolean isGrayscale = (dalonizerEnabled == 1) &&
-                                 (daltonizerMode == DALTONIZER_MONOCHROMACY);
+        ModuleExecutors.getInstance().interactive(() -> {
+            try {
+                promise.resolve(readGrayscaleEnabled());
+            } catch (Exception e) {
+                promise.reject("ERROR", "Failed to check grayscale status: " + e.getMessage());
+            }
+        });
+    }
 
-            promise.resolve(isGrayscale);
+    // Two settings reads; cheap enough to answer without a round trip
+    @Override
+    public boolean isGrayscaleEnabledSync() {
+        try {
+            return readGrayscaleEnabled();
         } catch (Exception e) {
-            promise.reject("ERROR", "Failed to check grayscale status: " + e.getMessage());
+            e.printStackTrace();
+            return false;
         }
     }
 
-    @ReactMethod
+    @Override
     public void toggleGrayscale(Promise promise) {
         try {
             ContentResolver contentResolver = reactContext.getContentResolver();
@@ -135,4 +124,23 @@ public class GrayscaleModule extends ReactContextBaseJavaModule {
             promise.reject("ERROR", "Failed to toggle grayscale: " + e.getMessage());
         }
     }
+
+    private boolean readGrayscaleEnabled() {
+        ContentResolver contentResolver = reactContext.getContentResolver();
+
+        int dalonizerEnabled = Settings.Secure.getInt(
+            contentResolver,
+            ACCESSIBILITY_DISPLAY_DALTONIZER_ENABLED,
+            0
+        );
+
+        int daltonizerMode = Settings.Secure.getInt(
+            contentResolver,
+            ACCESSIBILITY_DISPLAY_DALTONIZER,
+            -1
+        );
+
+        return (dalonizerEnabled == 1) &&
+               (daltonizerMode == DALTONIZER_MONOCHROMACY);
+    }
 }
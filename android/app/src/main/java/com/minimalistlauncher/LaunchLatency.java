@@ -0,0 +1,34 @@
+package com.minimalistlauncher;
+
+import android.util.Log;
+
+/**
+ * Time from a tap in JS until startActivity returns for the launched app,
+ * both measured on the wall clock since JS has no access to uptime.
+ */
+public final class LaunchLatency {
+
+    private static final String TAG = "LaunchLatency";
+
+    private static int count;
+    private static long totalMs;
+    private static long maxMs;
+    private static long lastMs;
+
+    private LaunchLatency() {
+    }
+
+    public static synchronized void record(long latencyMs) {
+        count++;
+        totalMs += latencyMs;
+        maxMs = Math.max(maxMs, latencyMs);
+        lastMs = latencyMs;
+
+        Log.d(TAG, "startActivity " + latencyMs + " ms after the tap");
+    }
+
+    /** count, totalMs, maxMs, lastMs */
+    public static synchronized long[] getStats() {
+        return new long[] {count, totalMs, maxMs, lastMs};
+    }
+}
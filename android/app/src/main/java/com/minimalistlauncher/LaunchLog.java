@@ -0,0 +1,316 @@
+package com.minimalistlauncher;
+
+import android.content.Context;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Launch counts, kept as an append-only log of 12-byte (package ID,
+ * timestamp) records that is folded into a counters file now and then.
+ * Launches are queued in memory and appended in batches on a writer thread.
+ */
+public final class LaunchLog {
+
+    private static final String DIR_NAME = "launches";
+    private static final String COUNTERS_FILE = "counters.bin";
+    private static final String IDS_FILE = "ids.bin";
+    private static final String LOG_PREFIX = "log.";
+    private static final int FILE_FORMAT = 2;
+    // Format 1 had no imported flag
+    private static final int FILE_FORMAT_NO_IMPORT = 1;
+    private static final int RECORD_BYTES = 12;
+
+    static final int COMPACT_AFTER = 1024;
+
+    public static final class Count {
+        public final int launches;
+        public final long lastLaunch;
+
+        Count(int launches, long lastLaunch) {
+            this.launches = launches;
+            this.lastLaunch = lastLaunch;
+        }
+    }
+
+    private static final class Launch {
+        final String packageName;
+        final long timestamp;
+
+        Launch(String packageName, long timestamp) {
+            this.packageName = packageName;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private static LaunchLog instance;
+
+    private final File dir;
+    private final Executor writer;
+    private final PackageIdTable ids;
+
+    // Launches not yet appended, guarded by itself
+    private final List<Launch> pending = new ArrayList<>();
+    private boolean flushQueued;
+
+    private final Map<String, Count> counts = new HashMap<>();
+    private boolean imported;
+    // Logs before this generation are folded into the counters file
+    private long generation;
+    private int logRecords;
+
+    LaunchLog(File dir, Executor writer) {
+        this.dir = dir;
+        this.writer = writer;
+        dir.mkdirs();
+        this.ids = new PackageIdTable(new File(dir, IDS_FILE));
+        load();
+    }
+
+    public static synchronized LaunchLog getInstance(Context context) {
+        if (instance == null) {
+            instance = new LaunchLog(
+                new File(context.getApplicationContext().getFilesDir(), DIR_NAME),
+                Executors.newSingleThreadExecutor());
+        }
+        return instance;
+    }
+
+    /**
+     * Queues one launch for the writer. Launches that arrive while a write
+     * is queued or running go out together, with a single sync.
+     */
+    public void record(String packageName, long timestamp) {
+        boolean schedule;
+        synchronized (pending) {
+            pending.add(new Launch(packageName, timestamp));
+            schedule = !flushQueued;
+            flushQueued = true;
+        }
+        if (schedule) {
+            writer.execute(this::flush);
+        }
+    }
+
+    synchronized void flush() {
+        List<Launch> batch;
+        synchronized (pending) {
+            batch = new ArrayList<>(pending);
+            pending.clear();
+            flushQueued = false;
+        }
+        if (batch.isEmpty()) return;
+
+        try {
+            append(batch);
+        } catch (IOException e) {
+            // Kept for the next flush, which the next launch schedules
+            e.printStackTrace();
+            synchronized (pending) {
+                pending.addAll(0, batch);
+            }
+            return;
+        }
+        for (Launch launch : batch) {
+            addLaunches(counts, launch.packageName, 1, launch.timestamp);
+        }
+        logRecords += batch.size();
+
+        if (logRecords >= COMPACT_AFTER && !compact()) {
+            // The log still holds everything; try again on the next batch
+            logRecords = COMPACT_AFTER - 1;
+        }
+    }
+
+    private void append(List<Launch> batch) throws IOException {
+        int[] packageIds = new int[batch.size()];
+        for (int i = 0; i < packageIds.length; i++) {
+            packageIds[i] = ids.intern(batch.get(i).packageName);
+        }
+
+        File log = logFile(generation);
+        long length = log.length();
+        try (FileOutputStream stream = new FileOutputStream(log, true)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            for (int i = 0; i < packageIds.length; i++) {
+                out.writeInt(packageIds[i]);
+                out.writeLong(batch.get(i).timestamp);
+            }
+            out.flush();
+            stream.getFD().sync();
+        } catch (IOException e) {
+            // Keep later records aligned
+            truncate(log, length);
+            throw e;
+        }
+    }
+
+    /**
+     * Adds counts kept elsewhere before this log existed, once. Returns false
+     * if they were imported before, so the caller can just drop its copy.
+     */
+    public synchronized boolean importCounts(Map<String, Integer> legacy) throws IOException {
+        if (imported) return false;
+
+        Map<String, Count> previous = new HashMap<>(counts);
+        for (Map.Entry<String, Integer> entry : legacy.entrySet()) {
+            addLaunches(counts, entry.getKey(), entry.getValue(), 0);
+        }
+        imported = true;
+        if (!compact()) {
+            counts.clear();
+            counts.putAll(previous);
+            imported = false;
+            throw new IOException("Could not save imported launch counts");
+        }
+        return true;
+    }
+
+    /** Includes launches still waiting for the writer. */
+    public synchronized Map<String, Count> getCounts() {
+        Map<String, Count> copy = new HashMap<>(counts);
+        synchronized (pending) {
+            for (Launch launch : pending) {
+                addLaunches(copy, launch.packageName, 1, launch.timestamp);
+            }
+        }
+        return copy;
+    }
+
+    private static void addLaunches(Map<String, Count> counts, String packageName,
+                                    int launches, long timestamp) {
+        Count previous = counts.get(packageName);
+        counts.put(packageName, new Count(
+            (previous != null ? previous.launches : 0) + launches,
+            Math.max(previous != null ? previous.lastLaunch : 0, timestamp)));
+    }
+
+    // Returns false if the counters weren't saved; the log is then kept
+    private boolean compact() {
+        long next = generation + 1;
+        File counters = new File(dir, COUNTERS_FILE);
+        File temp = new File(dir, COUNTERS_FILE + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            out.writeInt(FILE_FORMAT);
+            out.writeLong(next);
+            out.writeBoolean(imported);
+            out.writeInt(counts.size());
+            for (Map.Entry<String, Count> entry : counts.entrySet()) {
+                out.writeInt(ids.intern(entry.getKey()));
+                out.writeInt(entry.getValue().launches);
+                out.writeLong(entry.getValue().lastLaunch);
+            }
+            out.flush();
+            stream.getFD().sync();
+        } catch (IOException e) {
+            e.printStackTrace();
+            temp.delete();
+            return false;
+        }
+        if (!temp.renameTo(counters)) {
+            temp.delete();
+            return false;
+        }
+
+        logFile(generation).delete();
+        generation = next;
+        logRecords = 0;
+        return true;
+    }
+
+    private synchronized void load() {
+        long covered = 0;
+        File counters = new File(dir, COUNTERS_FILE);
+        if (counters.exists()) {
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(counters)))) {
+                int format = in.readInt();
+                if (format == FILE_FORMAT || format == FILE_FORMAT_NO_IMPORT) {
+                    covered = in.readLong();
+                    imported = format == FILE_FORMAT && in.readBoolean();
+                    int size = in.readInt();
+                    for (int i = 0; i < size; i++) {
+                        String packageName = ids.nameOf(in.readInt());
+                        int launches = in.readInt();
+                        long lastLaunch = in.readLong();
+                        if (packageName != null) {
+                            counts.put(packageName, new Count(launches, lastLaunch));
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        generation = covered;
+        logRecords = replay(logFile(generation));
+
+        // Logs a finished compaction already covers, or stray newer ones
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().startsWith(LOG_PREFIX) && !file.equals(logFile(generation))) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    private int replay(File log) {
+        if (!log.exists()) return 0;
+
+        int records = 0;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(log)))) {
+            while (true) {
+                int id = in.readInt();
+                long timestamp = in.readLong();
+                records++;
+
+                String packageName = ids.nameOf(id);
+                if (packageName != null) {
+                    addLaunches(counts, packageName, 1, timestamp);
+                }
+            }
+        } catch (EOFException e) {
+            // End of log
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        // Drop a record torn by a crash so later appends stay aligned
+        long goodLength = (long) records * RECORD_BYTES;
+        if (goodLength < log.length()) {
+            truncate(log, goodLength);
+        }
+        return records;
+    }
+
+    private static void truncate(File log, long length) {
+        try (RandomAccessFile raf = new RandomAccessFile(log, "rw")) {
+            raf.setLength(length);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private File logFile(long logGeneration) {
+        return new File(dir, LOG_PREFIX + logGeneration);
+    }
+}
@@ -0,0 +1,124 @@
+package com.minimalistlauncher;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warms the caches the home screen reads from while the JS bundle is still
+ * loading; module calls that arrive mid-load wait on the same load.
+ */
+public final class LauncherPrefetch {
+
+    static final String TRACE_COLD_START = "launcher_cold_start";
+    private static final int THREADS = 2;
+
+    static final int TASK_CATALOG = 0;
+    static final int TASK_BLOCKLIST = 1;
+    static final int TASK_USAGE = 2;
+
+    private static LauncherPrefetch instance;
+
+    private final Future<?>[] tasks = new Future<?>[3];
+    private final long[] durationsMs = {-1, -1, -1};
+    private volatile long homeReadyMs = -1;
+
+    LauncherPrefetch(ExecutorService executor, Callable<?> catalog,
+                     Callable<?> blocklist, Callable<?> usage) {
+        // Submitted in the order the home screen needs them
+        tasks[TASK_CATALOG] = executor.submit(timed(TASK_CATALOG, "prefetch_catalog", catalog));
+        tasks[TASK_BLOCKLIST] = executor.submit(timed(TASK_BLOCKLIST, "prefetch_blocklist", blocklist));
+        if (usage != null) {
+            tasks[TASK_USAGE] = executor.submit(timed(TASK_USAGE, "prefetch_usage", usage));
+        }
+        executor.shutdown();
+    }
+
+    /** Starts the prefetch once per process; call from Application.onCreate. */
+    public static synchronized void start(Context context) {
+        if (instance != null) return;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.beginAsyncSection(TRACE_COLD_START, 0);
+        }
+
+        Context app = context.getApplicationContext();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            THREADS, THREADS, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(3),
+            runnable -> {
+                Thread thread = new Thread(runnable, "LauncherPrefetch");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+        instance = new LauncherPrefetch(executor,
+            () -> AppCatalog.getInstance(app).getSnapshot(),
+            () -> BlocklistStore.getInstance(app).getSnapshot(),
+            // Without usage access there is nothing worth loading yet
+            AppUsageStatsModule.hasUsageAccess(app)
+                ? () -> UsageEngine.getInstance(app).getToday()
+                : null);
+    }
+
+    public static synchronized LauncherPrefetch get() {
+        return instance;
+    }
+
+    /**
+     * Marks the first home screen frame: closes the cold start trace section
+     * and records the time since the process started.
+     */
+    public void markHomeReady() {
+        if (homeReadyMs >= 0) return;
+
+        homeReadyMs = SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.endAsyncSection(TRACE_COLD_START, 0);
+        }
+    }
+
+    /** Process start to first home frame, or -1 if not reached yet. */
+    public long getHomeReadyMs() {
+        return homeReadyMs;
+    }
+
+    /** How long a prefetch task took, or -1 if it was skipped or is running. */
+    public long getDurationMs(int task) {
+        synchronized (durationsMs) {
+            return durationsMs[task];
+        }
+    }
+
+    boolean isDone(int task) {
+        return tasks[task] == null || tasks[task].isDone();
+    }
+
+    private Callable<Object> timed(int task, String section, Callable<?> loader) {
+        return () -> {
+            long start = SystemClock.elapsedRealtime();
+            Trace.beginSection(section);
+            try {
+                return loader.call();
+            } catch (Exception e) {
+                // The module call will retry the load and report the error
+                e.printStackTrace();
+                return null;
+            } finally {
+                Trace.endSection();
+                synchronized (durationsMs) {
+                    durationsMs[task] = SystemClock.elapsedRealtime() - start;
+                }
+            }
+        };
+    }
+}
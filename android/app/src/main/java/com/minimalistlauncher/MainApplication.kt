@@ -26,6 +26,8 @@ class MainApplication : Application(), ReactApplication {
 
   override fun onCreate() {
     super.onCreate()
+    // Load the home screen's data while the JS bundle loads
+    LauncherPrefetch.start(this)
     loadReactNative(this)
   }
 }
@@ -0,0 +1,171 @@
+package com.minimalistlauncher;
+
+import android.os.Process;
+
+import com.facebook.react.bridge.Promise;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Interactive and bulk lanes for native module calls, so a slow usage query
+ * never sits in front of a launch on React Native's native-modules thread.
+ */
+public final class ModuleExecutors {
+
+    static final String CODE_SUPERSEDED = "SUPERSEDED";
+    private static final int BULK_THREADS = 2;
+
+    private static ModuleExecutors instance;
+
+    private final ExecutorService interactive;
+    private final ExecutorService bulk;
+
+    // Bulk calls queued or running, by group and key
+    private final Map<String, Call<?>> inFlight = new HashMap<>();
+    // The newest call in each group
+    private final Map<String, Call<?>> latest = new HashMap<>();
+
+    private final class Call<T> implements Runnable {
+        final String id;
+        final String group;
+        final Callable<T> work;
+        final Function<T, Object> toJs;
+        final List<Promise> promises = new ArrayList<>();
+        Future<?> future;
+        boolean cancelled;
+
+        Call(String id, String group, Callable<T> work, Function<T, Object> toJs) {
+            this.id = id;
+            this.group = group;
+            this.work = work;
+            this.toJs = toJs;
+        }
+
+        @Override
+        public void run() {
+            T result = null;
+            Exception error = null;
+            try {
+                result = work.call();
+            } catch (Exception e) {
+                error = e;
+            }
+
+            List<Promise> waiting;
+            synchronized (ModuleExecutors.this) {
+                inFlight.remove(id, this);
+                if (group != null) latest.remove(group, this);
+                // Its promises were rejected when it was superseded
+                if (cancelled) return;
+                waiting = new ArrayList<>(promises);
+            }
+
+            // Each promise gets its own JS value; native maps can't be shared
+            for (Promise promise : waiting) {
+                if (error != null) {
+                    promise.reject("ERROR", error.getMessage());
+                    continue;
+                }
+                try {
+                    promise.resolve(toJs.apply(result));
+                } catch (Exception e) {
+                    promise.reject("ERROR", e.getMessage());
+                }
+            }
+        }
+    }
+
+    ModuleExecutors(ExecutorService interactive, ExecutorService bulk) {
+        this.interactive = interactive;
+        this.bulk = bulk;
+    }
+
+    public static synchronized ModuleExecutors getInstance() {
+        if (instance == null) {
+            instance = new ModuleExecutors(
+                newLane("ModuleInteractive", 1, Process.THREAD_PRIORITY_FOREGROUND),
+                newLane("ModuleBulk", BULK_THREADS, Process.THREAD_PRIORITY_BACKGROUND));
+        }
+        return instance;
+    }
+
+    private static ExecutorService newLane(String name, int threads, int priority) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            threads, threads, 30, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(() -> {
+                    Process.setThreadPriority(priority);
+                    runnable.run();
+                }, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /** Runs a short call the user is waiting on. */
+    public void interactive(Runnable task) {
+        interactive.execute(task);
+    }
+
+    /** Runs work nobody waits on, such as bookkeeping after a launch. */
+    public void background(Runnable task) {
+        bulk.execute(task);
+    }
+
+    /**
+     * Runs work on the bulk lane and resolves the promise with toJs of its
+     * result. A call with the same key that is already queued or running
+     * is joined instead.
+     */
+    public <T> void bulk(String key, Promise promise, Callable<T> work, Function<T, Object> toJs) {
+        bulk(null, key, promise, work, toJs);
+    }
+
+    /** Like bulk, but first supersedes the previous call in the group. */
+    public <T> void bulk(String group, String key, Promise promise,
+                         Callable<T> work, Function<T, Object> toJs) {
+        String id = group != null ? group + "\n" + key : key;
+        Call<?> previous = null;
+        synchronized (this) {
+            @SuppressWarnings("unchecked")
+            Call<T> call = (Call<T>) inFlight.get(id);
+            if (group != null) {
+                previous = latest.get(group);
+                if (previous == call) {
+                    previous = null;
+                } else if (previous != null) {
+                    previous.cancelled = true;
+                    previous.future.cancel(false);
+                    inFlight.remove(previous.id, previous);
+                }
+            }
+
+            if (call == null) {
+                call = new Call<>(id, group, work, toJs);
+                inFlight.put(id, call);
+                call.future = bulk.submit(call);
+            }
+            call.promises.add(promise);
+            if (group != null) latest.put(group, call);
+        }
+
+        if (previous != null) {
+            for (Promise stale : previous.promises) {
+                stale.reject(CODE_SUPERSEDED, "Superseded by a newer request");
+            }
+        }
+    }
+}
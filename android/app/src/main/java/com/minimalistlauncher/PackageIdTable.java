@@ -0,0 +1,121 @@
+package com.minimalistlauncher;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns package names as small, stable integer IDs so native stores can
+ * keep primitive columns instead of strings. The table is an append-only
+ * file of names; a name's ID is its position in the file.
+ */
+public final class PackageIdTable {
+
+    private final File file;
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    public PackageIdTable(File file) {
+        this.file = file;
+        load();
+    }
+
+    /**
+     * Returns the name's ID, appending it first if it is new. The name is
+     * synced to disk before its ID is handed out, since callers persist
+     * data keyed by it; if that fails, nothing is assigned.
+     */
+    public synchronized int intern(String packageName) throws IOException {
+        Integer id = ids.get(packageName);
+        if (id != null) return id;
+
+        long length = file.length();
+        try (FileOutputStream stream = new FileOutputStream(file, true)) {
+            DataOutputStream out = new DataOutputStream(stream);
+            out.writeUTF(packageName);
+            out.flush();
+            stream.getFD().sync();
+        } catch (IOException e) {
+            // Don't leave a partial name for the next append to follow
+            truncate(length);
+            throw e;
+        }
+
+        int newId = names.size();
+        names.add(packageName);
+        ids.put(packageName, newId);
+        return newId;
+    }
+
+    /** Returns the ID for a name that was interned before, or -1. */
+    public synchronized int find(String packageName) {
+        Integer id = ids.get(packageName);
+        return id != null ? id : -1;
+    }
+
+    public synchronized String nameOf(int id) {
+        return id >= 0 && id < names.size() ? names.get(id) : null;
+    }
+
+    public synchronized int size() {
+        return names.size();
+    }
+
+    private void load() {
+        if (!file.exists()) return;
+
+        long goodLength = 0;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                String name = in.readUTF();
+                ids.put(name, names.size());
+                names.add(name);
+                goodLength += 2 + utfLength(name);
+            }
+        } catch (EOFException e) {
+            // End of table
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        // Drop a record torn by a crash so later appends keep IDs aligned
+        if (goodLength < file.length()) {
+            truncate(goodLength);
+        }
+    }
+
+    private void truncate(long length) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(length);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Length of the modified UTF-8 encoding written by writeUTF
+    private static int utfLength(String s) {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) {
+                length += 1;
+            } else if (c > 0x07FF) {
+                length += 3;
+            } else {
+                length += 2;
+            }
+        }
+        return length;
+    }
+}
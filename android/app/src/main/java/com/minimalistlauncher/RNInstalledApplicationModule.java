@@ -1,75 +1,314 @@
 package com.minimalistlauncher;
 
-import android.content.Intent;
-import android.content.pm.ApplicationInfo;
-import android.content.pm.PackageManager;
-import android.content.pm.ResolveInfo;
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.util.Base64;
 
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
-import com.facebook.react.bridge.ReactContextBaseJavaModule;
-import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
 import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-public class RNInstalledApplicationModule extends ReactContextBaseJavaModule {
+public class RNInstalledApplicationModule extends NativeInstalledApplicationSpec {
 
     private final ReactApplicationContext reactContext;
 
+    private static final class Suggestion {
+        final AppCatalog.Entry entry;
+        final double score;
+
+        Suggestion(AppCatalog.Entry entry, double score) {
+            this.entry = entry;
+            this.score = score;
+        }
+    }
+
     public RNInstalledApplicationModule(ReactApplicationContext reactContext) {
         super(reactContext);
         this.reactContext = reactContext;
     }
 
     @Override
-    public String getName() {
-        return "RNInstalledApplication";
+    public void getApps(Promise promise) {
+        try {
+            ModuleExecutors.getInstance().bulk("getApps", promise,
+                () -> AppCatalog.getInstance(reactContext).getSnapshot(),
+                this::toWritableArray);
+        } catch (Exception e) {
+            promise.reject("GET_APPS_ERROR", e.getMessage());
+        }
     }
 
-    @ReactMethod
-    public void getApps(Promise promise) {
+    @Override
+    public void getAppsIfChanged(double knownVersion, Promise promise) {
         try {
-            PackageManager pm = reactContext.getPackageManager();
-            Intent intent = new Intent(Intent.ACTION_MAIN, null);
-            intent.addCategory(Intent.CATEGORY_LAUNCHER);
+            ModuleExecutors.getInstance().bulk("getAppsIfChanged:" + (long) knownVersion, promise,
+                () -> AppCatalog.getInstance(reactContext).getSnapshot(),
+                catalog -> {
+                    WritableMap result = Arguments.createMap();
+                    result.putDouble("version", (double) catalog.version);
+                    if ((long) knownVersion == catalog.version) {
+                        result.putBoolean("changed", false);
+                    } else {
+                        result.putBoolean("changed", true);
+                        result.putArray("apps", toWritableArray(catalog));
+                        result.putArray("sections", toSectionArray(catalog));
+                    }
+                    return result;
+                });
+        } catch (Exception e) {
+            promise.reject("GET_APPS_ERROR", e.getMessage());
+        }
+    }
 
-            List<ResolveInfo> apps = pm.queryIntentActivities(intent, 0);
-            WritableArray installedApps = Arguments.createArray();
+    // Each keystroke's search supersedes the previous one
+    @Override
+    public void searchApps(String query, double limit, Promise promise) {
+        try {
+            ModuleExecutors.getInstance().bulk("searchApps", query + ":" + (int) limit, promise, () -> {
+                AppCatalog catalog = AppCatalog.getInstance(reactContext);
+                List<AppCatalog.Entry> matches = new ArrayList<>();
+                AppSearchIndex.getInstance(catalog).search(query, (int) limit,
+                    (entry, score) -> matches.add(entry));
+                return matches;
+            }, matches -> {
+                WritableArray results = Arguments.createArray();
+                for (AppCatalog.Entry entry : matches) {
+                    WritableMap appMap = Arguments.createMap();
+                    appMap.putString("packageName", entry.packageName);
+                    appMap.putString("appName", entry.appName);
+                    results.pushMap(appMap);
+                }
+                return results;
+            });
+        } catch (Exception e) {
+            promise.reject("SEARCH_ERROR", e.getMessage());
+        }
+    }
 
-            for (ResolveInfo app : apps) {
-                WritableMap appMap = Arguments.createMap();
-                String packageName = app.activityInfo.packageName;
-                String appName = app.loadLabel(pm).toString();
+    // Called by the home screen once it has rendered with its data
+    @Override
+    public void reportHomeReady() {
+        LauncherPrefetch prefetch = LauncherPrefetch.get();
+        if (prefetch != null) {
+            prefetch.markHomeReady();
+        }
+
+        Activity activity = getCurrentActivity();
+        if (activity != null) {
+            activity.reportFullyDrawn();
+        }
+    }
 
-                appMap.putString("packageName", packageName);
-                appMap.putString("appName", appName);
-                installedApps.pushMap(appMap);
+    @Override
+    public void getStartupTimings(Promise promise) {
+        try {
+            LauncherPrefetch prefetch = LauncherPrefetch.get();
+            if (prefetch == null) {
+                promise.resolve(null);
+                return;
             }
 
-            promise.resolve(installedApps);
+            WritableMap result = Arguments.createMap();
+            result.putDouble("homeReadyMs", (double) prefetch.getHomeReadyMs());
+            result.putDouble("catalogMs",
+                (double) prefetch.getDurationMs(LauncherPrefetch.TASK_CATALOG));
+            result.putDouble("blocklistMs",
+                (double) prefetch.getDurationMs(LauncherPrefetch.TASK_BLOCKLIST));
+            result.putDouble("usageMs",
+                (double) prefetch.getDurationMs(LauncherPrefetch.TASK_USAGE));
+            promise.resolve(result);
         } catch (Exception e) {
-            promise.reject("GET_APPS_ERROR", e.getMessage());
+            promise.reject("ERROR", e.getMessage());
         }
     }
 
-    @ReactMethod
-    public void launchApplication(String packageName, Promise promise) {
+    // PNG data URI of the app icon at size x size pixels, or null
+    @Override
+    public void getAppIcon(String packageName, double size, Promise promise) {
         try {
-            PackageManager pm = reactContext.getPackageManager();
-            Intent launchIntent = pm.getLaunchIntentForPackage(packageName);
-
-            if (launchIntent != null) {
-                launchIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
-                reactContext.startActivity(launchIntent);
-                promise.resolve(true);
-            } else {
-                promise.reject("LAUNCH_ERROR", "Could not find launch intent for package");
+            ModuleExecutors.getInstance().bulk("getAppIcon:" + packageName + ":" + (int) size, promise,
+                () -> {
+                    Bitmap icon = AppMetadataCache.getInstance(reactContext)
+                        .getIcon(packageName, (int) size);
+                    if (icon == null) return null;
+
+                    ByteArrayOutputStream png = new ByteArrayOutputStream();
+                    icon.compress(Bitmap.CompressFormat.PNG, 100, png);
+                    return "data:image/png;base64,"
+                        + Base64.encodeToString(png.toByteArray(), Base64.NO_WRAP);
+                },
+                uri -> uri);
+        } catch (Exception e) {
+            promise.reject("ICON_ERROR", e.getMessage());
+        }
+    }
+
+    @Override
+    public void getMetadataCacheStats(Promise promise) {
+        try {
+            AppMetadataCache cache = AppMetadataCache.getInstance(reactContext);
+            WritableMap result = Arguments.createMap();
+            result.putDouble("hits", (double) cache.getHitCount());
+            result.putDouble("misses", (double) cache.getMissCount());
+            result.putDouble("evictions", (double) cache.getEvictionCount());
+            result.putInt("sizeBytes", cache.getSizeBytes());
+            result.putInt("maxSizeBytes", cache.getMaxSizeBytes());
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    private WritableArray toWritableArray(AppCatalog.Snapshot catalog) {
+        WritableArray installedApps = Arguments.createArray();
+
+        for (AppCatalog.Entry entry : catalog.entries) {
+            WritableMap appMap = Arguments.createMap();
+            appMap.putString("packageName", entry.packageName);
+            appMap.putString("appName", entry.appName);
+            installedApps.pushMap(appMap);
+        }
+
+        return installedApps;
+    }
+
+    private WritableArray toSectionArray(AppCatalog.Snapshot catalog) {
+        WritableArray sections = Arguments.createArray();
+
+        for (AppCatalog.Section section : catalog.sections) {
+            WritableMap sectionMap = Arguments.createMap();
+            sectionMap.putString("label", section.label);
+            sectionMap.putInt("offset", section.offset);
+            sections.pushMap(sectionMap);
+        }
+
+        return sections;
+    }
+
+    // Resolves as soon as the app has started; the launch is counted on the
+    // bulk lane afterwards, since the first count loads the log and the
+    // frecency engine from disk
+    @Override
+    public void launchApplication(String packageName, double tapTime, Promise promise) {
+        ModuleExecutors.getInstance().interactive(() -> {
+            try {
+                if (AppCatalog.getInstance(reactContext).launch(reactContext, packageName)) {
+                    long now = System.currentTimeMillis();
+                    if (tapTime > 0) {
+                        LaunchLatency.record(now - (long) tapTime);
+                    }
+                    promise.resolve(true);
+                    ModuleExecutors.getInstance().background(() -> {
+                        // Frecency first, so seeding it from the log can't
+                        // count this launch twice
+                        FrecencyEngine.getInstance(reactContext).recordLaunch(packageName, now);
+                        LaunchLog.getInstance(reactContext).record(packageName, now);
+                    });
+                } else {
+                    promise.reject("LAUNCH_ERROR", "Could not find launch intent for package");
+                }
+            } catch (Exception e) {
+                promise.reject("LAUNCH_ERROR", e.getMessage());
+            }
+        });
+    }
+
+    // Installed apps ranked by frecency, best first. On the bulk lane, since
+    // the first call loads the engine and the catalog from disk.
+    @Override
+    public void getSuggestedApps(double limit, Promise promise) {
+        try {
+            ModuleExecutors.getInstance().bulk("getSuggestedApps:" + (int) limit, promise, () -> {
+                FrecencyEngine frecency = FrecencyEngine.getInstance(reactContext);
+                AppCatalog.Snapshot catalog = AppCatalog.getInstance(reactContext).getSnapshot();
+                long now = System.currentTimeMillis();
+
+                List<Suggestion> suggestions = new ArrayList<>();
+                for (String packageName : frecency.getTop(FrecencyEngine.TOP_K)) {
+                    if (suggestions.size() >= (int) limit) break;
+
+                    // Skips apps uninstalled since they were ranked
+                    AppCatalog.Entry entry = catalog.find(packageName);
+                    if (entry == null) continue;
+
+                    suggestions.add(new Suggestion(entry, frecency.getScore(packageName, now)));
+                }
+                return suggestions;
+            }, suggestions -> {
+                WritableArray results = Arguments.createArray();
+                for (Suggestion suggestion : suggestions) {
+                    WritableMap appMap = Arguments.createMap();
+                    appMap.putString("packageName", suggestion.entry.packageName);
+                    appMap.putString("appName", suggestion.entry.appName);
+                    appMap.putDouble("score", suggestion.score);
+                    results.pushMap(appMap);
+                }
+                return results;
+            });
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    @Override
+    public void getLaunchCounts(Promise promise) {
+        try {
+            ModuleExecutors.getInstance().bulk("getLaunchCounts", promise,
+                () -> LaunchLog.getInstance(reactContext).getCounts(),
+                counts -> {
+                    WritableMap result = Arguments.createMap();
+                    for (Map.Entry<String, LaunchLog.Count> entry : counts.entrySet()) {
+                        result.putInt(entry.getKey(), entry.getValue().launches);
+                    }
+                    return result;
+                });
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    // One-time move of the counts JS used to keep in AsyncStorage
+    @Override
+    public void importLaunchCounts(ReadableMap counts, Promise promise) {
+        try {
+            Map<String, Integer> imported = new HashMap<>();
+            ReadableMapKeySetIterator iterator = counts.keySetIterator();
+            while (iterator.hasNextKey()) {
+                String packageName = iterator.nextKey();
+                imported.put(packageName, (int) counts.getDouble(packageName));
             }
+            // False if an earlier import already landed; either way the
+            // caller can drop its copy
+            ModuleExecutors.getInstance().bulk("importLaunchCounts:" + imported.hashCode(), promise,
+                () -> LaunchLog.getInstance(reactContext).importCounts(imported),
+                result -> result);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    @Override
+    public void getLaunchLatencyStats(Promise promise) {
+        try {
+            long[] stats = LaunchLatency.getStats();
+            WritableMap result = Arguments.createMap();
+            result.putInt("count", (int) stats[0]);
+            result.putDouble("averageMs", stats[0] > 0 ? (double) stats[1] / stats[0] : 0);
+            result.putDouble("maxMs", (double) stats[2]);
+            result.putDouble("lastMs", (double) stats[3]);
+            promise.resolve(result);
         } catch (Exception e) {
-            promise.reject("LAUNCH_ERROR", e.getMessage());
+            promise.reject("ERROR", e.getMessage());
         }
     }
 }
@@ -0,0 +1,170 @@
+package com.minimalistlauncher;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Packages let through for a while after the break glass phrase.
+ *
+ * Lookups are a plain map check with no clock read; entries are removed by
+ * a single timer armed for the earliest expiry. Expiries are wall-clock
+ * times persisted to the shared prefs so a service restart keeps them.
+ */
+public final class TemporaryAllowances {
+
+    private static final String PREFS_NAME = "MinimalistLauncherPrefs";
+    private static final String KEY_ALLOWANCES = "allowances";
+    private static final String KEY_BREAK_GLASS_MINUTES = "breakGlassMinutes";
+    private static final int DEFAULT_MINUTES = 5;
+
+    public interface Listener {
+        void onAllowanceExpired(String packageName);
+    }
+
+    public interface Scheduler {
+        void schedule(Runnable task, long delayMs);
+
+        void cancel(Runnable task);
+    }
+
+    private static TemporaryAllowances instance;
+
+    private final Clock clock;
+    private final Scheduler scheduler;
+    private final SharedPreferences prefs;
+
+    private final Map<String, Long> expiries = new HashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Runnable expireTask = this::expireDue;
+
+    TemporaryAllowances(Clock clock, Scheduler scheduler, SharedPreferences prefs) {
+        this.clock = clock;
+        this.scheduler = scheduler;
+        this.prefs = prefs;
+        restore();
+    }
+
+    public static synchronized TemporaryAllowances getInstance(Context context) {
+        if (instance == null) {
+            Handler handler = new Handler(Looper.getMainLooper());
+            instance = new TemporaryAllowances(Clock.SYSTEM, new Scheduler() {
+                @Override
+                public void schedule(Runnable task, long delayMs) {
+                    handler.postDelayed(task, delayMs);
+                }
+
+                @Override
+                public void cancel(Runnable task) {
+                    handler.removeCallbacks(task);
+                }
+            }, context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE));
+        }
+        return instance;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /** Lets the package through for the configured break glass duration. */
+    public void grant(String packageName) {
+        grant(packageName, prefs.getInt(KEY_BREAK_GLASS_MINUTES, DEFAULT_MINUTES) * 60000L);
+    }
+
+    public synchronized void grant(String packageName, long durationMs) {
+        expiries.put(packageName, clock.currentTimeMillis() + durationMs);
+        persist();
+        arm();
+    }
+
+    public synchronized void revoke(String packageName) {
+        if (expiries.remove(packageName) != null) {
+            persist();
+            arm();
+        }
+    }
+
+    public synchronized boolean isAllowed(String packageName) {
+        return expiries.containsKey(packageName);
+    }
+
+    /**
+     * Removes every allowance that is due. Runs from the timer, and should
+     * also run after the device wakes, since the timer doesn't count sleep.
+     */
+    public void expireDue() {
+        List<String> expired = new ArrayList<>();
+        synchronized (this) {
+            long now = clock.currentTimeMillis();
+            for (Map.Entry<String, Long> entry : expiries.entrySet()) {
+                if (entry.getValue() <= now) {
+                    expired.add(entry.getKey());
+                }
+            }
+            if (expired.isEmpty()) return;
+
+            for (String packageName : expired) {
+                expiries.remove(packageName);
+            }
+            persist();
+            arm();
+        }
+
+        for (String packageName : expired) {
+            for (Listener listener : listeners) {
+                listener.onAllowanceExpired(packageName);
+            }
+        }
+    }
+
+    private void arm() {
+        scheduler.cancel(expireTask);
+        if (expiries.isEmpty()) return;
+
+        long earliest = Long.MAX_VALUE;
+        for (long expiry : expiries.values()) {
+            earliest = Math.min(earliest, expiry);
+        }
+        scheduler.schedule(expireTask, Math.max(0, earliest - clock.currentTimeMillis()));
+    }
+
+    // Stored as "pkg=expiry,pkg=expiry"
+    private void persist() {
+        StringBuilder value = new StringBuilder();
+        for (Map.Entry<String, Long> entry : expiries.entrySet()) {
+            value.append(entry.getKey()).append('=').append(entry.getValue()).append(',');
+        }
+        prefs.edit().putString(KEY_ALLOWANCES, value.toString()).apply();
+    }
+
+    private synchronized void restore() {
+        String value = prefs.getString(KEY_ALLOWANCES, "");
+        long now = clock.currentTimeMillis();
+        try {
+            for (String pair : value.split(",")) {
+                int eq = pair.indexOf('=');
+                if (eq <= 0) continue;
+
+                long expiry = Long.parseLong(pair.substring(eq + 1));
+                if (expiry > now) {
+                    expiries.put(pair.substring(0, eq), expiry);
+                }
+            }
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+        arm();
+    }
+}
@@ -0,0 +1,295 @@
+package com.minimalistlauncher;
+
+import android.app.usage.UsageStats;
+import android.app.usage.UsageStatsManager;
+import android.content.Context;
+
+import java.io.File;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Single entry point for aggregated usage. Ranges that ended before today
+ * can no longer change and are cached for good; anything touching today is
+ * cached for a short TTL and can be invalidated explicitly. Whole days that
+ * the event ingestor covers are served from its buckets instead.
+ */
+public final class UsageEngine {
+
+    private static final long TODAY_TTL_MS = 60 * 1000;
+    // Calls this soon after a refresh, such as a module call racing the
+    // prefetch, share its result instead of refreshing again
+    private static final long INGESTED_REUSE_MS = 1000;
+    private static final int MAX_CLOSED_RANGES = 120;
+
+    public static final class UsageRecord {
+        public final String packageName;
+        public final long totalTimeInForeground;
+        public final long lastTimeUsed;
+        public final long firstTimeStamp;
+        public final long lastTimeStamp;
+        // Only known for days built from events; 0 for system aggregates
+        public final int sessionCount;
+
+        public UsageRecord(String packageName, long totalTimeInForeground, long lastTimeUsed,
+                           long firstTimeStamp, long lastTimeStamp, int sessionCount) {
+            this.packageName = packageName;
+            this.totalTimeInForeground = totalTimeInForeground;
+            this.lastTimeUsed = lastTimeUsed;
+            this.firstTimeStamp = firstTimeStamp;
+            this.lastTimeStamp = lastTimeStamp;
+            this.sessionCount = sessionCount;
+        }
+    }
+
+    /** Where aggregates come from; the system service outside of tests. */
+    public interface UsageSource {
+        Map<String, UsageRecord> queryAggregated(long startTime, long endTime);
+    }
+
+    private static final class OpenRange {
+        final Map<String, UsageRecord> usage;
+        final long loadedAt;
+
+        OpenRange(Map<String, UsageRecord> usage, long loadedAt) {
+            this.usage = usage;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private static UsageEngine instance;
+
+    private final UsageSource source;
+    private final UsageEventIngestor ingestor;
+    private final UsageTimeSeriesStore store;
+    private final Clock clock;
+
+    // Keyed by "start:end"; least recently used ranges are dropped first
+    private final Map<String, Map<String, UsageRecord>> closedRanges =
+        new LinkedHashMap<String, Map<String, UsageRecord>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Map<String, UsageRecord>> eldest) {
+                return size() > MAX_CLOSED_RANGES;
+            }
+        };
+    private final Map<String, OpenRange> openRanges = new HashMap<>();
+    private long openRangesDay;
+    private OpenRange ingestedToday;
+    private long ingestedTodayVersion;
+
+    public UsageEngine(UsageSource source, UsageEventIngestor ingestor,
+                       UsageTimeSeriesStore store, Clock clock) {
+        this.source = source;
+        this.ingestor = ingestor;
+        this.store = store;
+        this.clock = clock;
+    }
+
+    public static synchronized UsageEngine getInstance(Context context) {
+        if (instance == null) {
+            UsageStatsManager usageStatsManager = (UsageStatsManager) context
+                .getApplicationContext().getSystemService(Context.USAGE_STATS_SERVICE);
+            File filesDir = context.getApplicationContext().getFilesDir();
+            UsageTimeSeriesStore store = new UsageTimeSeriesStore(filesDir);
+            UsageEventIngestor ingestor = UsageEventIngestor.create(usageStatsManager, store, filesDir);
+            ingestor.setSessionListener(FrecencyEngine.getInstance(context)::recordSession);
+            instance = new UsageEngine(
+                systemSource(usageStatsManager),
+                ingestor,
+                store,
+                Clock.SYSTEM);
+        }
+        return instance;
+    }
+
+    static UsageSource systemSource(UsageStatsManager usageStatsManager) {
+        return (startTime, endTime) -> {
+            Map<String, UsageStats> usageStatsMap = usageStatsManager
+                .queryAndAggregateUsageStats(startTime, endTime);
+
+            Map<String, UsageRecord> records = new HashMap<>(usageStatsMap.size() * 2);
+            for (UsageStats stats : usageStatsMap.values()) {
+                records.put(stats.getPackageName(), new UsageRecord(
+                    stats.getPackageName(),
+                    stats.getTotalTimeInForeground(),
+                    stats.getLastTimeUsed(),
+                    stats.getFirstTimeStamp(),
+                    stats.getLastTimeStamp(),
+                    0));
+            }
+            return records;
+        };
+    }
+
+    /** Usage between two arbitrary timestamps. */
+    public synchronized Map<String, UsageRecord> getRange(long startTime, long endTime) {
+        String key = startTime + ":" + endTime;
+        long now = clock.currentTimeMillis();
+
+        if (endTime < startOfDay(now)) {
+            Map<String, UsageRecord> cached = closedRanges.get(key);
+            if (cached == null) {
+                cached = Collections.unmodifiableMap(source.queryAggregated(startTime, endTime));
+                closedRanges.put(key, cached);
+            }
+            return cached;
+        }
+
+        OpenRange cached = openRanges.get(key);
+        if (cached == null || now - cached.loadedAt >= TODAY_TTL_MS) {
+            cached = new OpenRange(
+                Collections.unmodifiableMap(source.queryAggregated(startTime, endTime)), now);
+            openRanges.put(key, cached);
+        }
+        return cached.usage;
+    }
+
+    /** Usage for the local calendar day starting at {@code dayStart}. */
+    public Map<String, UsageRecord> getDay(long dayStart) {
+        long now = clock.currentTimeMillis();
+        long todayStart = startOfDay(now);
+
+        if (dayStart > todayStart) {
+            return Collections.emptyMap();
+        }
+        if (dayStart == todayStart) {
+            return getToday();
+        }
+        if (ingestor != null && ingestor.covers(dayStart)) {
+            return getIngestedDay(dayStart);
+        }
+        return getRange(dayStart, endOfDay(dayStart));
+    }
+
+    /** Usage from local midnight until now. */
+    public synchronized Map<String, UsageRecord> getToday() {
+        long now = clock.currentTimeMillis();
+        long todayStart = startOfDay(now);
+        String key = "today:" + todayStart;
+
+        // Entries cached on an earlier day are of no use any more
+        if (todayStart != openRangesDay) {
+            openRanges.clear();
+            ingestedToday = null;
+            openRangesDay = todayStart;
+        }
+
+        if (ingestor != null) {
+            if (ingestedToday != null && now - ingestedToday.loadedAt < INGESTED_REUSE_MS) {
+                return ingestedToday.usage;
+            }
+            // Only reads events newer than the last refresh, so no TTL needed
+            ingestor.refresh();
+            long version = ingestor.getVersion();
+            ingestedToday = new OpenRange(
+                ingestedToday != null && version == ingestedTodayVersion
+                    ? ingestedToday.usage
+                    : fromBuckets(ingestor.getDay(todayStart)),
+                now);
+            ingestedTodayVersion = version;
+            return ingestedToday.usage;
+        }
+
+        OpenRange cached = openRanges.get(key);
+        if (cached == null || now - cached.loadedAt >= TODAY_TTL_MS) {
+            cached = new OpenRange(
+                Collections.unmodifiableMap(source.queryAggregated(todayStart, now)), now);
+            openRanges.put(key, cached);
+        }
+        return cached.usage;
+    }
+
+    private synchronized Map<String, UsageRecord> getIngestedDay(long dayStart) {
+        // Yesterday still grows while a session open at midnight runs on, so
+        // only cache the days the ingestor has stopped changing
+        long yesterday = startOfDay(startOfDay(clock.currentTimeMillis()) - 1);
+        if (dayStart >= yesterday) {
+            ingestor.refresh();
+            return fromBuckets(ingestor.getDay(dayStart));
+        }
+
+        String key = "day:" + dayStart;
+        Map<String, UsageRecord> cached = closedRanges.get(key);
+        if (cached == null) {
+            ingestor.refresh();
+            cached = fromBuckets(ingestor.getDay(dayStart));
+            closedRanges.put(key, cached);
+        }
+        return cached;
+    }
+
+    private static Map<String, UsageRecord> fromBuckets(Map<String, UsageEventIngestor.AppDay> day) {
+        if (day == null) return Collections.emptyMap();
+
+        Map<String, UsageRecord> records = new HashMap<>(day.size() * 2);
+        for (Map.Entry<String, UsageEventIngestor.AppDay> entry : day.entrySet()) {
+            UsageEventIngestor.AppDay appDay = entry.getValue();
+            records.put(entry.getKey(), new UsageRecord(
+                entry.getKey(),
+                appDay.totalForegroundMs(),
+                appDay.lastTimeUsed,
+                0,
+                0,
+                appDay.totalSessions()));
+        }
+        return Collections.unmodifiableMap(records);
+    }
+
+    /**
+     * Foreground time per package for whole local days from {@code startDay}
+     * up to, but not including, {@code endDay}. Sealed days come from the
+     * time-series rollups and the most recent days from the ingestor.
+     */
+    public synchronized Map<String, Long> getHistory(long startDay, long endDay) {
+        if (store == null || ingestor == null) return Collections.emptyMap();
+
+        ingestor.refresh();
+        long lastSealed = store.lastSealedDay();
+        long sealedEnd = lastSealed >= 0
+            ? UsageEventIngestor.nextDayStart(lastSealed) : startDay;
+
+        Map<String, Long> totals = new HashMap<>(
+            store.queryRange(startDay, Math.min(endDay, sealedEnd)));
+
+        for (long day = Math.max(startDay, sealedEnd); day < endDay;
+             day = UsageEventIngestor.nextDayStart(day)) {
+            Map<String, UsageEventIngestor.AppDay> buckets = ingestor.getDay(day);
+            if (buckets == null) continue;
+            for (Map.Entry<String, UsageEventIngestor.AppDay> entry : buckets.entrySet()) {
+                Long total = totals.get(entry.getKey());
+                totals.put(entry.getKey(),
+                    (total != null ? total : 0) + entry.getValue().totalForegroundMs());
+            }
+        }
+        return totals;
+    }
+
+    /** Drops everything that may still change; closed days stay cached. */
+    public synchronized void invalidate() {
+        openRanges.clear();
+        ingestedToday = null;
+    }
+
+    static long startOfDay(long time) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(time);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+
+    static long endOfDay(long dayStart) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(dayStart);
+        calendar.set(Calendar.HOUR_OF_DAY, 23);
+        calendar.set(Calendar.MINUTE, 59);
+        calendar.set(Calendar.SECOND, 59);
+        calendar.set(Calendar.MILLISECOND, 999);
+        return calendar.getTimeInMillis();
+    }
+}
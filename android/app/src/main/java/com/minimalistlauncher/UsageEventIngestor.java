@@ -0,0 +1,453 @@
+package com.minimalistlauncher;
+
+import android.app.usage.UsageEvents;
+import android.app.usage.UsageStatsManager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Folds usage events into per-app, per-hour buckets, reading only the events
+ * since a persisted cursor on each refresh.
+ */
+public final class UsageEventIngestor {
+
+    private static final String FILE_NAME = "usage_buckets.bin";
+    private static final int FILE_FORMAT = 2;
+    // Format 1 had no open activities
+    private static final int FILE_FORMAT_NO_ACTIVITIES = 1;
+
+    // Days kept here; older days live in the time-series store
+    private static final int MAX_DAYS = 8;
+
+    private static final long HOUR_MS = 60 * 60 * 1000;
+    // A day has 25 hours when DST ends
+    static final int HOURS_PER_DAY = 25;
+
+    // UsageEvents.Event constants, duplicated so the folding logic has no
+    // dependency on the framework class
+    static final int EVENT_FOREGROUND = 1;
+    static final int EVENT_BACKGROUND = 2;
+    static final int EVENT_SCREEN_NON_INTERACTIVE = 16;
+    static final int EVENT_ACTIVITY_STOPPED = 23;
+    static final int EVENT_DEVICE_SHUTDOWN = 26;
+
+    public interface EventSink {
+        void onEvent(String packageName, String className, int eventType, long timeStamp);
+    }
+
+    /** Told when an app comes to the foreground, e.g. to rank it. */
+    public interface SessionListener {
+        void onSessionStart(String packageName, long timeStamp);
+    }
+
+    /** Where events come from; the system service outside of tests. */
+    public interface EventSource {
+        void readEvents(long beginTime, long endTime, EventSink sink);
+    }
+
+    /** Per-app buckets for one local calendar day. */
+    public static final class AppDay {
+        public final long[] foregroundMs = new long[HOURS_PER_DAY];
+        public final int[] sessions = new int[HOURS_PER_DAY];
+        public long lastTimeUsed;
+
+        public long totalForegroundMs() {
+            long total = 0;
+            for (long ms : foregroundMs) total += ms;
+            return total;
+        }
+
+        public int totalSessions() {
+            int total = 0;
+            for (int count : sessions) total += count;
+            return total;
+        }
+    }
+
+    private final EventSource source;
+    private final UsageTimeSeriesStore store;
+    private final Clock clock;
+    private final File file;
+
+    private long cursor = -1;
+    // Bumped whenever getDay could return something new
+    private long version;
+    private SessionListener sessionListener;
+    // Package -> start of the current foreground interval
+    private final Map<String, Long> openSessions = new HashMap<>();
+    // Package -> activities resumed and not yet stopped; a session lasts
+    // until the last of them stops
+    private final Map<String, Set<String>> openActivities = new HashMap<>();
+    // Day start -> package -> buckets
+    private final TreeMap<Long, Map<String, AppDay>> days = new TreeMap<>();
+
+    public UsageEventIngestor(EventSource source, UsageTimeSeriesStore store, Clock clock, File file) {
+        this.source = source;
+        this.store = store;
+        this.clock = clock;
+        this.file = file;
+        load();
+    }
+
+    public static UsageEventIngestor create(UsageStatsManager usageStatsManager,
+                                            UsageTimeSeriesStore store, File filesDir) {
+        return new UsageEventIngestor(
+            systemSource(usageStatsManager), store, Clock.SYSTEM, new File(filesDir, FILE_NAME));
+    }
+
+    static EventSource systemSource(UsageStatsManager usageStatsManager) {
+        return (beginTime, endTime, sink) -> {
+            UsageEvents events = usageStatsManager.queryEvents(beginTime, endTime);
+            UsageEvents.Event event = new UsageEvents.Event();
+            while (events.hasNextEvent()) {
+                events.getNextEvent(event);
+                sink.onEvent(event.getPackageName(), event.getClassName(),
+                    event.getEventType(), event.getTimeStamp());
+            }
+        };
+    }
+
+    public synchronized void setSessionListener(SessionListener listener) {
+        sessionListener = listener;
+    }
+
+    /** Processes every event since the cursor and persists the new state. */
+    public synchronized void refresh() {
+        long now = clock.currentTimeMillis();
+        if (cursor < 0) {
+            cursor = UsageEngine.startOfDay(now);
+        }
+        if (now <= cursor) return;
+
+        source.readEvents(cursor, now, this::onEvent);
+        // Open sessions now count up to the new cursor
+        if (!openSessions.isEmpty()) version++;
+        cursor = now;
+
+        if (store != null) {
+            sealClosedDays(now);
+        }
+        pruneOldDays(now);
+        persist();
+    }
+
+    /**
+     * Buckets for the day starting at {@code dayStart}, with sessions that are
+     * still open counted up to now. Returns null if the day is not covered.
+     */
+    public synchronized Map<String, AppDay> getDay(long dayStart) {
+        if (days.isEmpty() || dayStart < days.firstKey()) return null;
+
+        Map<String, AppDay> stored = days.get(dayStart);
+        Map<String, AppDay> result = new HashMap<>();
+        if (stored != null) {
+            for (Map.Entry<String, AppDay> entry : stored.entrySet()) {
+                result.put(entry.getKey(), copy(entry.getValue()));
+            }
+        }
+
+        long now = clock.currentTimeMillis();
+        for (Map.Entry<String, Long> open : openSessions.entrySet()) {
+            addInterval(result, dayStart, open.getKey(), open.getValue(), Math.min(now, cursor), true);
+        }
+        return result;
+    }
+
+    /** Changes whenever a refresh folded in anything getDay would show. */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /** True if the day is covered by ingested events rather than aggregates. */
+    public synchronized boolean covers(long dayStart) {
+        return !days.isEmpty() && dayStart >= days.firstKey();
+    }
+
+    void onEvent(String packageName, String className, int eventType, long timeStamp) {
+        version++;
+        switch (eventType) {
+            case EVENT_FOREGROUND: {
+                endPausedSessions(packageName);
+                Set<String> activities = openActivities.get(packageName);
+                if (activities == null) {
+                    // Moving between an app's own activities continues its session
+                    activities = new HashSet<>();
+                    openActivities.put(packageName, activities);
+                    appDay(UsageEngine.startOfDay(timeStamp), packageName)
+                        .sessions[hourOf(timeStamp)]++;
+                    if (sessionListener != null) {
+                        sessionListener.onSessionStart(packageName, timeStamp);
+                    }
+                }
+                activities.add(className);
+                if (!openSessions.containsKey(packageName)) {
+                    openSessions.put(packageName, timeStamp);
+                }
+                break;
+            }
+            case EVENT_BACKGROUND:
+                closeSession(packageName, timeStamp);
+                break;
+            case EVENT_ACTIVITY_STOPPED: {
+                // An activity stopping under another one of the app's doesn't end it
+                Set<String> activities = openActivities.get(packageName);
+                if (activities != null) {
+                    activities.remove(className);
+                    if (!activities.isEmpty()) break;
+                    openActivities.remove(packageName);
+                }
+                closeSession(packageName, timeStamp);
+                break;
+            }
+            case EVENT_SCREEN_NON_INTERACTIVE:
+            case EVENT_DEVICE_SHUTDOWN:
+                // Nothing stays in the foreground once the screen is off
+                for (String open : openSessions.keySet().toArray(new String[0])) {
+                    closeSession(open, timeStamp);
+                }
+                openActivities.clear();
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Another app coming up ends the sessions of apps that are only paused,
+    // since stop events don't exist before Android 10
+    private void endPausedSessions(String packageName) {
+        Iterator<String> it = openActivities.keySet().iterator();
+        while (it.hasNext()) {
+            String open = it.next();
+            if (!open.equals(packageName) && !openSessions.containsKey(open)) {
+                it.remove();
+            }
+        }
+    }
+
+    private void closeSession(String packageName, long timeStamp) {
+        Long start = openSessions.remove(packageName);
+        if (start == null || timeStamp <= start) return;
+
+        // Split the session over every hour, and possibly day, it spans
+        long time = start;
+        while (time < timeStamp) {
+            long dayStart = UsageEngine.startOfDay(time);
+            Map<String, AppDay> day = days.get(dayStart);
+            if (day == null) {
+                day = new HashMap<>();
+                days.put(dayStart, day);
+            }
+            time = addInterval(day, dayStart, packageName, time, timeStamp, false);
+        }
+    }
+
+    /**
+     * Adds the part of [start, end) that falls on the given day and returns
+     * the first timestamp after that day (or end).
+     */
+    private static long addInterval(Map<String, AppDay> day, long dayStart, String packageName,
+                                    long start, long end, boolean countSession) {
+        long dayEnd = nextDayStart(dayStart);
+        long from = Math.max(start, dayStart);
+        long to = Math.min(end, dayEnd);
+        if (from >= to) return to;
+
+        AppDay appDay = day.get(packageName);
+        if (appDay == null) {
+            appDay = new AppDay();
+            day.put(packageName, appDay);
+            if (countSession) {
+                appDay.sessions[(int) ((from - dayStart) / HOUR_MS)]++;
+            }
+        }
+
+        long time = from;
+        while (time < to) {
+            int hour = (int) ((time - dayStart) / HOUR_MS);
+            long hourEnd = Math.min(dayStart + (hour + 1) * HOUR_MS, to);
+            appDay.foregroundMs[hour] += hourEnd - time;
+            time = hourEnd;
+        }
+        appDay.lastTimeUsed = Math.max(appDay.lastTimeUsed, to);
+        return to;
+    }
+
+    private AppDay appDay(long dayStart, String packageName) {
+        Map<String, AppDay> day = days.get(dayStart);
+        if (day == null) {
+            day = new HashMap<>();
+            days.put(dayStart, day);
+        }
+        AppDay appDay = day.get(packageName);
+        if (appDay == null) {
+            appDay = new AppDay();
+            day.put(packageName, appDay);
+        }
+        return appDay;
+    }
+
+    private static int hourOf(long timeStamp) {
+        return (int) ((timeStamp - UsageEngine.startOfDay(timeStamp)) / HOUR_MS);
+    }
+
+    static long nextDayStart(long dayStart) {
+        // Midnight plus 26 hours is always on the next day, even across DST
+        return UsageEngine.startOfDay(dayStart + 26 * HOUR_MS);
+    }
+
+    private static AppDay copy(AppDay source) {
+        AppDay copy = new AppDay();
+        System.arraycopy(source.foregroundMs, 0, copy.foregroundMs, 0, HOURS_PER_DAY);
+        System.arraycopy(source.sessions, 0, copy.sessions, 0, HOURS_PER_DAY);
+        copy.lastTimeUsed = source.lastTimeUsed;
+        return copy;
+    }
+
+    private void sealClosedDays(long now) {
+        // A session still open at midnight lands in yesterday, so stop before it
+        long yesterday = UsageEngine.startOfDay(UsageEngine.startOfDay(now) - 1);
+
+        long lastSealed = store.lastSealedDay();
+        long day;
+        if (lastSealed >= 0) {
+            day = nextDayStart(lastSealed);
+        } else if (!days.isEmpty()) {
+            day = days.firstKey();
+        } else {
+            return;
+        }
+
+        try {
+            for (; day < yesterday; day = nextDayStart(day)) {
+                store.sealDay(day, days.get(day));
+            }
+        } catch (IOException e) {
+            // Days stay here unsealed and are retried on the next refresh
+            e.printStackTrace();
+        }
+    }
+
+    private void pruneOldDays(long now) {
+        long todayStart = UsageEngine.startOfDay(now);
+        Iterator<Long> it = days.keySet().iterator();
+        while (it.hasNext() && days.size() > MAX_DAYS) {
+            if (it.next() < todayStart) {
+                it.remove();
+            }
+        }
+    }
+
+    private void load() {
+        if (!file.exists()) return;
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            int format = in.readInt();
+            if (format != FILE_FORMAT && format != FILE_FORMAT_NO_ACTIVITIES) return;
+
+            cursor = in.readLong();
+            int openCount = in.readInt();
+            for (int i = 0; i < openCount; i++) {
+                openSessions.put(in.readUTF(), in.readLong());
+            }
+            if (format == FILE_FORMAT) {
+                int packageCount = in.readInt();
+                for (int i = 0; i < packageCount; i++) {
+                    String packageName = in.readUTF();
+                    int activityCount = in.readInt();
+                    Set<String> activities = new HashSet<>(activityCount * 2);
+                    for (int a = 0; a < activityCount; a++) {
+                        activities.add(in.readBoolean() ? in.readUTF() : null);
+                    }
+                    openActivities.put(packageName, activities);
+                }
+            }
+
+            int dayCount = in.readInt();
+            for (int d = 0; d < dayCount; d++) {
+                long dayStart = in.readLong();
+                int appCount = in.readInt();
+                Map<String, AppDay> day = new HashMap<>(appCount * 2);
+                for (int a = 0; a < appCount; a++) {
+                    String packageName = in.readUTF();
+                    AppDay appDay = new AppDay();
+                    appDay.lastTimeUsed = in.readLong();
+                    for (int h = 0; h < HOURS_PER_DAY; h++) {
+                        appDay.foregroundMs[h] = in.readLong();
+                        appDay.sessions[h] = in.readInt();
+                    }
+                    day.put(packageName, appDay);
+                }
+                days.put(dayStart, day);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            cursor = -1;
+            openSessions.clear();
+            openActivities.clear();
+            days.clear();
+        }
+    }
+
+    private void persist() {
+        File temp = new File(file.getPath() + ".tmp");
+
+        try (FileOutputStream stream = new FileOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            out.writeInt(FILE_FORMAT);
+            out.writeLong(cursor);
+            out.writeInt(openSessions.size());
+            for (Map.Entry<String, Long> open : openSessions.entrySet()) {
+                out.writeUTF(open.getKey());
+                out.writeLong(open.getValue());
+            }
+            out.writeInt(openActivities.size());
+            for (Map.Entry<String, Set<String>> open : openActivities.entrySet()) {
+                out.writeUTF(open.getKey());
+                out.writeInt(open.getValue().size());
+                for (String activity : open.getValue()) {
+                    out.writeBoolean(activity != null);
+                    if (activity != null) out.writeUTF(activity);
+                }
+            }
+
+            out.writeInt(days.size());
+            for (Map.Entry<Long, Map<String, AppDay>> day : days.entrySet()) {
+                out.writeLong(day.getKey());
+                out.writeInt(day.getValue().size());
+                for (Map.Entry<String, AppDay> app : day.getValue().entrySet()) {
+                    out.writeUTF(app.getKey());
+                    AppDay appDay = app.getValue();
+                    out.writeLong(appDay.lastTimeUsed);
+                    for (int h = 0; h < HOURS_PER_DAY; h++) {
+                        out.writeLong(appDay.foregroundMs[h]);
+                        out.writeInt(appDay.sessions[h]);
+                    }
+                }
+            }
+            out.flush();
+            stream.getFD().sync();
+        } catch (IOException e) {
+            e.printStackTrace();
+            temp.delete();
+            return;
+        }
+
+        if (!temp.renameTo(file)) {
+            temp.delete();
+        }
+    }
+}
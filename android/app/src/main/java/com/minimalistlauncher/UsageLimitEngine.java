@@ -0,0 +1,210 @@
+package com.minimalistlauncher;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tracks today's foreground time for apps with a daily limit, driven by the
+ * blocking service's window events rather than UsageStatsManager queries.
+ *
+ * Counters are primitive arrays indexed per limited package. While a limited
+ * app is in the foreground, a single timer is armed for its next threshold
+ * (the 80% warning or the limit itself), so no polling is needed.
+ */
+public final class UsageLimitEngine {
+
+    private static final double WARNING_FRACTION = 0.8;
+
+    public interface Listener {
+        void onLimitWarning(String packageName, long remainingMs);
+
+        void onLimitReached(String packageName);
+    }
+
+    public interface Scheduler {
+        void schedule(Runnable task, long delayMs);
+
+        void cancel(Runnable task);
+    }
+
+    private final Clock clock;
+    private final Scheduler scheduler;
+    private final Listener listener;
+
+    private final Map<String, Integer> indexByPackage = new HashMap<>();
+    private String[] packages = new String[0];
+    private long[] budgetMs = new long[0];
+    private long[] usedMs = new long[0];
+    private boolean[] warned = new boolean[0];
+    private boolean[] reached = new boolean[0];
+
+    private int foreground = -1;
+    private long foregroundSince;
+    private long dayStart;
+
+    private final Runnable checkTask = this::onCheck;
+
+    public UsageLimitEngine(Clock clock, Scheduler scheduler, Listener listener) {
+        this.clock = clock;
+        this.scheduler = scheduler;
+        this.listener = listener;
+        this.dayStart = UsageEngine.startOfDay(clock.currentTimeMillis());
+    }
+
+    /** Replaces the limits, keeping today's usage for packages that stay limited. */
+    public synchronized void setLimits(Map<String, Long> limits) {
+        String current = foreground >= 0 ? packages[foreground] : null;
+        accumulate();
+
+        Map<String, Long> previousUsage = getUsage();
+
+        indexByPackage.clear();
+        int count = limits.size();
+        packages = new String[count];
+        budgetMs = new long[count];
+        usedMs = new long[count];
+        warned = new boolean[count];
+        reached = new boolean[count];
+
+        int i = 0;
+        for (Map.Entry<String, Long> limit : limits.entrySet()) {
+            packages[i] = limit.getKey();
+            budgetMs[i] = limit.getValue();
+            Long used = previousUsage.get(limit.getKey());
+            if (used != null) {
+                usedMs[i] = used;
+            }
+            updateFlags(i);
+            indexByPackage.put(limit.getKey(), i);
+            i++;
+        }
+
+        foreground = -1;
+        onForegroundChanged(current);
+    }
+
+    /** Restores persisted counters; ignored if they belong to another day. */
+    public synchronized void restoreUsage(long usageDayStart, Map<String, Long> used) {
+        if (usageDayStart != dayStart) return;
+
+        for (Map.Entry<String, Long> entry : used.entrySet()) {
+            Integer index = indexByPackage.get(entry.getKey());
+            if (index != null) {
+                usedMs[index] = entry.getValue();
+                updateFlags(index);
+            }
+        }
+    }
+
+    public synchronized boolean isLimitReached(String packageName) {
+        Integer index = indexByPackage.get(packageName);
+        return index != null && reached[index];
+    }
+
+    /**
+     * Called when a different app comes to the foreground, or with null when
+     * nothing is in use (screen off).
+     */
+    public synchronized void onForegroundChanged(String packageName) {
+        accumulate();
+
+        Integer index = packageName != null ? indexByPackage.get(packageName) : null;
+        foreground = index != null ? index : -1;
+        foregroundSince = clock.elapsedRealtime();
+
+        scheduler.cancel(checkTask);
+        if (foreground >= 0) {
+            armCheck();
+        }
+    }
+
+    public synchronized long getDayStart() {
+        return dayStart;
+    }
+
+    /** Today's used time per limited package, including the running session. */
+    public synchronized Map<String, Long> getUsage() {
+        accumulate();
+
+        Map<String, Long> usage = new HashMap<>();
+        for (int i = 0; i < packages.length; i++) {
+            usage.put(packages[i], usedMs[i]);
+        }
+        return usage;
+    }
+
+    private void onCheck() {
+        String warnPackage = null;
+        long remaining = 0;
+        String reachedPackage = null;
+
+        synchronized (this) {
+            accumulate();
+            if (foreground < 0) return;
+
+            int i = foreground;
+            boolean wasWarned = warned[i];
+            boolean wasReached = reached[i];
+            updateFlags(i);
+
+            if (reached[i] && !wasReached) {
+                reachedPackage = packages[i];
+            } else if (warned[i] && !wasWarned) {
+                warnPackage = packages[i];
+                remaining = budgetMs[i] - usedMs[i];
+            }
+            if (!reached[i]) {
+                armCheck();
+            }
+        }
+
+        // Call out without holding the lock
+        if (reachedPackage != null) {
+            listener.onLimitReached(reachedPackage);
+        } else if (warnPackage != null) {
+            listener.onLimitWarning(warnPackage, remaining);
+        }
+    }
+
+    private void armCheck() {
+        scheduler.cancel(checkTask);
+        int i = foreground;
+        long warnAt = (long) (budgetMs[i] * WARNING_FRACTION);
+        long next = !warned[i] ? warnAt : budgetMs[i];
+        if (reached[i]) return;
+
+        scheduler.schedule(checkTask, Math.max(0, next - usedMs[i]));
+    }
+
+    // Adds the running session to its counter and handles the day rolling over
+    private void accumulate() {
+        long now = clock.elapsedRealtime();
+        long elapsed = now - foregroundSince;
+        foregroundSince = now;
+
+        long wallNow = clock.currentTimeMillis();
+        long today = UsageEngine.startOfDay(wallNow);
+        if (today == dayStart) {
+            if (foreground >= 0) usedMs[foreground] += elapsed;
+            return;
+        }
+
+        dayStart = today;
+        for (int i = 0; i < packages.length; i++) {
+            usedMs[i] = 0;
+            warned[i] = false;
+            reached[i] = false;
+        }
+        if (foreground >= 0) {
+            // Only the part of the session after midnight counts for today
+            usedMs[foreground] = Math.max(0, Math.min(elapsed, wallNow - today));
+            updateFlags(foreground);
+            armCheck();
+        }
+    }
+
+    private void updateFlags(int i) {
+        warned[i] = usedMs[i] >= (long) (budgetMs[i] * WARNING_FRACTION);
+        reached[i] = usedMs[i] >= budgetMs[i];
+    }
+}
@@ -0,0 +1,121 @@
+package com.minimalistlauncher;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Filters, ranks and pages usage records before anything is bridged to JS.
+ *
+ * Pages use keyset cursors ("rank:sortValue:packageName"), so a cursor stays
+ * valid when the underlying numbers are refreshed between pages.
+ */
+public final class UsageQuery {
+
+    public static final String SORT_FOREGROUND = "foreground";
+    public static final String SORT_LAST_USED = "lastUsed";
+
+    public static final class Page {
+        public final List<UsageEngine.UsageRecord> entries;
+        public final String nextCursor;
+        public final int matchedCount;
+        public final long totalForegroundMs;
+
+        Page(List<UsageEngine.UsageRecord> entries, String nextCursor,
+             int matchedCount, long totalForegroundMs) {
+            this.entries = entries;
+            this.nextCursor = nextCursor;
+            this.matchedCount = matchedCount;
+            this.totalForegroundMs = totalForegroundMs;
+        }
+    }
+
+    private long minForegroundMs = 0;
+    private int topN = Integer.MAX_VALUE;
+    private int pageSize = 50;
+    private String sortBy = SORT_FOREGROUND;
+    private String cursor;
+
+    public UsageQuery setMinForegroundMs(long minForegroundMs) {
+        this.minForegroundMs = minForegroundMs;
+        return this;
+    }
+
+    public UsageQuery setTopN(int topN) {
+        this.topN = topN;
+        return this;
+    }
+
+    public UsageQuery setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    public UsageQuery setSortBy(String sortBy) {
+        this.sortBy = SORT_LAST_USED.equals(sortBy) ? SORT_LAST_USED : SORT_FOREGROUND;
+        return this;
+    }
+
+    public UsageQuery setCursor(String cursor) {
+        this.cursor = cursor;
+        return this;
+    }
+
+    public Page run(Collection<UsageEngine.UsageRecord> records) {
+        List<UsageEngine.UsageRecord> matched = new ArrayList<>();
+        long totalForegroundMs = 0;
+        for (UsageEngine.UsageRecord record : records) {
+            if (record.totalTimeInForeground < minForegroundMs) continue;
+            // System packages report zero foreground time; never send those
+            if (record.totalTimeInForeground <= 0 && SORT_FOREGROUND.equals(sortBy)) continue;
+            matched.add(record);
+            totalForegroundMs += record.totalTimeInForeground;
+        }
+
+        // Descending by the sort value, then by package name for a total order
+        Comparator<UsageEngine.UsageRecord> order = (a, b) -> {
+            int bySort = Long.compare(sortValue(b), sortValue(a));
+            return bySort != 0 ? bySort : a.packageName.compareTo(b.packageName);
+        };
+        Collections.sort(matched, order);
+
+        int limit = Math.min(matched.size(), topN);
+        int rank = 0;
+        int start = 0;
+        if (cursor != null) {
+            String[] parts = cursor.split(":", 3);
+            rank = Integer.parseInt(parts[0]);
+            long afterValue = Long.parseLong(parts[1]);
+            String afterPackage = parts[2];
+
+            // First record that sorts strictly after the cursor
+            while (start < limit) {
+                UsageEngine.UsageRecord record = matched.get(start);
+                long value = sortValue(record);
+                if (value < afterValue ||
+                    (value == afterValue && record.packageName.compareTo(afterPackage) > 0)) {
+                    break;
+                }
+                start++;
+            }
+        }
+
+        int end = Math.min(limit, start + pageSize);
+        end = Math.min(end, start + Math.max(0, topN - rank));
+        List<UsageEngine.UsageRecord> entries = new ArrayList<>(matched.subList(start, end));
+
+        String nextCursor = null;
+        if (end < limit && !entries.isEmpty()) {
+            UsageEngine.UsageRecord last = entries.get(entries.size() - 1);
+            nextCursor = (rank + entries.size()) + ":" + sortValue(last) + ":" + last.packageName;
+        }
+
+        return new Page(entries, nextCursor, Math.min(matched.size(), topN), totalForegroundMs);
+    }
+
+    private long sortValue(UsageEngine.UsageRecord record) {
+        return SORT_LAST_USED.equals(sortBy) ? record.lastTimeUsed : record.totalTimeInForeground;
+    }
+}
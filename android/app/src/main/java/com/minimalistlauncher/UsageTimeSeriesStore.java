@@ -0,0 +1,317 @@
+package com.minimalistlauncher;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Append-only history of foreground time per app and hour, one segment per
+ * sealed day, with daily, weekly and monthly rollups for range queries.
+ */
+public final class UsageTimeSeriesStore {
+
+    private static final int SEGMENT_MAGIC = 0x55545331; // "UTS1"
+    private static final String SEGMENT_DIR = "usage_ts";
+    private static final String ROLLUP_FILE = "rollups.bin";
+    private static final String ID_FILE = "package_ids.bin";
+
+    static final int PERIOD_DAY = 0;
+    static final int PERIOD_WEEK = 1;
+    static final int PERIOD_MONTH = 2;
+
+    /** Foreground totals per interned package for one period. */
+    static final class Rollup {
+        final int[] packageIds;
+        final long[] foregroundMs;
+
+        Rollup(int[] packageIds, long[] foregroundMs) {
+            this.packageIds = packageIds;
+            this.foregroundMs = foregroundMs;
+        }
+    }
+
+    private final File dir;
+    private final PackageIdTable packageIds;
+
+    // Period start -> rollup, one map per period kind
+    private final List<TreeMap<Long, Rollup>> rollups = Arrays.asList(
+        new TreeMap<Long, Rollup>(), new TreeMap<Long, Rollup>(), new TreeMap<Long, Rollup>());
+
+    public UsageTimeSeriesStore(File filesDir) {
+        this.dir = new File(filesDir, SEGMENT_DIR);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        this.packageIds = new PackageIdTable(new File(dir, ID_FILE));
+        loadRollups();
+    }
+
+    public PackageIdTable getPackageIds() {
+        return packageIds;
+    }
+
+    /** Start of the last day that has been sealed, or -1 if none has. */
+    public synchronized long lastSealedDay() {
+        return rollups.get(PERIOD_DAY).isEmpty() ? -1 : rollups.get(PERIOD_DAY).lastKey();
+    }
+
+    /**
+     * Writes the segment for a finished day and its rollups. Days are sealed
+     * once, in order; sealing a day again is ignored. Throws, with nothing
+     * written, if a new package can't be interned.
+     */
+    public synchronized void sealDay(long dayStart, Map<String, UsageEventIngestor.AppDay> day)
+            throws IOException {
+        if (dayStart <= lastSealedDay()) return;
+
+        int rows = 0;
+        if (day != null) {
+            for (UsageEventIngestor.AppDay appDay : day.values()) {
+                for (long ms : appDay.foregroundMs) {
+                    if (ms > 0) rows++;
+                }
+            }
+        }
+
+        byte[] hours = new byte[rows];
+        int[] ids = new int[rows];
+        int[] millis = new int[rows];
+        Map<Integer, Long> dailyTotals = new HashMap<>();
+
+        // Columns are written hour-major so a day reads back in time order
+        int row = 0;
+        if (day != null) {
+            for (int hour = 0; hour < UsageEventIngestor.HOURS_PER_DAY; hour++) {
+                for (Map.Entry<String, UsageEventIngestor.AppDay> entry : day.entrySet()) {
+                    long ms = entry.getValue().foregroundMs[hour];
+                    if (ms <= 0) continue;
+
+                    int id = packageIds.intern(entry.getKey());
+                    hours[row] = (byte) hour;
+                    ids[row] = id;
+                    millis[row] = (int) ms;
+                    row++;
+
+                    Long total = dailyTotals.get(id);
+                    dailyTotals.put(id, (total != null ? total : 0) + ms);
+                }
+            }
+        }
+
+        writeSegment(dayStart, hours, ids, millis);
+
+        Rollup daily = toRollup(dailyTotals);
+        appendRollup(PERIOD_DAY, dayStart, daily);
+
+        long nextDay = UsageEventIngestor.nextDayStart(dayStart);
+        long weekStart = weekStart(dayStart);
+        if (weekStart(nextDay) != weekStart) {
+            appendRollup(PERIOD_WEEK, weekStart, sumDaily(weekStart, nextDay));
+        }
+        long monthStart = monthStart(dayStart);
+        if (monthStart(nextDay) != monthStart) {
+            appendRollup(PERIOD_MONTH, monthStart, sumDaily(monthStart, nextDay));
+        }
+    }
+
+    /**
+     * Foreground time per package between two day starts (end exclusive),
+     * built from monthly, weekly and daily rollups in that order of preference.
+     */
+    public synchronized Map<String, Long> queryRange(long startDay, long endDay) {
+        long[] totals = new long[packageIds.size()];
+
+        long day = startDay;
+        while (day < endDay) {
+            Rollup month = rollups.get(PERIOD_MONTH).get(day);
+            if (month != null) {
+                long next = nextMonthStart(day);
+                if (next <= endDay) {
+                    add(totals, month);
+                    day = next;
+                    continue;
+                }
+            }
+
+            Rollup week = rollups.get(PERIOD_WEEK).get(day);
+            if (week != null) {
+                long next = nextWeekStart(day);
+                if (next <= endDay) {
+                    add(totals, week);
+                    day = next;
+                    continue;
+                }
+            }
+
+            Rollup daily = rollups.get(PERIOD_DAY).get(day);
+            if (daily != null) {
+                add(totals, daily);
+            }
+            day = UsageEventIngestor.nextDayStart(day);
+        }
+
+        Map<String, Long> result = new HashMap<>();
+        for (int id = 0; id < totals.length; id++) {
+            if (totals[id] > 0) {
+                result.put(packageIds.nameOf(id), totals[id]);
+            }
+        }
+        return result;
+    }
+
+    private void writeSegment(long dayStart, byte[] hours, int[] ids, int[] millis) {
+        int rows = hours.length;
+        ByteBuffer buffer = ByteBuffer.allocate(16 + rows * 9);
+        buffer.putInt(SEGMENT_MAGIC);
+        buffer.putLong(dayStart);
+        buffer.putInt(rows);
+        buffer.put(hours);
+        for (int id : ids) buffer.putInt(id);
+        for (int ms : millis) buffer.putInt(ms);
+
+        File file = segmentFile(dayStart);
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(buffer.array());
+            out.getFD().sync();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+        }
+    }
+
+    private File segmentFile(long dayStart) {
+        return new File(dir, "day-" + dayStart + ".seg");
+    }
+
+    private Rollup sumDaily(long fromDay, long toDay) {
+        Map<Integer, Long> totals = new HashMap<>();
+        for (Rollup daily : rollups.get(PERIOD_DAY).subMap(fromDay, true, toDay, false).values()) {
+            for (int i = 0; i < daily.packageIds.length; i++) {
+                Long total = totals.get(daily.packageIds[i]);
+                totals.put(daily.packageIds[i], (total != null ? total : 0) + daily.foregroundMs[i]);
+            }
+        }
+        return toRollup(totals);
+    }
+
+    private static Rollup toRollup(Map<Integer, Long> totals) {
+        int[] ids = new int[totals.size()];
+        int i = 0;
+        for (int id : totals.keySet()) ids[i++] = id;
+        Arrays.sort(ids);
+
+        long[] ms = new long[ids.length];
+        for (i = 0; i < ids.length; i++) ms[i] = totals.get(ids[i]);
+        return new Rollup(ids, ms);
+    }
+
+    private static void add(long[] totals, Rollup rollup) {
+        for (int i = 0; i < rollup.packageIds.length; i++) {
+            totals[rollup.packageIds[i]] += rollup.foregroundMs[i];
+        }
+    }
+
+    private void appendRollup(int period, long periodStart, Rollup rollup) {
+        rollups.get(period).put(periodStart, rollup);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(new File(dir, ROLLUP_FILE), true)))) {
+            out.writeByte(period);
+            out.writeLong(periodStart);
+            out.writeInt(rollup.packageIds.length);
+            for (int i = 0; i < rollup.packageIds.length; i++) {
+                out.writeInt(rollup.packageIds[i]);
+                out.writeLong(rollup.foregroundMs[i]);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void loadRollups() {
+        File file = new File(dir, ROLLUP_FILE);
+        if (!file.exists()) return;
+
+        long goodLength = 0;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                int period = in.readByte();
+                long periodStart = in.readLong();
+                int count = in.readInt();
+                int[] ids = new int[count];
+                long[] ms = new long[count];
+                for (int i = 0; i < count; i++) {
+                    ids[i] = in.readInt();
+                    ms[i] = in.readLong();
+                }
+                if (period >= 0 && period < rollups.size()) {
+                    rollups.get(period).put(periodStart, new Rollup(ids, ms));
+                }
+                goodLength += 13 + count * 12L;
+            }
+        } catch (EOFException e) {
+            // End of log
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        // Drop a row torn by a crash so later appends stay readable
+        if (goodLength < file.length()) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(goodLength);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // ISO weeks, starting on Monday whatever the locale, so rollup keys
+    // don't move when the user changes locale
+    static long weekStart(long time) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(UsageEngine.startOfDay(time));
+        int offset = (calendar.get(Calendar.DAY_OF_WEEK) - Calendar.MONDAY + 7) % 7;
+        calendar.add(Calendar.DAY_OF_MONTH, -offset);
+        return calendar.getTimeInMillis();
+    }
+
+    static long nextWeekStart(long weekStart) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(weekStart);
+        calendar.add(Calendar.DAY_OF_MONTH, 7);
+        return calendar.getTimeInMillis();
+    }
+
+    static long monthStart(long time) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(UsageEngine.startOfDay(time));
+        calendar.set(Calendar.DAY_OF_MONTH, 1);
+        return calendar.getTimeInMillis();
+    }
+
+    static long nextMonthStart(long monthStart) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(monthStart);
+        calendar.add(Calendar.MONTH, 1);
+        return calendar.getTimeInMillis();
+    }
+}
@@ -0,0 +1,168 @@
+package com.minimalistlauncher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+public class AppCatalogTest {
+
+    // Written as escapes so the file reads the same under any source encoding
+    private static final String AERZTE = "\u00c4rzte";
+    private static final String AALAND = "\u00c5land";
+    private static final String OESTERREICH = "\u00d6sterreich";
+    private static final String ECOLE = "\u00e9cole";
+    private static final String EDITEUR = "\u00c9diteur";
+    private static final String AME = "\u3042\u3081";
+    private static final String KASA = "\u304b\u3055";
+    private static final String KAMERA = "\u30ab\u30e1\u30e9";
+    private static final String SAKURA = "\u3055\u304f\u3089";
+    private static final String BEIJING = "\u5317\u4eac";
+    private static final String DITU = "\u5730\u56fe";
+    private static final String YINYUE = "\u97f3\u4e50";
+
+    @Test
+    public void accentedLabelsSortWithTheirBaseLetter() {
+        List<String> sorted = sortedNames(Locale.GERMAN, "Zoom", ECOLE, "Ecran", AERZTE,
+            "apple", "Apotheke", "Banking", OESTERREICH, "Ozon", EDITEUR, "edit");
+
+        assertEquals(Arrays.asList("Apotheke", "apple", AERZTE, "Banking", ECOLE, "Ecran",
+            "edit", EDITEUR, OESTERREICH, "Ozon", "Zoom"), sorted);
+    }
+
+    @Test
+    public void swedishSortsItsOwnLettersAfterZ() {
+        List<String> sorted = sortedNames(new Locale("sv"), AALAND, "Zoom", AERZTE,
+            "Apotheke", OESTERREICH, "Ozon");
+
+        assertEquals(Arrays.asList("Apotheke", "Ozon", "Zoom", AALAND, AERZTE, OESTERREICH),
+            sorted);
+    }
+
+    @Test
+    public void cjkLabelsSortAfterLatinInReadingOrder() {
+        assertEquals(Arrays.asList("apple", "Zoom", AME, KASA, KAMERA, SAKURA),
+            sortedNames(Locale.JAPANESE, SAKURA, "Zoom", KAMERA, AME, "apple", KASA));
+
+        assertEquals(Arrays.asList("apple", "Zoom", BEIJING, DITU, YINYUE),
+            sortedNames(Locale.SIMPLIFIED_CHINESE, YINYUE, "Zoom", DITU, "apple", BEIJING));
+    }
+
+    @Test
+    public void sameLabelsAreOrderedByPackage() {
+        Collator collator = AppCatalog.newCollator(Locale.ENGLISH);
+        List<AppCatalog.Entry> entries = new ArrayList<>(Arrays.asList(
+            entry(collator, "com.example.b", "Mail", 0),
+            entry(collator, "com.example.a", "mail", 0)));
+
+        AppCatalog.Snapshot snapshot = AppCatalog.build(1, entries, bucket -> "M");
+
+        assertEquals("com.example.a", snapshot.entries.get(0).packageName);
+        assertEquals("com.example.b", snapshot.entries.get(1).packageName);
+    }
+
+    @Test
+    public void sectionsStartWhereTheLabelChanges() {
+        Collator collator = AppCatalog.newCollator(Locale.GERMAN);
+        String[] labels = {"A", "A", "B", "E"};
+        // A with umlaut has its own bucket that shares A's label, as in the German index
+        List<AppCatalog.Entry> entries = new ArrayList<>(Arrays.asList(
+            entry(collator, "com.example.banking", "Banking", 2),
+            entry(collator, "com.example.aerzte", AERZTE, 1),
+            entry(collator, "com.example.apotheke", "Apotheke", 0),
+            entry(collator, "com.example.ecran", "Ecran", 3),
+            entry(collator, "com.example.ecole", ECOLE, 3),
+            entry(collator, "com.example.bahn", "Bahn", 2)));
+
+        AppCatalog.Snapshot snapshot = AppCatalog.build(1, entries, bucket -> labels[bucket]);
+
+        assertEquals(3, snapshot.sections.size());
+        assertSection("A", 0, snapshot.sections.get(0));
+        assertSection("B", 2, snapshot.sections.get(1));
+        assertSection("E", 4, snapshot.sections.get(2));
+        assertEquals("Bahn", snapshot.entries.get(2).appName);
+        assertEquals(ECOLE, snapshot.entries.get(4).appName);
+    }
+
+    @Test
+    public void keyedSortBenchmark() {
+        Collator collator = AppCatalog.newCollator(Locale.GERMAN);
+        String[] syllables = {
+            "ka", "l\u00e4", "mo", "N\u00fc", "pi", "r\u00e9", "So", "to", "Ve", "z\u00f6"
+        };
+        Random random = new Random(42);
+        List<AppCatalog.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder name = new StringBuilder();
+            for (int j = 0; j < 4; j++) {
+                name.append(syllables[random.nextInt(syllables.length)]);
+            }
+            entries.add(entry(collator, "com.example.app" + i, name.toString(), 0));
+        }
+
+        long keyed = bestOf(() -> AppCatalog.build(1, new ArrayList<>(entries), bucket -> "#"));
+        long collated = bestOf(() -> {
+            List<AppCatalog.Entry> copy = new ArrayList<>(entries);
+            Collections.sort(copy, (a, b) -> collator.compare(a.appName, b.appName));
+        });
+        long naive = bestOf(() -> {
+            List<AppCatalog.Entry> copy = new ArrayList<>(entries);
+            Collections.sort(copy, (a, b) -> a.appName.compareTo(b.appName));
+        });
+        System.out.printf("2000 labels: collation keys %d us, Collator.compare %d us, "
+            + "String.compareTo %d us%n", keyed / 1000, collated / 1000, naive / 1000);
+
+        // compareTo is cheaper but puts lowercase and accented names in the wrong place
+        List<AppCatalog.Entry> keyedOrder =
+            AppCatalog.build(1, new ArrayList<>(entries), bucket -> "#").entries;
+        List<AppCatalog.Entry> naiveOrder = new ArrayList<>(entries);
+        Collections.sort(naiveOrder, (a, b) -> a.appName.compareTo(b.appName));
+        assertNotEquals(keyedOrder, naiveOrder);
+        // Keys are built once per entry, so sorting with them beats collating each comparison
+        assertTrue(keyed < collated);
+    }
+
+    private static long bestOf(Runnable sort) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 20; i++) {
+            long start = System.nanoTime();
+            sort.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private static List<String> sortedNames(Locale locale, String... names) {
+        Collator collator = AppCatalog.newCollator(locale);
+        List<AppCatalog.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            entries.add(entry(collator, "com.example.app" + i, names[i], 0));
+        }
+
+        List<String> sorted = new ArrayList<>();
+        for (AppCatalog.Entry entry : AppCatalog.build(1, entries, bucket -> "#").entries) {
+            sorted.add(entry.appName);
+        }
+        return sorted;
+    }
+
+    private static AppCatalog.Entry entry(Collator collator, String packageName, String appName,
+                                          int bucket) {
+        return new AppCatalog.Entry(packageName, "MainActivity", appName, 1, true,
+            collator.getCollationKey(appName), bucket);
+    }
+
+    private static void assertSection(String label, int offset, AppCatalog.Section section) {
+        assertEquals(label, section.label);
+        assertEquals(offset, section.offset);
+    }
+}
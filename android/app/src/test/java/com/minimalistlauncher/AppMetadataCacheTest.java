@@ -0,0 +1,114 @@
+package com.minimalistlauncher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class AppMetadataCacheTest {
+
+    private static final int APPS = 20;
+    // Room for every label with a little to spare
+    private static final int MAX_BYTES = 4096;
+
+    private final List<String> loaded = new ArrayList<>();
+
+    private final AppMetadataCache.Loader loader = new AppMetadataCache.Loader() {
+        @Override
+        public long lastUpdateTime(String packageName) {
+            return 1;
+        }
+
+        @Override
+        public String applicationLabel(String packageName) {
+            loaded.add(packageName);
+            return "Label " + packageName.substring(packageName.length() - 2);
+        }
+
+        @Override
+        public Bitmap icon(String packageName, int sizePx) {
+            return null;
+        }
+    };
+
+    private AppMetadataCache filledCache() {
+        AppMetadataCache cache = new AppMetadataCache(loader, MAX_BYTES);
+        for (int i = 0; i < APPS; i++) {
+            cache.getLabel(packageName(i), 1);
+        }
+        loaded.clear();
+        return cache;
+    }
+
+    @Test
+    public void moderateRunningTrimKeepsEverything() {
+        AppMetadataCache cache = filledCache();
+        int size = cache.getSizeBytes();
+
+        cache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+
+        assertEquals(size, cache.getSizeBytes());
+        assertEquals(0, cache.getEvictionCount());
+    }
+
+    @Test
+    public void lowAndHiddenTrimsHalveTheCacheKeepingRecentApps() {
+        int[] levels = {
+            ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW,
+            ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN,
+            ComponentCallbacks2.TRIM_MEMORY_BACKGROUND,
+        };
+        for (int level : levels) {
+            AppMetadataCache cache = filledCache();
+
+            cache.onTrimMemory(level);
+
+            assertTrue(cache.getSizeBytes() <= MAX_BYTES / 2);
+            assertTrue(cache.getSizeBytes() > 0);
+            // The most recently read label survives, the oldest is reloaded
+            cache.getLabel(packageName(APPS - 1), 1);
+            assertTrue(loaded.isEmpty());
+            cache.getLabel(packageName(0), 1);
+            assertEquals(1, loaded.size());
+            loaded.clear();
+        }
+    }
+
+    @Test
+    public void criticalAndBackgroundTrimsEmptyTheCache() {
+        int[] levels = {
+            ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL,
+            ComponentCallbacks2.TRIM_MEMORY_MODERATE,
+            ComponentCallbacks2.TRIM_MEMORY_COMPLETE,
+        };
+        for (int level : levels) {
+            AppMetadataCache cache = filledCache();
+
+            cache.onTrimMemory(level);
+
+            assertEquals(0, cache.getSizeBytes());
+            assertEquals(APPS, cache.getEvictionCount());
+        }
+    }
+
+    @Test
+    public void lowMemoryEmptiesTheCache() {
+        AppMetadataCache cache = filledCache();
+
+        cache.onLowMemory();
+
+        assertEquals(0, cache.getSizeBytes());
+        cache.getLabel(packageName(3), 1);
+        assertEquals(1, loaded.size());
+    }
+
+    private static String packageName(int i) {
+        return String.format("com.example.app%02d", i);
+    }
+}
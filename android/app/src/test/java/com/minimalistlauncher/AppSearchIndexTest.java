@@ -0,0 +1,131 @@
+package com.minimalistlauncher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class AppSearchIndexTest {
+
+    private AppCatalog.Snapshot snapshot;
+    private final List<String> found = new ArrayList<>();
+    private final AppSearchIndex.ResultConsumer collect = (entry, score) -> found.add(entry.appName);
+
+    private AppSearchIndex newIndex(String... labels) {
+        setLabels(1, Arrays.asList(labels));
+        return new AppSearchIndex(() -> snapshot);
+    }
+
+    private void setLabels(long version, List<String> labels) {
+        List<AppCatalog.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < labels.size(); i++) {
+            entries.add(new AppCatalog.Entry("com.example.app" + i, "MainActivity",
+                labels.get(i), 1, true, null, 0));
+        }
+        snapshot = new AppCatalog.Snapshot(version, entries,
+            Collections.<AppCatalog.Section>emptyList());
+    }
+
+    @Test
+    public void prefixBeatsWordPrefixBeatsSubstringBeatsSubsequence() {
+        AppSearchIndex index = newIndex("Camera", "Google Maps", "Maps", "Smart Launcher");
+
+        assertEquals(4, index.search("ma", 10, collect));
+        assertEquals(Arrays.asList("Maps", "Google Maps", "Smart Launcher", "Camera"), found);
+
+        found.clear();
+        assertEquals(1, index.search("gmps", 10, collect));
+        assertEquals(Collections.singletonList("Google Maps"), found);
+    }
+
+    @Test
+    public void accentsAndCaseAreFolded() {
+        AppSearchIndex index = newIndex("Caf\u00e9 Finder", "Calendar");
+
+        index.search("CAFE", 10, collect);
+        index.search("caf\u00e9", 10, collect);
+
+        assertEquals(Arrays.asList("Caf\u00e9 Finder", "Caf\u00e9 Finder"), found);
+    }
+
+    @Test
+    public void limitKeepsTheBestMatches() {
+        AppSearchIndex index = newIndex("Notes", "No", "Nova Launcher", "Nonogram", "Snow");
+
+        assertEquals(2, index.search("no", 2, collect));
+        // Shorter labels win among prefix matches
+        assertEquals(Arrays.asList("No", "Notes"), found);
+    }
+
+    @Test
+    public void catalogChangesAreIndexed() {
+        AppSearchIndex index = newIndex("Maps");
+        assertEquals(0, index.search("mail", 10, collect));
+
+        setLabels(2, Arrays.asList("Maps", "Mail"));
+        assertEquals(1, index.search("mail", 10, collect));
+        assertEquals(Collections.singletonList("Mail"), found);
+    }
+
+    @Test
+    public void queryLatencyBenchmark() {
+        String[] words = {"Camera", "Maps", "Music", "Notes", "Photo", "Mail", "Chat", "Cloud",
+            "Fit", "Bank", "News", "Radio", "Weather", "Clock", "Files", "Games"};
+        Random random = new Random(3);
+        List<String> labels = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            labels.add(words[random.nextInt(words.length)] + " "
+                + words[random.nextInt(words.length)] + " " + i);
+        }
+
+        setLabels(1, labels);
+        AppSearchIndex index = new AppSearchIndex(() -> snapshot);
+        long buildStart = System.nanoTime();
+        index.search("x", 1, collect);
+        long buildNs = System.nanoTime() - buildStart;
+
+        // A new catalog version with the same apps reuses every normalized label
+        setLabels(2, labels);
+        long rebuildStart = System.nanoTime();
+        index.search("x", 1, collect);
+        long rebuildNs = System.nanoTime() - rebuildStart;
+
+        String[] queries = {"c", "ca", "cam", "came", "camera", "ms", "wthr", "zz", "app1"};
+        int[] results = {0};
+        AppSearchIndex.ResultConsumer count = (entry, score) -> results[0]++;
+        for (int warmup = 0; warmup < 200; warmup++) {
+            for (String query : queries) {
+                index.search(query, 20, count);
+            }
+        }
+
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        int rounds = 200;
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (String query : queries) {
+                index.search(query, 20, count);
+            }
+        }
+        long perQueryNs = (System.nanoTime() - start) / (rounds * queries.length);
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+
+        System.out.printf("1000 apps: build %d us, rebuild %d us, query %d us, %d bytes allocated "
+            + "over %d queries%n", buildNs / 1000, rebuildNs / 1000, perQueryNs / 1000, allocated,
+            rounds * queries.length);
+
+        assertTrue(results[0] > 0);
+        assertTrue(perQueryNs < 1000000);
+        assertEquals(0, allocated);
+    }
+}
@@ -0,0 +1,189 @@
+package com.minimalistlauncher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TimeZone;
+
+public class BlockScheduleTest {
+
+    private static final String MAIL = "com.example.mail";
+    private static final String MAPS = "com.example.maps";
+    private static final int[] WEEKDAYS = {1, 2, 3, 4, 5};
+
+    private TimeZone defaultZone;
+
+    @Before
+    public void setUp() {
+        defaultZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Europe/Berlin"));
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(defaultZone);
+    }
+
+    @Test
+    public void blocksDuringRuleOnly() {
+        BlockSchedule schedule = BlockSchedule.compile(Arrays.asList(
+            new BlockSchedule.Rule(packages(MAIL), WEEKDAYS, 9 * 60, 17 * 60)));
+
+        // 2026-10-19 is a Monday
+        assertFalse(schedule.isBlocked(MAIL, at(2026, Calendar.OCTOBER, 19, 8, 59)));
+        assertTrue(schedule.isBlocked(MAIL, at(2026, Calendar.OCTOBER, 19, 9, 0)));
+        assertTrue(schedule.isBlocked(MAIL, at(2026, Calendar.OCTOBER, 23, 16, 59)));
+        assertFalse(schedule.isBlocked(MAIL, at(2026, Calendar.OCTOBER, 19, 17, 0)));
+        assertFalse(schedule.isBlocked(MAIL, at(2026, Calendar.OCTOBER, 24, 12, 0)));
+        assertFalse(schedule.isBlocked(MAPS, at(2026, Calendar.OCTOBER, 19, 12, 0)));
+        assertEquals(packages(MAIL), schedule.getPackages());
+    }
+
+    @Test
+    public void saturdayNightRunsIntoSunday() {
+        BlockSchedule schedule = BlockSchedule.compile(Arrays.asList(
+            new BlockSchedule.Rule(packages(MAPS), new int[] {6}, 22 * 60, 2 * 60)));
+
+        assertTrue(schedule.isBlocked(MAPS, at(2026, Calendar.OCTOBER, 17, 23, 0)));
+        assertTrue(schedule.isBlocked(MAPS, at(2026, Calendar.OCTOBER, 18, 1, 0)));
+        assertFalse(schedule.isBlocked(MAPS, at(2026, Calendar.OCTOBER, 18, 2, 0)));
+        assertEquals(at(2026, Calendar.OCTOBER, 18, 2, 0),
+            schedule.nextTransition(at(2026, Calendar.OCTOBER, 17, 23, 0)));
+    }
+
+    @Test
+    public void overlappingRulesMerge() {
+        BlockSchedule schedule = BlockSchedule.compile(Arrays.asList(
+            new BlockSchedule.Rule(packages(MAIL), WEEKDAYS, 9 * 60, 12 * 60),
+            new BlockSchedule.Rule(packages(MAIL), WEEKDAYS, 11 * 60, 14 * 60)));
+
+        assertTrue(schedule.isBlocked(MAIL, at(2026, Calendar.OCTOBER, 19, 11, 30)));
+        assertTrue(schedule.isBlocked(MAIL, at(2026, Calendar.OCTOBER, 19, 13, 0)));
+        // The first rule ending at 12:00 changes nothing
+        assertEquals(at(2026, Calendar.OCTOBER, 19, 14, 0),
+            schedule.nextTransition(at(2026, Calendar.OCTOBER, 19, 10, 0)));
+    }
+
+    @Test
+    public void nextTransitionKeepsWallTimeAcrossDst() {
+        // Clocks go from 02:00 to 03:00 on Sunday 2026-03-29
+        BlockSchedule schedule = BlockSchedule.compile(Arrays.asList(
+            new BlockSchedule.Rule(packages(MAIL), new int[] {0}, 60, 4 * 60)));
+
+        long now = at(2026, Calendar.MARCH, 29, 1, 30);
+        assertTrue(schedule.isBlocked(MAIL, now));
+        assertEquals(at(2026, Calendar.MARCH, 29, 4, 0), schedule.nextTransition(now));
+        assertEquals(90 * 60000L, schedule.nextTransition(now) - now);
+    }
+
+    @Test
+    public void emptyScheduleNeverChanges() {
+        BlockSchedule schedule = BlockSchedule.compile(
+            Collections.<BlockSchedule.Rule>emptyList());
+
+        assertTrue(schedule.isEmpty());
+        assertFalse(schedule.isBlocked(MAIL, at(2026, Calendar.OCTOBER, 19, 12, 0)));
+        assertEquals(-1, schedule.nextTransition(at(2026, Calendar.OCTOBER, 19, 12, 0)));
+    }
+
+    @Test
+    public void thousandRuleLookupBenchmark() {
+        Random random = new Random(7);
+        List<BlockSchedule.Rule> rules = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            int[] days = {random.nextInt(7), random.nextInt(7)};
+            int start = random.nextInt(BlockSchedule.MINUTES_PER_DAY);
+            int end = (start + 1 + random.nextInt(BlockSchedule.MINUTES_PER_DAY - 1))
+                % BlockSchedule.MINUTES_PER_DAY;
+            rules.add(new BlockSchedule.Rule(
+                packages("com.example.app" + random.nextInt(200)), days, start, end));
+        }
+
+        long compileStart = System.nanoTime();
+        BlockSchedule schedule = BlockSchedule.compile(rules);
+        long compileNs = System.nanoTime() - compileStart;
+
+        long week = at(2026, Calendar.OCTOBER, 18, 0, 0);
+        int lookups = 20000;
+        long[] times = new long[lookups];
+        String[] names = new String[lookups];
+        for (int i = 0; i < lookups; i++) {
+            times[i] = week + random.nextInt(BlockSchedule.MINUTES_PER_WEEK) * 60000L;
+            names[i] = "com.example.app" + random.nextInt(200);
+        }
+
+        // The compiled timeline gives the same answers as checking every rule
+        for (int i = 0; i < lookups; i++) {
+            assertEquals(scanRules(rules, names[i], times[i]),
+                schedule.isBlocked(names[i], times[i]));
+        }
+
+        long compiled = bestOf(() -> {
+            for (int i = 0; i < lookups; i++) {
+                schedule.isBlocked(names[i], times[i]);
+            }
+        });
+        long scanned = bestOf(() -> {
+            for (int i = 0; i < lookups; i++) {
+                scanRules(rules, names[i], times[i]);
+            }
+        });
+        System.out.printf("1000 rules: compile %d us, lookup %d ns compiled, %d ns scanning%n",
+            compileNs / 1000, compiled / lookups, scanned / lookups);
+
+        assertTrue(compiled < scanned);
+    }
+
+    // Evaluates every rule per lookup, as a schedule without the timeline would
+    private static boolean scanRules(List<BlockSchedule.Rule> rules, String packageName,
+                                     long now) {
+        int minute = BlockSchedule.minuteOfWeek(now);
+        for (BlockSchedule.Rule rule : rules) {
+            if (!rule.packages.contains(packageName)) continue;
+            int length = rule.endMinute > rule.startMinute
+                ? rule.endMinute - rule.startMinute
+                : rule.endMinute - rule.startMinute + BlockSchedule.MINUTES_PER_DAY;
+            for (int day : rule.days) {
+                int from = day * BlockSchedule.MINUTES_PER_DAY + rule.startMinute;
+                if (Math.floorMod(minute - from, BlockSchedule.MINUTES_PER_WEEK) < length) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static long bestOf(Runnable run) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            run.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private static Set<String> packages(String... names) {
+        return new HashSet<>(Arrays.asList(names));
+    }
+
+    private static long at(int year, int month, int day, int hour, int minute) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month, day, hour, minute);
+        return calendar.getTimeInMillis();
+    }
+}
@@ -0,0 +1,97 @@
+package com.minimalistlauncher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class BlockingLatencyTest {
+
+    @Before
+    public void setUp() {
+        BlockingLatency.reset();
+    }
+
+    @After
+    public void tearDown() {
+        BlockingLatency.reset();
+    }
+
+    @Test
+    public void pathsAreTrackedSeparately() {
+        BlockingLatency.record(BlockingLatency.PATH_OVERLAY, 40);
+        BlockingLatency.record(BlockingLatency.PATH_OVERLAY, 90);
+        BlockingLatency.record(BlockingLatency.PATH_OVERLAY, 60);
+        BlockingLatency.record(BlockingLatency.PATH_ACTIVITY, 250);
+
+        Map<String, BlockingLatency.Stats> stats = BlockingLatency.getStats();
+        BlockingLatency.Stats overlay = stats.get(BlockingLatency.PATH_OVERLAY);
+        assertEquals(3, overlay.count);
+        assertEquals(190, overlay.totalMs);
+        assertEquals(90, overlay.maxMs);
+        assertEquals(60, overlay.lastMs);
+
+        BlockingLatency.Stats activity = stats.get(BlockingLatency.PATH_ACTIVITY);
+        assertEquals(1, activity.count);
+        assertEquals(250, activity.totalMs);
+        assertEquals(250, activity.maxMs);
+    }
+
+    @Test
+    public void statsAreACopy() {
+        BlockingLatency.record(BlockingLatency.PATH_OVERLAY, 40);
+        Map<String, BlockingLatency.Stats> before = BlockingLatency.getStats();
+
+        BlockingLatency.record(BlockingLatency.PATH_OVERLAY, 50);
+        BlockingLatency.record(BlockingLatency.PATH_ACTIVITY, 70);
+
+        assertEquals(1, before.size());
+        assertEquals(1, before.get(BlockingLatency.PATH_OVERLAY).count);
+        assertEquals(2, BlockingLatency.getStats().get(BlockingLatency.PATH_OVERLAY).count);
+    }
+
+    @Test
+    public void resetClearsEveryPath() {
+        BlockingLatency.record(BlockingLatency.PATH_OVERLAY, 40);
+        BlockingLatency.record(BlockingLatency.PATH_ACTIVITY, 70);
+
+        BlockingLatency.reset();
+
+        assertTrue(BlockingLatency.getStats().isEmpty());
+        BlockingLatency.record(BlockingLatency.PATH_ACTIVITY, 30);
+        assertEquals(1, BlockingLatency.getStats().get(BlockingLatency.PATH_ACTIVITY).count);
+        assertFalse(BlockingLatency.getStats().containsKey(BlockingLatency.PATH_OVERLAY));
+    }
+
+    @Test
+    public void concurrentRecordsAreAllCounted() throws InterruptedException {
+        // The overlay records on the service thread while the activity records on its own
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            String path = t % 2 == 0 ? BlockingLatency.PATH_OVERLAY : BlockingLatency.PATH_ACTIVITY;
+            Thread thread = new Thread(() -> {
+                for (int i = 1; i <= 1000; i++) {
+                    BlockingLatency.record(path, i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (BlockingLatency.Stats stats : BlockingLatency.getStats().values()) {
+            assertEquals(2000, stats.count);
+            assertEquals(2 * 500500, stats.totalMs);
+            assertEquals(1000, stats.maxMs);
+        }
+    }
+}
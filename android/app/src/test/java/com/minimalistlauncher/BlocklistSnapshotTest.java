@@ -0,0 +1,62 @@
+package com.minimalistlauncher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+public class BlocklistSnapshotTest {
+
+    private static final String MAIL = "com.example.mail";
+    private static final String MAPS = "com.example.maps";
+
+    @Test
+    public void blocksListedPackages() {
+        BlocklistSnapshot snapshot = new BlocklistSnapshot(3, set(MAIL), "Focus");
+
+        assertTrue(snapshot.isBlocked(MAIL));
+        assertFalse(snapshot.isBlocked(MAPS));
+        assertEquals(3, snapshot.getVersion());
+        assertEquals("Focus", snapshot.getReason());
+    }
+
+    @Test
+    public void allowlistBlocksEverythingElse() {
+        BlocklistSnapshot snapshot = new BlocklistSnapshot(1, set(MAIL), null, true);
+
+        assertFalse(snapshot.isBlocked(MAIL));
+        assertTrue(snapshot.isBlocked(MAPS));
+        assertEquals("", snapshot.getReason());
+    }
+
+    @Test
+    public void isNotChangedByItsSource() {
+        Set<String> source = set(MAIL);
+        BlocklistSnapshot snapshot = new BlocklistSnapshot(1, source, "Focus");
+        source.add(MAPS);
+
+        assertFalse(snapshot.isBlocked(MAPS));
+        try {
+            snapshot.getPackages().add(MAPS);
+            fail("packages should be read-only");
+        } catch (UnsupportedOperationException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void emptyBlocksNothing() {
+        assertFalse(BlocklistSnapshot.EMPTY.isBlocked(MAIL));
+        assertFalse(BlocklistSnapshot.EMPTY.isAllowlist());
+    }
+
+    private static Set<String> set(String... packages) {
+        return new HashSet<>(Arrays.asList(packages));
+    }
+}
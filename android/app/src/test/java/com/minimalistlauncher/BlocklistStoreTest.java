@@ -0,0 +1,329 @@
+package com.minimalistlauncher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+public class BlocklistStoreTest {
+
+    private static final String MAIL = "com.example.mail";
+    private static final String MAPS = "com.example.maps";
+    private static final String MUSIC = "com.example.music";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private BlocklistStore newStore() {
+        return new BlocklistStore(new File(folder.getRoot(), "blocklist.bin"), Runnable::run);
+    }
+
+    @Test
+    public void changesSurviveReload() {
+        BlocklistStore store = newStore();
+        store.add(MAIL, "Focus");
+        store.add(MAPS, null);
+        store.remove(MAIL);
+
+        BlocklistStore reloaded = newStore();
+        assertTrue(reloaded.load());
+        BlocklistSnapshot snapshot = reloaded.getSnapshot();
+        assertEquals(new HashSet<>(Arrays.asList(MAPS)), snapshot.getPackages());
+        assertEquals("Focus", snapshot.getReason());
+        assertEquals(store.getSnapshot().getVersion(), snapshot.getVersion());
+    }
+
+    @Test
+    public void snapshotIsReusedUntilAChange() {
+        BlocklistStore store = newStore();
+        store.add(MAIL, null);
+        BlocklistSnapshot first = store.getSnapshot();
+        assertSame(first, store.getSnapshot());
+
+        // Blocking an app that is already blocked changes nothing
+        store.add(MAIL, null);
+        assertSame(first, store.getSnapshot());
+
+        store.add(MAPS, null);
+        assertNotSame(first, store.getSnapshot());
+        assertEquals(first.getVersion() + 1, store.getSnapshot().getVersion());
+    }
+
+    @Test
+    public void allowlistSurvivesReload() {
+        BlocklistStore store = newStore();
+        store.setAllowed(Arrays.asList(MAIL), "Deep work");
+
+        BlocklistStore reloaded = newStore();
+        assertTrue(reloaded.load());
+        BlocklistSnapshot snapshot = reloaded.getSnapshot();
+        assertTrue(snapshot.isAllowlist());
+        assertFalse(snapshot.isBlocked(MAIL));
+        assertTrue(snapshot.isBlocked(MAPS));
+    }
+
+    @Test
+    public void readsBlocklistOnlyFormat() throws IOException {
+        File file = new File(folder.getRoot(), "blocklist.bin");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.writeInt(1);
+            out.writeLong(7);
+            out.writeUTF("Old reason");
+            out.writeInt(1);
+            out.writeUTF(MUSIC);
+        }
+
+        BlocklistStore store = newStore();
+        assertTrue(store.load());
+        BlocklistSnapshot snapshot = store.getSnapshot();
+        assertEquals(7, snapshot.getVersion());
+        assertFalse(snapshot.isAllowlist());
+        assertTrue(snapshot.isBlocked(MUSIC));
+        assertFalse(snapshot.isBlocked(MAIL));
+    }
+
+    @Test
+    public void deltaIsOneChange() {
+        BlocklistStore store = newStore();
+        store.add(MAIL, null);
+        long version = store.getSnapshot().getVersion();
+        List<BlocklistSnapshot> notified = new ArrayList<>();
+        store.addListener(notified::add);
+
+        long result = store.applyDelta(
+            Arrays.asList(MAPS, MUSIC), Arrays.asList(MAIL), "Focus", version);
+
+        assertEquals(version + 1, result);
+        assertEquals(1, notified.size());
+        BlocklistSnapshot snapshot = notified.get(0);
+        assertEquals(result, snapshot.getVersion());
+        assertEquals(new HashSet<>(Arrays.asList(MAPS, MUSIC)), snapshot.getPackages());
+        assertEquals("Focus", snapshot.getReason());
+
+        BlocklistStore reloaded = newStore();
+        assertTrue(reloaded.load());
+        assertEquals(snapshot.getPackages(), reloaded.getSnapshot().getPackages());
+        assertEquals(result, reloaded.getSnapshot().getVersion());
+    }
+
+    @Test
+    public void staleDeltaIsRejected() {
+        BlocklistStore store = newStore();
+        long version = store.applyDelta(Arrays.asList(MAIL), Collections.<String>emptyList(), null, -1);
+        store.add(MAPS, null);
+
+        assertEquals(-1, store.applyDelta(
+            Arrays.asList(MUSIC), Arrays.asList(MAIL), null, version));
+        assertEquals(new HashSet<>(Arrays.asList(MAIL, MAPS)), store.getSnapshot().getPackages());
+    }
+
+    @Test
+    public void emptyDeltaKeepsVersion() {
+        BlocklistStore store = newStore();
+        store.add(MAIL, "Focus");
+        long version = store.getSnapshot().getVersion();
+        List<BlocklistSnapshot> notified = new ArrayList<>();
+        store.addListener(notified::add);
+
+        assertEquals(version, store.applyDelta(
+            Arrays.asList(MAIL), Arrays.asList(MAPS), "Focus", version));
+        assertTrue(notified.isEmpty());
+    }
+
+    @Test
+    public void deltaMeansBlockAndUnblockInAllowlistMode() {
+        BlocklistStore store = newStore();
+        store.setAllowed(Arrays.asList(MAIL, MAPS), null);
+
+        // Blocking an allowed app takes it off the allowlist and vice versa
+        store.applyDelta(Arrays.asList(MAIL), Arrays.asList(MUSIC), null, -1);
+
+        BlocklistSnapshot snapshot = store.getSnapshot();
+        assertTrue(snapshot.isAllowlist());
+        assertTrue(snapshot.isBlocked(MAIL));
+        assertFalse(snapshot.isBlocked(MAPS));
+        assertFalse(snapshot.isBlocked(MUSIC));
+        assertTrue(snapshot.isBlocked("com.example.notes"));
+    }
+
+    @Test
+    public void overlappingDeltasFromManyThreadsAllLand() throws Exception {
+        BlocklistStore store = newStore();
+        store.add(MAIL, null);
+        long start = store.getSnapshot().getVersion();
+        List<BlocklistSnapshot> notified = Collections.synchronizedList(new ArrayList<>());
+        store.addListener(notified::add);
+
+        // Each thread blocks its own app and toggles the shared one, retrying when stale
+        int threads = 8;
+        int rounds = 50;
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String own = "com.example.app" + t;
+            Thread worker = new Thread(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int round = 0; round < rounds; round++) {
+                    while (true) {
+                        BlocklistSnapshot seen = store.getSnapshot();
+                        boolean mailBlocked = seen.isBlocked(MAIL);
+                        List<String> adds = new ArrayList<>();
+                        List<String> removes = new ArrayList<>();
+                        (round % 2 == 0 ? adds : removes).add(own);
+                        (mailBlocked ? removes : adds).add(MAIL);
+                        if (store.applyDelta(adds, removes, null, seen.getVersion()) >= 0) break;
+                    }
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        go.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        // Every delta toggles MAIL, so each one is a change with its own version
+        BlocklistSnapshot snapshot = store.getSnapshot();
+        assertEquals(start + threads * rounds, snapshot.getVersion());
+        assertEquals(threads * rounds, notified.size());
+        // An even number of toggles leaves MAIL as it started; every own app ends unblocked
+        assertEquals(new HashSet<>(Arrays.asList(MAIL)), snapshot.getPackages());
+
+        BlocklistStore reloaded = newStore();
+        assertTrue(reloaded.load());
+        assertEquals(snapshot.getPackages(), reloaded.getSnapshot().getPackages());
+        assertEquals(snapshot.getVersion(), reloaded.getSnapshot().getVersion());
+    }
+
+    @Test
+    public void truncatedFileIsNotLoadedAndKeepsWhatWasThere() throws IOException {
+        BlocklistStore store = newStore();
+        store.setAll(Arrays.asList(MAIL, MAPS, MUSIC), "Focus");
+        File file = new File(folder.getRoot(), "blocklist.bin");
+
+        BlocklistStore reloaded = newStore();
+        assertTrue(reloaded.load());
+        BlocklistSnapshot loaded = reloaded.getSnapshot();
+
+        // Cut the file off partway through the package names
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 5);
+        }
+        assertFalse(reloaded.load());
+        assertSame(loaded, reloaded.getSnapshot());
+
+        BlocklistStore fresh = newStore();
+        assertFalse(fresh.load());
+        assertEquals(0, fresh.getSnapshot().getVersion());
+        assertTrue(fresh.getSnapshot().getPackages().isEmpty());
+    }
+
+    @Test
+    public void tornTempFileDoesNotReplaceTheLastWrite() throws IOException {
+        BlocklistStore store = newStore();
+        store.add(MAIL, "Focus");
+        long version = store.getSnapshot().getVersion();
+
+        // A crash halfway through the next write leaves only a partial temp file
+        File temp = new File(folder.getRoot(), "blocklist.bin.tmp");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(temp))) {
+            out.writeInt(2);
+            out.writeLong(version + 1);
+        }
+
+        BlocklistStore reloaded = newStore();
+        assertTrue(reloaded.load());
+        assertEquals(version, reloaded.getSnapshot().getVersion());
+        assertEquals(Collections.singleton(MAIL), reloaded.getSnapshot().getPackages());
+
+        // The next write replaces the leftover
+        reloaded.add(MAPS, null);
+        assertFalse(temp.exists());
+        BlocklistStore again = newStore();
+        assertTrue(again.load());
+        assertEquals(new HashSet<>(Arrays.asList(MAIL, MAPS)), again.getSnapshot().getPackages());
+    }
+
+    @Test
+    public void failedWriteLeavesThePreviousFile() {
+        BlocklistStore store = newStore();
+        store.add(MAIL, "Focus");
+        long version = store.getSnapshot().getVersion();
+
+        // The temp file cannot be created, so the write fails before any rename
+        File temp = new File(folder.getRoot(), "blocklist.bin.tmp");
+        assertTrue(temp.mkdir());
+        store.add(MAPS, null);
+
+        BlocklistStore reloaded = newStore();
+        assertTrue(reloaded.load());
+        assertEquals(version, reloaded.getSnapshot().getVersion());
+        assertEquals(Collections.singleton(MAIL), reloaded.getSnapshot().getPackages());
+    }
+
+    @Test
+    public void windowEventsNeverParseTheList() {
+        BlocklistStore writer = newStore();
+        writer.setAllowed(Arrays.asList(MAIL), "Focus");
+
+        BlocklistStore store = newStore();
+        assertTrue(store.load());
+        FocusExemptions exemptions = new FocusExemptions(Collections.<String>emptySet(),
+            packageName -> true, packageName -> true);
+        BlocklistSnapshot first = store.getSnapshot();
+        int parses = store.getParseCount();
+
+        // The same lookup AppBlockingService makes for each window change
+        String[] packages = {MAIL, MAPS, MUSIC, "com.android.systemui"};
+        int blocked = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (exemptions.blocks(store.getSnapshot(), packages[i % packages.length])) {
+                blocked++;
+            }
+        }
+
+        assertEquals(parses, store.getParseCount());
+        assertSame(first, store.getSnapshot());
+        assertEquals(7500, blocked);
+
+        // A change costs one rebuild, then lookups are free again
+        store.remove(MAPS);
+        for (int i = 0; i < 10000; i++) {
+            exemptions.blocks(store.getSnapshot(), packages[i % packages.length]);
+        }
+        assertEquals(parses + 1, store.getParseCount());
+    }
+
+    @Test
+    public void missingOrUnknownFileIsNotLoaded() throws IOException {
+        assertFalse(newStore().load());
+
+        File file = new File(folder.getRoot(), "blocklist.bin");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.writeInt(99);
+        }
+        assertFalse(newStore().load());
+    }
+}
@@ -0,0 +1,93 @@
+package com.minimalistlauncher;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.accessibilityservice.AccessibilityServiceInfo;
+import android.view.accessibility.AccessibilityEvent;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+public class EventSubscriptionTest {
+
+    private static final String OWN = "com.minimalistlauncher";
+    private static final String MAIL = "com.example.mail";
+    private static final String MAPS = "com.example.maps";
+    private static final String GAME = "com.example.game";
+
+    private final BlocklistSnapshot blocklist = new BlocklistSnapshot(1, packages(MAPS, MAIL), null);
+    private final BlockSchedule schedule = BlockSchedule.compile(Collections.singletonList(
+        new BlockSchedule.Rule(packages(GAME, MAIL), new int[] {1, 2, 3, 4, 5}, 9 * 60, 17 * 60)));
+
+    @Test
+    public void blocklistAndScheduleNameTheirPackages() {
+        EventSubscription subscription =
+            EventSubscription.forRules(OWN, blocklist, schedule, false, false, false);
+
+        assertTrue(subscription.isFiltered());
+        AccessibilityServiceInfo info = applied(subscription);
+        assertArrayEquals(new String[] {GAME, MAIL, MAPS, OWN}, info.packageNames);
+        assertEquals(AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED, info.eventTypes);
+    }
+
+    @Test
+    public void noRulesStillWatchesTheLauncher() {
+        EventSubscription subscription = EventSubscription.forRules(
+            OWN, BlocklistSnapshot.EMPTY, BlockSchedule.EMPTY, false, false, false);
+
+        assertArrayEquals(new String[] {OWN}, applied(subscription).packageNames);
+    }
+
+    @Test
+    public void limitsOverlayAllowlistAndFeedWatchEveryPackage() {
+        BlocklistSnapshot allowlist = new BlocklistSnapshot(1, packages(MAIL), null, true);
+        EventSubscription[] unfiltered = {
+            EventSubscription.forRules(OWN, blocklist, schedule, true, false, false),
+            EventSubscription.forRules(OWN, blocklist, schedule, false, true, false),
+            EventSubscription.forRules(OWN, blocklist, schedule, false, false, true),
+            EventSubscription.forRules(OWN, allowlist, BlockSchedule.EMPTY, false, false, false),
+        };
+
+        for (EventSubscription subscription : unfiltered) {
+            assertFalse(subscription.isFiltered());
+            AccessibilityServiceInfo info = applied(subscription);
+            assertNull(info.packageNames);
+            assertEquals(AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED, info.eventTypes);
+        }
+    }
+
+    @Test
+    public void equalRulesGiveEqualSubscriptions() {
+        BlocklistSnapshot reordered = new BlocklistSnapshot(2, packages(MAIL, MAPS), "Focus");
+
+        assertEquals(
+            EventSubscription.forRules(OWN, blocklist, schedule, false, false, false),
+            EventSubscription.forRules(OWN, reordered, schedule, false, false, false));
+        assertNotEquals(
+            EventSubscription.forRules(OWN, blocklist, schedule, false, false, false),
+            EventSubscription.forRules(OWN, blocklist, BlockSchedule.EMPTY, false, false, false));
+        assertEquals(
+            EventSubscription.forRules(OWN, blocklist, schedule, true, false, false),
+            EventSubscription.forRules(OWN, BlocklistSnapshot.EMPTY, schedule, false, true, false));
+    }
+
+    private static AccessibilityServiceInfo applied(EventSubscription subscription) {
+        AccessibilityServiceInfo info = new AccessibilityServiceInfo();
+        info.packageNames = new String[] {"com.android"};
+        subscription.applyTo(info);
+        return info;
+    }
+
+    private static Set<String> packages(String... names) {
+        return new HashSet<>(Arrays.asList(names));
+    }
+}
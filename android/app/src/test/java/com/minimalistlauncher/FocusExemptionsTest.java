@@ -0,0 +1,83 @@
+package com.minimalistlauncher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class FocusExemptionsTest {
+
+    private static final String LAUNCHER = "com.minimalistlauncher";
+    private static final String MAIL = "com.example.mail";
+    private static final String MAPS = "com.example.maps";
+    private static final String GAME = "com.example.game";
+    private static final String INSTALLER = "com.android.packageinstaller";
+
+    private final Set<String> catalog = new HashSet<>(Arrays.asList(MAIL, MAPS));
+    private final Set<String> launchable = new HashSet<>(Arrays.asList(MAIL, MAPS, GAME));
+    private final List<String> lookups = new ArrayList<>();
+
+    private final BlocklistSnapshot focus =
+        new BlocklistSnapshot(1, Collections.singleton(MAIL), null, true);
+
+    private FocusExemptions newExemptions() {
+        return new FocusExemptions(Collections.singleton(LAUNCHER), catalog::contains,
+            packageName -> {
+                lookups.add(packageName);
+                return launchable.contains(packageName);
+            });
+    }
+
+    @Test
+    public void freshlyInstalledAppIsBlockedBeforeItsBroadcast() {
+        FocusExemptions exemptions = newExemptions();
+
+        // Installed after the mode was set, not in the catalog yet
+        assertTrue(exemptions.blocks(focus, GAME));
+        assertFalse(exemptions.blocks(focus, MAIL));
+        assertTrue(exemptions.blocks(focus, MAPS));
+    }
+
+    @Test
+    public void launchableAppsAreBlockedBeforeTheCatalogLoads() {
+        catalog.clear();
+        FocusExemptions exemptions = newExemptions();
+
+        assertTrue(exemptions.blocks(focus, MAPS));
+        assertTrue(exemptions.blocks(focus, GAME));
+        assertFalse(exemptions.blocks(focus, MAIL));
+        assertFalse(exemptions.blocks(focus, INSTALLER));
+        assertFalse(exemptions.blocks(focus, LAUNCHER));
+    }
+
+    @Test
+    public void screensWithoutALauncherEntryAreLookedUpOnce() {
+        FocusExemptions exemptions = newExemptions();
+
+        for (int i = 0; i < 100; i++) {
+            assertFalse(exemptions.blocks(focus, INSTALLER));
+            assertTrue(exemptions.blocks(focus, MAPS));
+        }
+        assertEquals(Collections.singletonList(INSTALLER), lookups);
+    }
+
+    @Test
+    public void blocklistIgnoresExemptions() {
+        FocusExemptions exemptions = newExemptions();
+        BlocklistSnapshot blocklist =
+            new BlocklistSnapshot(1, new HashSet<>(Arrays.asList(INSTALLER, MAIL)), null);
+
+        assertTrue(exemptions.blocks(blocklist, INSTALLER));
+        assertTrue(exemptions.blocks(blocklist, MAIL));
+        assertFalse(exemptions.blocks(blocklist, MAPS));
+        assertTrue(lookups.isEmpty());
+    }
+}
@@ -0,0 +1,154 @@
+package com.minimalistlauncher;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ForegroundEventFeedTest {
+
+    private static final String MAIL = "com.example.mail";
+    private static final String MAPS = "com.example.maps";
+    private static final String MUSIC = "com.example.music";
+
+    private long elapsedNow = 10000;
+    private boolean emitSucceeds = true;
+    private final List<Runnable> pending = new ArrayList<>();
+    private final List<Long> delays = new ArrayList<>();
+    private final List<ForegroundEventFeed.Batch> emitted = new ArrayList<>();
+
+    private final Clock clock = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return elapsedNow;
+        }
+
+        @Override
+        public long elapsedRealtime() {
+            return elapsedNow;
+        }
+    };
+
+    private final ForegroundEventFeed.Scheduler scheduler = new ForegroundEventFeed.Scheduler() {
+        @Override
+        public void schedule(Runnable task, long delayMs) {
+            pending.add(task);
+            delays.add(delayMs);
+        }
+
+        @Override
+        public void cancel(Runnable task) {
+            int index = pending.indexOf(task);
+            if (index >= 0) {
+                pending.remove(index);
+                delays.remove(index);
+            }
+        }
+    };
+
+    private final ForegroundEventFeed.Emitter emitter = batch -> {
+        if (!emitSucceeds) return false;
+        emitted.add(batch);
+        return true;
+    };
+
+    @Test
+    public void fullRingOverwritesOldestAndCountsThem() {
+        ForegroundEventFeed feed = new ForegroundEventFeed(clock, scheduler, 4);
+        String[] packages = {MAIL, MAPS, MUSIC, MAIL, MAPS, MUSIC};
+        for (int i = 0; i < packages.length; i++) {
+            feed.record(packages[i], 1000 + i, ForegroundEventFeed.DECISION_ALLOWED);
+        }
+
+        // Nothing goes out while no emitter is attached
+        assertTrue(pending.isEmpty());
+        assertEquals(4, feed.size());
+
+        feed.setEmitter(emitter);
+        runPending();
+
+        assertEquals(1, emitted.size());
+        ForegroundEventFeed.Batch batch = emitted.get(0);
+        assertEquals(2, batch.dropped);
+        assertArrayEquals(new long[] {1002, 1003, 1004, 1005}, batch.timestamps);
+        assertEquals(Arrays.asList(MUSIC, MAIL, MAPS), batch.packages);
+        assertArrayEquals(new int[] {0, 1, 2, 0}, batch.packageIndexes);
+        assertEquals(0, feed.size());
+    }
+
+    @Test
+    public void changesWithinTheIntervalShareOneBatch() {
+        ForegroundEventFeed feed = new ForegroundEventFeed(clock, scheduler, 16);
+        feed.setEmitter(emitter);
+
+        feed.record(MAIL, 1, ForegroundEventFeed.DECISION_ALLOWED);
+        assertEquals(Long.valueOf(0), delays.get(0));
+        runPending();
+        assertEquals(1, emitted.size());
+
+        elapsedNow += 100;
+        feed.record(MAPS, 2, ForegroundEventFeed.DECISION_BLOCKED);
+        feed.record(MAIL, 3, ForegroundEventFeed.DECISION_ALLOWED);
+
+        // One flush, held back until the interval since the last one has passed
+        assertEquals(1, pending.size());
+        assertEquals(Long.valueOf(ForegroundEventFeed.FLUSH_INTERVAL_MS - 100), delays.get(0));
+        elapsedNow += ForegroundEventFeed.FLUSH_INTERVAL_MS - 100;
+        runPending();
+
+        assertEquals(2, emitted.size());
+        ForegroundEventFeed.Batch batch = emitted.get(1);
+        assertEquals(Arrays.asList(MAPS, MAIL), batch.packages);
+        assertArrayEquals(new int[] {
+            ForegroundEventFeed.DECISION_BLOCKED, ForegroundEventFeed.DECISION_ALLOWED
+        }, batch.decisions);
+        assertEquals(0, batch.dropped);
+    }
+
+    @Test
+    public void failedEmitKeepsTheBuffer() {
+        ForegroundEventFeed feed = new ForegroundEventFeed(clock, scheduler, 16);
+        feed.setEmitter(emitter);
+        emitSucceeds = false;
+        feed.record(MAIL, 1, ForegroundEventFeed.DECISION_ALLOWED);
+        runPending();
+        assertEquals(1, feed.size());
+
+        emitSucceeds = true;
+        elapsedNow += ForegroundEventFeed.FLUSH_INTERVAL_MS;
+        feed.record(MAPS, 2, ForegroundEventFeed.DECISION_ALLOWED);
+        runPending();
+
+        assertEquals(1, emitted.size());
+        assertArrayEquals(new long[] {1, 2}, emitted.get(0).timestamps);
+        assertEquals(0, feed.size());
+    }
+
+    @Test
+    public void listenerHearsOnlyAttachAndDetach() {
+        ForegroundEventFeed feed = new ForegroundEventFeed(clock, scheduler, 16);
+        List<Boolean> changes = new ArrayList<>();
+        feed.setListener(changes::add);
+
+        feed.setEmitter(emitter);
+        feed.setEmitter(batch -> true);
+        feed.setEmitter(null);
+        feed.setEmitter(null);
+
+        assertEquals(Arrays.asList(true, false), changes);
+    }
+
+    private void runPending() {
+        List<Runnable> tasks = new ArrayList<>(pending);
+        pending.clear();
+        delays.clear();
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+}
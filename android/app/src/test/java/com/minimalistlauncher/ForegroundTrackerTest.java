@@ -0,0 +1,152 @@
+package com.minimalistlauncher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class ForegroundTrackerTest {
+
+    private static final long WINDOW_MS = 250;
+    private static final String OWN = "com.minimalistlauncher";
+    private static final String OWN_ACTIVITY = "com.minimalistlauncher.MainActivity";
+    private static final String OVERLAY_WINDOW = "android.widget.FrameLayout";
+    private static final String SYSTEM_UI = "com.android.systemui";
+    private static final String KEYBOARD = "com.example.keyboard";
+    private static final String GAME = "com.example.game";
+    private static final String MAIL = "com.example.mail";
+    private static final String MAPS = "com.example.maps";
+
+    /** Replays a trace on a virtual clock, running timers as it passes them. */
+    private static final class Replay implements ForegroundTracker.Scheduler {
+        final List<Runnable> tasks = new ArrayList<>();
+        final List<Long> due = new ArrayList<>();
+        final List<String> changes = new ArrayList<>();
+        final List<Long> reportedAt = new ArrayList<>();
+        final Set<String> blocked;
+        int overlayLaunches;
+        long now;
+
+        final ForegroundTracker tracker;
+
+        Replay(String... blocked) {
+            this.blocked = new HashSet<>(Arrays.asList(blocked));
+            tracker = new ForegroundTracker(OWN, new HashSet<>(Arrays.asList(SYSTEM_UI, KEYBOARD)),
+                WINDOW_MS, this, (packageName, eventUptime) -> {
+                    changes.add(packageName);
+                    reportedAt.add(now);
+                    if (this.blocked.contains(packageName)) overlayLaunches++;
+                });
+        }
+
+        @Override
+        public void schedule(Runnable task, long delayMs) {
+            tasks.add(task);
+            due.add(now + delayMs);
+        }
+
+        @Override
+        public void cancel(Runnable task) {
+            int index = tasks.indexOf(task);
+            if (index >= 0) {
+                tasks.remove(index);
+                due.remove(index);
+            }
+        }
+
+        void event(long uptime, String packageName, String className) {
+            advanceTo(uptime);
+            tracker.onWindowEvent(packageName, className, uptime);
+        }
+
+        void advanceTo(long time) {
+            while (true) {
+                int next = -1;
+                for (int i = 0; i < due.size(); i++) {
+                    if (due.get(i) <= time && (next < 0 || due.get(i) < due.get(next))) next = i;
+                }
+                if (next < 0) break;
+                now = due.remove(next);
+                tasks.remove(next).run();
+            }
+            now = time;
+        }
+    }
+
+    @Test
+    public void gameTraceActsOnRealChangesOnly() {
+        Replay replay = new Replay(GAME);
+        replay.event(1000, OWN, OWN_ACTIVITY);
+        replay.event(5000, GAME, "com.example.game.MainActivity");
+        replay.event(5040, GAME, "com.example.game.LoadingDialog");
+        replay.event(5100, SYSTEM_UI, "com.android.systemui.StatusBar");
+        replay.event(5120, OWN, OVERLAY_WINDOW);
+        replay.event(5600, GAME, "com.example.game.MainActivity");
+        replay.event(6000, KEYBOARD, "android.inputmethodservice.SoftInputWindow");
+        replay.event(6010, GAME, "com.example.game.ChatDialog");
+        replay.event(9000, OWN, OWN_ACTIVITY);
+        replay.event(9500, SYSTEM_UI, "com.android.systemui.pip.PipMenuActivity");
+        replay.advanceTo(20000);
+
+        assertEquals(Arrays.asList(OWN, GAME, OWN), replay.changes);
+        assertEquals(1, replay.overlayLaunches);
+        ForegroundTracker tracker = replay.tracker;
+        assertEquals(10, tracker.getReceivedCount());
+        assertEquals(4, tracker.getIgnoredCount());
+        assertEquals(3, tracker.getCoalescedCount());
+        assertEquals(3, tracker.getActedOnCount());
+    }
+
+    @Test
+    public void changeInsideTheWindowWaitsForItToClose() {
+        Replay replay = new Replay();
+        replay.event(1000, MAIL, null);
+        replay.event(1100, MAPS, null);
+
+        // Held back until 250 ms after the last report
+        assertEquals(Collections.singletonList(MAIL), replay.changes);
+        assertEquals(Collections.singletonList(1250L), replay.due);
+
+        replay.event(1200, GAME, null);
+        replay.advanceTo(1249);
+        assertEquals(1, replay.changes.size());
+
+        replay.advanceTo(1250);
+        assertEquals(Arrays.asList(MAIL, GAME), replay.changes);
+        assertEquals(Arrays.asList(1000L, 1250L), replay.reportedAt);
+        assertEquals(GAME, replay.tracker.getForeground());
+    }
+
+    @Test
+    public void burstEndingWhereItStartedReportsNothing() {
+        Replay replay = new Replay(MAPS);
+        replay.event(1000, MAIL, null);
+        replay.event(1050, MAPS, null);
+        replay.event(1100, MAIL, null);
+        replay.advanceTo(2000);
+
+        assertEquals(Collections.singletonList(MAIL), replay.changes);
+        assertEquals(0, replay.overlayLaunches);
+        assertEquals(2, replay.tracker.getCoalescedCount());
+    }
+
+    @Test
+    public void changesFurtherApartThanTheWindowAreImmediate() {
+        Replay replay = new Replay(MAPS);
+        replay.event(1000, MAIL, null);
+        replay.event(1250, MAPS, null);
+        replay.event(1600, MAIL, null);
+
+        assertEquals(Arrays.asList(MAIL, MAPS, MAIL), replay.changes);
+        assertEquals(Arrays.asList(1000L, 1250L, 1600L), replay.reportedAt);
+        assertTrue(replay.tasks.isEmpty());
+        assertEquals(1, replay.overlayLaunches);
+    }
+}
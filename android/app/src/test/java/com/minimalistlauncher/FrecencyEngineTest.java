@@ -0,0 +1,107 @@
+package com.minimalistlauncher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class FrecencyEngineTest {
+
+    private static final long HALF_LIFE = FrecencyEngine.HALF_LIFE_MS;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FrecencyEngine newEngine(long now) {
+        return new FrecencyEngine(folder.getRoot(), Runnable::run, "com.minimalistlauncher", now);
+    }
+
+    @Test
+    public void recentLaunchesOutrankOldOnes() {
+        FrecencyEngine engine = newEngine(0);
+        engine.recordLaunch("com.example.mail", 0);
+        engine.recordLaunch("com.example.mail", 0);
+        engine.recordLaunch("com.example.mail", 0);
+        engine.recordLaunch("com.example.maps", 2 * HALF_LIFE);
+
+        // Three launches two half-lives ago score 0.75
+        assertEquals(0.75, engine.getScore("com.example.mail", 2 * HALF_LIFE), 1e-9);
+        assertEquals(1.0, engine.getScore("com.example.maps", 2 * HALF_LIFE), 1e-9);
+        assertEquals(Arrays.asList("com.example.maps", "com.example.mail"), engine.getTop(5));
+    }
+
+    @Test
+    public void ignoresOwnPackage() {
+        FrecencyEngine engine = newEngine(0);
+        engine.recordLaunch("com.minimalistlauncher", 0);
+        engine.recordSession("com.example.mail", 0);
+
+        assertEquals(Arrays.asList("com.example.mail"), engine.getTop(5));
+        assertEquals(0.5, engine.getScore("com.example.mail", 0), 1e-9);
+    }
+
+    @Test
+    public void keepsOnlyTheBestTopK() {
+        FrecencyEngine engine = newEngine(0);
+        int count = FrecencyEngine.TOP_K + 8;
+        for (int i = 0; i < count; i++) {
+            engine.add("app" + i, i + 1, 0);
+        }
+
+        List<String> top = engine.getTop(count);
+        assertEquals(FrecencyEngine.TOP_K, top.size());
+        assertEquals("app" + (count - 1), top.get(0));
+        assertFalse(top.contains("app0"));
+
+        // An app outside the heap enters it once it beats the weakest one
+        engine.add("app0", 1000, 0);
+        assertEquals("app0", engine.getTop(1).get(0));
+        assertFalse(engine.getTop(count).contains("app8"));
+    }
+
+    @Test
+    public void rebaseKeepsOrderAndScores() {
+        FrecencyEngine engine = newEngine(0);
+        engine.add("com.example.mail", 4, 0);
+        engine.add("com.example.maps", 2, 0);
+        engine.add("com.example.music", 1, 0);
+
+        // Far enough ahead that the epoch has to move
+        long later = 70 * HALF_LIFE;
+        engine.add("com.example.notes", 1, later);
+        engine.add("com.example.music", 8 * Math.pow(2, -70), later);
+
+        assertEquals(Arrays.asList(
+            "com.example.notes", "com.example.music", "com.example.mail", "com.example.maps"),
+            engine.getTop(5));
+        assertEquals(1.0, engine.getScore("com.example.notes", later), 1e-9);
+        assertEquals(4 * Math.pow(2, -70), engine.getScore("com.example.mail", later), 1e-30);
+        assertEquals(9 * Math.pow(2, -70), engine.getScore("com.example.music", later), 1e-30);
+    }
+
+    @Test
+    public void reloadRestoresHeapOrder() {
+        FrecencyEngine engine = newEngine(0);
+        for (int i = 0; i < FrecencyEngine.TOP_K + 8; i++) {
+            engine.add("app" + i, (i * 7) % 13 + i / 100.0, i * 1000L);
+        }
+        engine.add("app3", 1, 70 * HALF_LIFE);
+        List<String> before = engine.getTop(FrecencyEngine.TOP_K);
+
+        FrecencyEngine reloaded = newEngine(0);
+        assertTrue(reloaded.load());
+        assertEquals(before, reloaded.getTop(FrecencyEngine.TOP_K));
+        assertEquals(engine.getScore("app5", 70 * HALF_LIFE),
+            reloaded.getScore("app5", 70 * HALF_LIFE), 1e-30);
+
+        // Updates after a reload keep using the stored epoch
+        reloaded.add("app0", 10, 70 * HALF_LIFE);
+        assertEquals("app0", reloaded.getTop(1).get(0));
+    }
+}
@@ -0,0 +1,126 @@
+package com.minimalistlauncher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class LaunchLogTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static LaunchLog open(File dir) {
+        return new LaunchLog(dir, Runnable::run);
+    }
+
+    @Test
+    public void batchesLaunchesIntoOneWrite() {
+        File dir = folder.getRoot();
+        List<Runnable> queued = new ArrayList<>();
+        LaunchLog log = new LaunchLog(dir, queued::add);
+        log.record("com.example.mail", 1000);
+        log.record("com.example.maps", 2000);
+        log.record("com.example.mail", 3000);
+
+        // Counted before they are written
+        assertEquals(1, queued.size());
+        assertEquals(2, log.getCounts().get("com.example.mail").launches);
+        assertFalse(new File(dir, "log.0").exists());
+
+        queued.remove(0).run();
+        assertEquals(3 * 12, new File(dir, "log.0").length());
+        Map<String, LaunchLog.Count> counts = open(dir).getCounts();
+        assertEquals(2, counts.get("com.example.mail").launches);
+        assertEquals(3000, counts.get("com.example.mail").lastLaunch);
+        assertEquals(1, counts.get("com.example.maps").launches);
+
+        // The next launch schedules the next write
+        log.record("com.example.maps", 4000);
+        assertEquals(1, queued.size());
+    }
+
+    @Test
+    public void replaysLogAfterReopen() {
+        File dir = folder.getRoot();
+        LaunchLog log = open(dir);
+        log.record("com.example.mail", 1000);
+        log.record("com.example.mail", 3000);
+        log.record("com.example.maps", 2000);
+
+        Map<String, LaunchLog.Count> counts = open(dir).getCounts();
+        assertEquals(2, counts.get("com.example.mail").launches);
+        assertEquals(3000, counts.get("com.example.mail").lastLaunch);
+        assertEquals(1, counts.get("com.example.maps").launches);
+    }
+
+    @Test
+    public void replayDropsTornRecord() throws IOException {
+        File dir = folder.getRoot();
+        LaunchLog log = open(dir);
+        log.record("com.example.mail", 1000);
+        File logFile = new File(dir, "log.0");
+        try (FileOutputStream out = new FileOutputStream(logFile, true)) {
+            out.write(new byte[] {0, 0, 0, 0, 1, 2});
+        }
+
+        LaunchLog reopened = open(dir);
+        assertEquals(1, reopened.getCounts().get("com.example.mail").launches);
+
+        // Later records stay aligned
+        reopened.record("com.example.maps", 2000);
+        Map<String, LaunchLog.Count> counts = open(dir).getCounts();
+        assertEquals(1, counts.get("com.example.mail").launches);
+        assertEquals(1, counts.get("com.example.maps").launches);
+        assertEquals(2000, counts.get("com.example.maps").lastLaunch);
+    }
+
+    @Test
+    public void compactionKeepsCounts() {
+        File dir = folder.getRoot();
+        LaunchLog log = open(dir);
+        for (int i = 0; i < LaunchLog.COMPACT_AFTER + 5; i++) {
+            log.record(i % 2 == 0 ? "com.example.mail" : "com.example.maps", i);
+        }
+
+        // Folded into the counters file, with only the newest records logged
+        assertFalse(new File(dir, "log.0").exists());
+        assertTrue(new File(dir, "log.1").length() < 12 * LaunchLog.COMPACT_AFTER);
+
+        Map<String, LaunchLog.Count> counts = open(dir).getCounts();
+        assertEquals(LaunchLog.COMPACT_AFTER / 2 + 3, counts.get("com.example.mail").launches);
+        assertEquals(LaunchLog.COMPACT_AFTER / 2 + 2, counts.get("com.example.maps").launches);
+        assertEquals(LaunchLog.COMPACT_AFTER + 4, counts.get("com.example.mail").lastLaunch);
+    }
+
+    @Test
+    public void importsLegacyCountsOnce() throws IOException {
+        File dir = folder.getRoot();
+        Map<String, Integer> legacy = new HashMap<>();
+        legacy.put("com.example.mail", 5);
+
+        LaunchLog log = open(dir);
+        log.record("com.example.mail", 1000);
+        assertTrue(log.importCounts(legacy));
+        assertFalse(log.importCounts(legacy));
+
+        // Still imported after a restart, e.g. if JS never cleared its copy
+        LaunchLog reopened = open(dir);
+        assertFalse(reopened.importCounts(legacy));
+        assertEquals(6, reopened.getCounts().get("com.example.mail").launches);
+        assertEquals(1000, reopened.getCounts().get("com.example.mail").lastLaunch);
+        assertNull(reopened.getCounts().get("com.example.maps"));
+    }
+}
@@ -0,0 +1,79 @@
+package com.minimalistlauncher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class LauncherPrefetchTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private long now = 1_800_000_000_000L;
+    private final AtomicInteger eventReads = new AtomicInteger();
+
+    private final Clock clock = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+
+        @Override
+        public long elapsedRealtime() {
+            return now;
+        }
+    };
+
+    @Test
+    public void moduleCallReusesPrefetchedUsage() throws Exception {
+        UsageEventIngestor ingestor = new UsageEventIngestor(
+            (beginTime, endTime, sink) -> eventReads.incrementAndGet(),
+            null, clock, new File(folder.getRoot(), "buckets.bin"));
+        UsageEngine engine = new UsageEngine(
+            (startTime, endTime) -> {
+                throw new AssertionError("today comes from the ingestor");
+            },
+            ingestor, null, clock);
+        AtomicReference<Map<String, UsageEngine.UsageRecord>> prefetched = new AtomicReference<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        LauncherPrefetch prefetch = new LauncherPrefetch(executor,
+            () -> "catalog",
+            () -> "blocklist",
+            () -> {
+                prefetched.set(engine.getToday());
+                return prefetched.get();
+            });
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(prefetch.isDone(LauncherPrefetch.TASK_USAGE));
+
+        // The first getTodayUsage from JS
+        now += 300;
+        assertSame(prefetched.get(), engine.getToday());
+        assertEquals(1, eventReads.get());
+    }
+
+    @Test
+    public void skippedUsageTaskCountsAsDone() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        LauncherPrefetch prefetch = new LauncherPrefetch(executor,
+            () -> "catalog", () -> "blocklist", null);
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertTrue(prefetch.isDone(LauncherPrefetch.TASK_CATALOG));
+        assertTrue(prefetch.isDone(LauncherPrefetch.TASK_USAGE));
+        assertEquals(-1, prefetch.getDurationMs(LauncherPrefetch.TASK_USAGE));
+    }
+}
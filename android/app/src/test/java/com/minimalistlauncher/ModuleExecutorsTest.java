@@ -0,0 +1,146 @@
+package com.minimalistlauncher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.facebook.react.bridge.Promise;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ModuleExecutorsTest {
+
+    private final ExecutorService interactive = Executors.newSingleThreadExecutor();
+    private final ExecutorService bulk = Executors.newFixedThreadPool(2);
+    private final ModuleExecutors executors = new ModuleExecutors(interactive, bulk);
+
+    /** Records how a promise settled; Promise has too many overloads to fake by hand. */
+    private static final class Settled {
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile Object value;
+        volatile String code;
+
+        final Promise promise = (Promise) Proxy.newProxyInstance(
+            Promise.class.getClassLoader(), new Class<?>[] {Promise.class},
+            (proxy, method, args) -> {
+                if (method.getName().equals("resolve")) {
+                    value = args[0];
+                } else if (method.getName().equals("reject")) {
+                    code = args[0] instanceof String ? (String) args[0] : "ERROR";
+                } else {
+                    return method.invoke(this, args);
+                }
+                done.countDown();
+                return null;
+            });
+
+        boolean await(long ms) throws InterruptedException {
+            return done.await(ms, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        interactive.shutdownNow();
+        bulk.shutdownNow();
+    }
+
+    @Test
+    public void launchCompletesWhileBulkLaneIsBusy() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(2);
+        Settled slowA = new Settled();
+        Settled slowB = new Settled();
+        // Fill both bulk threads with a query that waits until released
+        executors.bulk("usage:a", slowA.promise, () -> {
+            started.countDown();
+            release.await();
+            return "a";
+        }, result -> result);
+        executors.bulk("usage:b", slowB.promise, () -> {
+            started.countDown();
+            release.await();
+            return "b";
+        }, result -> result);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        Settled launch = new Settled();
+        long start = System.nanoTime();
+        executors.interactive(() -> launch.promise.resolve(true));
+
+        assertTrue(launch.await(1000));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("launch took " + elapsedMs + " ms", elapsedMs < 500);
+        assertEquals(true, launch.value);
+        assertEquals(1, slowA.done.getCount());
+
+        release.countDown();
+        assertTrue(slowA.await(5000));
+        assertTrue(slowB.await(5000));
+        assertEquals("a", slowA.value);
+    }
+
+    @Test
+    public void identicalBulkCallsShareOneRun() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        Settled first = new Settled();
+        Settled second = new Settled();
+
+        for (Settled settled : new Settled[] {first, second}) {
+            executors.bulk("usage:today", settled.promise, () -> {
+                runs.incrementAndGet();
+                release.await();
+                return 42;
+            }, result -> result);
+        }
+        release.countDown();
+
+        assertTrue(first.await(5000));
+        assertTrue(second.await(5000));
+        assertEquals(1, runs.get());
+        assertEquals(42, first.value);
+        assertEquals(42, second.value);
+    }
+
+    @Test
+    public void queuedCallInAGroupIsSuperseded() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch busy = new CountDownLatch(2);
+        // Keep both bulk threads busy so the grouped calls stay queued
+        for (int i = 0; i < 2; i++) {
+            executors.bulk("blocker:" + i, new Settled().promise, () -> {
+                busy.countDown();
+                release.await();
+                return null;
+            }, result -> result);
+        }
+        assertTrue(busy.await(5, TimeUnit.SECONDS));
+
+        AtomicInteger staleRuns = new AtomicInteger();
+        Settled stale = new Settled();
+        Settled fresh = new Settled();
+        executors.bulk("search", "ma", stale.promise, () -> {
+            staleRuns.incrementAndGet();
+            return "ma";
+        }, result -> result);
+        executors.bulk("search", "map", fresh.promise, () -> "map", result -> result);
+
+        assertTrue(stale.await(1000));
+        assertEquals(ModuleExecutors.CODE_SUPERSEDED, stale.code);
+
+        release.countDown();
+        assertTrue(fresh.await(5000));
+        assertEquals("map", fresh.value);
+        assertEquals(0, staleRuns.get());
+        assertNull(fresh.code);
+    }
+}
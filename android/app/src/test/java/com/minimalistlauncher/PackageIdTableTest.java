@@ -0,0 +1,73 @@
+package com.minimalistlauncher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+public class PackageIdTableTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void idsSurviveReload() throws IOException {
+        File file = new File(folder.getRoot(), "ids.bin");
+        PackageIdTable table = new PackageIdTable(file);
+        assertEquals(0, table.intern("com.example.mail"));
+        assertEquals(1, table.intern("com.example.maps"));
+        assertEquals(0, table.intern("com.example.mail"));
+
+        PackageIdTable reloaded = new PackageIdTable(file);
+        assertEquals(2, reloaded.size());
+        assertEquals(0, reloaded.find("com.example.mail"));
+        assertEquals("com.example.maps", reloaded.nameOf(1));
+        assertEquals(-1, reloaded.find("com.example.music"));
+    }
+
+    @Test
+    public void reloadDropsTruncatedAppend() throws IOException {
+        File file = new File(folder.getRoot(), "ids.bin");
+        PackageIdTable table = new PackageIdTable(file);
+        table.intern("com.example.mail");
+        table.intern("com.example.maps");
+        long goodLength = file.length();
+
+        // A name torn by a crash: its length prefix and part of its bytes
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(new byte[] {0, 20, 'c', 'o', 'm'});
+        }
+
+        PackageIdTable reloaded = new PackageIdTable(file);
+        assertEquals(2, reloaded.size());
+        assertNull(reloaded.nameOf(2));
+        assertEquals(goodLength, file.length());
+
+        // The next name gets the next ID, and keeps it after another reload
+        assertEquals(2, reloaded.intern("com.example.music"));
+        assertEquals(2, new PackageIdTable(file).find("com.example.music"));
+    }
+
+    @Test
+    public void multiByteNamesKeepLaterIdsAligned() throws IOException {
+        File file = new File(folder.getRoot(), "ids.bin");
+        PackageIdTable table = new PackageIdTable(file);
+        table.intern("com.ex\u00e4mple.\u65e5\u672c");
+        table.intern("com.example.maps");
+
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(new byte[] {0, 9});
+        }
+
+        PackageIdTable reloaded = new PackageIdTable(file);
+        assertEquals(2, reloaded.intern("com.example.music"));
+        assertEquals(1, new PackageIdTable(file).find("com.example.maps"));
+        assertEquals(2, new PackageIdTable(file).find("com.example.music"));
+    }
+}
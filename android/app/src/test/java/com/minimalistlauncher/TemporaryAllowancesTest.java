@@ -0,0 +1,144 @@
+package com.minimalistlauncher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class TemporaryAllowancesTest {
+
+    private static final long MINUTE = 60 * 1000;
+    private static final String MAIL = "com.example.mail";
+    private static final String MAPS = "com.example.maps";
+
+    private long now = 1_800_000_000_000L;
+    private final FakeSharedPreferences prefs = new FakeSharedPreferences();
+    private final List<Runnable> pending = new ArrayList<>();
+    private final List<Long> delays = new ArrayList<>();
+    private final List<String> expired = new ArrayList<>();
+
+    private final Clock clock = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+
+        @Override
+        public long elapsedRealtime() {
+            return now;
+        }
+    };
+
+    private final TemporaryAllowances.Scheduler scheduler = new TemporaryAllowances.Scheduler() {
+        @Override
+        public void schedule(Runnable task, long delayMs) {
+            pending.add(task);
+            delays.add(delayMs);
+        }
+
+        @Override
+        public void cancel(Runnable task) {
+            int index = pending.indexOf(task);
+            if (index >= 0) {
+                pending.remove(index);
+                delays.remove(index);
+            }
+        }
+    };
+
+    private TemporaryAllowances newAllowances() {
+        TemporaryAllowances allowances = new TemporaryAllowances(clock, scheduler, prefs);
+        allowances.addListener(expired::add);
+        return allowances;
+    }
+
+    @Test
+    public void expiresWhileTheAppStaysInFront() {
+        TemporaryAllowances allowances = newAllowances();
+        allowances.grant(MAIL, 5 * MINUTE);
+        assertTrue(allowances.isAllowed(MAIL));
+        assertEquals(Collections.singletonList(5 * MINUTE), delays);
+
+        // No window event arrives; only the timer ends the allowance
+        now += 5 * MINUTE;
+        runPending();
+
+        assertFalse(allowances.isAllowed(MAIL));
+        assertEquals(Collections.singletonList(MAIL), expired);
+        assertTrue(pending.isEmpty());
+    }
+
+    @Test
+    public void oneTimerArmedForTheEarliestExpiry() {
+        TemporaryAllowances allowances = newAllowances();
+        allowances.grant(MAIL, 10 * MINUTE);
+        allowances.grant(MAPS, 3 * MINUTE);
+        assertEquals(Collections.singletonList(3 * MINUTE), delays);
+
+        now += 3 * MINUTE;
+        runPending();
+        assertEquals(Collections.singletonList(MAPS), expired);
+        assertTrue(allowances.isAllowed(MAIL));
+        assertEquals(Collections.singletonList(7 * MINUTE), delays);
+
+        now += 7 * MINUTE;
+        runPending();
+        assertEquals(Arrays.asList(MAPS, MAIL), expired);
+        assertTrue(pending.isEmpty());
+    }
+
+    @Test
+    public void sleepingPastTheTimerExpiresOnWake() {
+        TemporaryAllowances allowances = newAllowances();
+        allowances.grant(MAIL, 5 * MINUTE);
+
+        // The Handler timer hasn't fired because the device slept
+        now += 20 * MINUTE;
+        allowances.expireDue();
+
+        assertFalse(allowances.isAllowed(MAIL));
+        assertEquals(Collections.singletonList(MAIL), expired);
+    }
+
+    @Test
+    public void survivesRestartAndDropsPastEntries() {
+        TemporaryAllowances allowances = newAllowances();
+        allowances.grant(MAIL, 5 * MINUTE);
+        allowances.grant(MAPS, MINUTE);
+
+        now += 2 * MINUTE;
+        pending.clear();
+        delays.clear();
+        TemporaryAllowances restarted = newAllowances();
+
+        assertTrue(restarted.isAllowed(MAIL));
+        assertFalse(restarted.isAllowed(MAPS));
+        assertEquals(Collections.singletonList(3 * MINUTE), delays);
+    }
+
+    @Test
+    public void revokeDisarmsTheTimer() {
+        TemporaryAllowances allowances = newAllowances();
+        allowances.grant(MAIL, 5 * MINUTE);
+        allowances.revoke(MAIL);
+
+        assertFalse(allowances.isAllowed(MAIL));
+        assertTrue(pending.isEmpty());
+        assertTrue(expired.isEmpty());
+    }
+
+    private void runPending() {
+        List<Runnable> tasks = new ArrayList<>(pending);
+        pending.clear();
+        delays.clear();
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.minimalistlauncher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+public class UsageEngineTest {
+
+    private static final long MINUTE = 60 * 1000;
+    private static final long DAY = 24 * 60 * MINUTE;
+    private static final String MAIL = "com.example.mail";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TimeZone defaultZone;
+    private long now;
+    private final List<long[]> queries = new ArrayList<>();
+    private final List<Object[]> events = new ArrayList<>();
+    private int eventReads;
+
+    private final Clock clock = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+
+        @Override
+        public long elapsedRealtime() {
+            return now;
+        }
+    };
+
+    // Reports a minute of mail per query, so each query gives a new answer
+    private final UsageEngine.UsageSource source = (startTime, endTime) -> {
+        queries.add(new long[] {startTime, endTime});
+        Map<String, UsageEngine.UsageRecord> records = new HashMap<>();
+        records.put(MAIL, new UsageEngine.UsageRecord(
+            MAIL, queries.size() * MINUTE, endTime, startTime, endTime, 0));
+        return records;
+    };
+
+    private final UsageEventIngestor.EventSource eventSource = (beginTime, endTime, sink) -> {
+        eventReads++;
+        for (Object[] event : events) {
+            long timeStamp = (Long) event[2];
+            if (timeStamp >= beginTime && timeStamp < endTime) {
+                sink.onEvent((String) event[0], null, (Integer) event[1], timeStamp);
+            }
+        }
+    };
+
+    @Before
+    public void setUp() {
+        defaultZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Europe/Berlin"));
+        now = at(2026, Calendar.OCTOBER, 16, 12, 0);
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(defaultZone);
+    }
+
+    private UsageEngine newEngine() {
+        return new UsageEngine(source, null, null, clock);
+    }
+
+    @Test
+    public void closedRangesAreQueriedOnce() {
+        UsageEngine engine = newEngine();
+        long start = at(2026, Calendar.OCTOBER, 1, 0, 0);
+        long end = at(2026, Calendar.OCTOBER, 8, 0, 0);
+
+        Map<String, UsageEngine.UsageRecord> first = engine.getRange(start, end);
+        // Screen loads on later days still hit the cache
+        now += 3 * DAY;
+        engine.invalidate();
+        Map<String, UsageEngine.UsageRecord> again = engine.getRange(start, end);
+
+        assertSame(first, again);
+        assertEquals(1, queries.size());
+        assertEquals(MINUTE, again.get(MAIL).totalTimeInForeground);
+    }
+
+    @Test
+    public void todayIsReusedUntilItsTtlRunsOut() {
+        UsageEngine engine = newEngine();
+        Map<String, UsageEngine.UsageRecord> first = engine.getToday();
+
+        now += 30 * 1000;
+        assertSame(first, engine.getToday());
+        assertEquals(1, queries.size());
+        assertEquals(at(2026, Calendar.OCTOBER, 16, 0, 0), queries.get(0)[0]);
+
+        now += 30 * 1000;
+        Map<String, UsageEngine.UsageRecord> refreshed = engine.getToday();
+        assertNotSame(first, refreshed);
+        assertEquals(2, queries.size());
+        assertEquals(now, queries.get(1)[1]);
+        assertEquals(2 * MINUTE, refreshed.get(MAIL).totalTimeInForeground);
+    }
+
+    @Test
+    public void invalidateBypassesTheTtl() {
+        UsageEngine engine = newEngine();
+        long start = at(2026, Calendar.OCTOBER, 16, 8, 0);
+        engine.getRange(start, now);
+        engine.getRange(start, now);
+        assertEquals(1, queries.size());
+
+        engine.invalidate();
+        engine.getRange(start, now);
+        assertEquals(2, queries.size());
+    }
+
+    @Test
+    public void newDayDropsYesterdaysToday() {
+        UsageEngine engine = newEngine();
+        engine.getToday();
+
+        now = at(2026, Calendar.OCTOBER, 17, 0, 0) + 10 * 1000;
+        engine.getToday();
+
+        assertEquals(2, queries.size());
+        assertEquals(at(2026, Calendar.OCTOBER, 17, 0, 0), queries.get(1)[0]);
+    }
+
+    @Test
+    public void ingestedTodayIsReusedRightAfterARefresh() {
+        UsageEngine engine = newIngestingEngine();
+        Map<String, UsageEngine.UsageRecord> first = engine.getToday();
+
+        now += 200;
+        assertSame(first, engine.getToday());
+        assertEquals(1, eventReads);
+    }
+
+    @Test
+    public void ingestedTodayIsRebuiltOnlyWhenSomethingChanged() {
+        UsageEngine engine = newIngestingEngine();
+        Map<String, UsageEngine.UsageRecord> first = engine.getToday();
+
+        // Refreshed, but nothing new came in
+        now += MINUTE;
+        assertSame(first, engine.getToday());
+        assertEquals(2, eventReads);
+
+        events.add(new Object[] {MAIL, UsageEventIngestor.EVENT_FOREGROUND, now});
+        now += MINUTE;
+        Map<String, UsageEngine.UsageRecord> opened = engine.getToday();
+        assertNotSame(first, opened);
+        assertEquals(MINUTE, opened.get(MAIL).totalTimeInForeground);
+
+        // An open session keeps growing, so each refresh rebuilds
+        now += MINUTE;
+        Map<String, UsageEngine.UsageRecord> grown = engine.getToday();
+        assertNotSame(opened, grown);
+        assertEquals(2 * MINUTE, grown.get(MAIL).totalTimeInForeground);
+    }
+
+    @Test
+    public void invalidateRefreshesIngestedToday() {
+        UsageEngine engine = newIngestingEngine();
+        engine.getToday();
+        now += 200;
+        engine.invalidate();
+        engine.getToday();
+
+        assertEquals(2, eventReads);
+    }
+
+    private UsageEngine newIngestingEngine() {
+        UsageEventIngestor ingestor = new UsageEventIngestor(
+            eventSource, null, clock, new File(folder.getRoot(), "buckets.bin"));
+        return new UsageEngine(source, ingestor, null, clock);
+    }
+
+    private static long at(int year, int month, int day, int hour, int minute) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month, day, hour, minute);
+        return calendar.getTimeInMillis();
+    }
+}
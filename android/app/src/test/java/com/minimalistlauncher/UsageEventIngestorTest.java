@@ -0,0 +1,263 @@
+package com.minimalistlauncher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+public class UsageEventIngestorTest {
+
+    private static final long MINUTE = 60 * 1000;
+    private static final String MAIL = "com.example.mail";
+    private static final String MAIL_INBOX = "com.example.mail.InboxActivity";
+    private static final String MAIL_COMPOSE = "com.example.mail.ComposeActivity";
+    private static final String MAPS = "com.example.maps";
+    private static final String MAPS_MAIN = "com.example.maps.MainActivity";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TimeZone defaultZone;
+    private final List<Object[]> events = new ArrayList<>();
+    private long now;
+
+    private final UsageEventIngestor.EventSource source = (beginTime, endTime, sink) -> {
+        for (Object[] event : events) {
+            long timeStamp = (Long) event[3];
+            if (timeStamp >= beginTime && timeStamp < endTime) {
+                sink.onEvent((String) event[0], (String) event[1], (Integer) event[2], timeStamp);
+            }
+        }
+    };
+
+    private final Clock clock = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+
+        @Override
+        public long elapsedRealtime() {
+            return now;
+        }
+    };
+
+    @Before
+    public void setUp() {
+        defaultZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(defaultZone);
+    }
+
+    @Test
+    public void splitsSessionAcrossMidnight() {
+        long day = day(2026, Calendar.OCTOBER, 16);
+        long nextDay = day(2026, Calendar.OCTOBER, 17);
+        now = day;
+        UsageEventIngestor ingestor = newIngestor();
+        ingestor.refresh();
+
+        event(MAIL, MAIL_INBOX, UsageEventIngestor.EVENT_FOREGROUND, at(day, 23, 30));
+        event(MAIL, MAIL_INBOX, UsageEventIngestor.EVENT_BACKGROUND, at(nextDay, 0, 45));
+        now = at(nextDay, 1, 0);
+        ingestor.refresh();
+
+        UsageEventIngestor.AppDay first = ingestor.getDay(day).get(MAIL);
+        assertEquals(30 * MINUTE, first.foregroundMs[23]);
+        assertEquals(30 * MINUTE, first.totalForegroundMs());
+        assertEquals(1, first.sessions[23]);
+
+        UsageEventIngestor.AppDay second = ingestor.getDay(nextDay).get(MAIL);
+        assertEquals(45 * MINUTE, second.foregroundMs[0]);
+        assertEquals(45 * MINUTE, second.totalForegroundMs());
+        assertEquals(0, second.totalSessions());
+    }
+
+    @Test
+    public void skipsTheMissingHourWhenDstStarts() {
+        // 02:00 doesn't exist on this day; hour buckets count elapsed hours
+        long day = day(2026, Calendar.MARCH, 8);
+        now = day;
+        UsageEventIngestor ingestor = newIngestor();
+        ingestor.refresh();
+
+        event(MAIL, MAIL_INBOX, UsageEventIngestor.EVENT_FOREGROUND, at(day, 1, 30));
+        event(MAIL, MAIL_INBOX, UsageEventIngestor.EVENT_BACKGROUND, at(day, 3, 30));
+        now = at(day, 4, 0);
+        ingestor.refresh();
+
+        UsageEventIngestor.AppDay appDay = ingestor.getDay(day).get(MAIL);
+        assertEquals(30 * MINUTE, appDay.foregroundMs[1]);
+        assertEquals(30 * MINUTE, appDay.foregroundMs[2]);
+        assertEquals(60 * MINUTE, appDay.totalForegroundMs());
+    }
+
+    @Test
+    public void usesTheExtraHourWhenDstEnds() {
+        // 01:00 to 02:00 happens twice, so the day has 25 hour buckets
+        long day = day(2026, Calendar.NOVEMBER, 1);
+        long nextDay = day(2026, Calendar.NOVEMBER, 2);
+        now = day;
+        UsageEventIngestor ingestor = newIngestor();
+        ingestor.refresh();
+
+        event(MAIL, MAIL_INBOX, UsageEventIngestor.EVENT_FOREGROUND, at(day, 0, 30));
+        event(MAIL, MAIL_INBOX, UsageEventIngestor.EVENT_BACKGROUND, at(day, 3, 0));
+        event(MAIL, MAIL_INBOX, UsageEventIngestor.EVENT_FOREGROUND, at(day, 23, 0));
+        event(MAIL, MAIL_INBOX, UsageEventIngestor.EVENT_BACKGROUND, at(nextDay, 0, 30));
+        now = at(nextDay, 1, 0);
+        ingestor.refresh();
+
+        UsageEventIngestor.AppDay appDay = ingestor.getDay(day).get(MAIL);
+        assertEquals(30 * MINUTE, appDay.foregroundMs[0]);
+        assertEquals(60 * MINUTE, appDay.foregroundMs[1]);
+        assertEquals(60 * MINUTE, appDay.foregroundMs[2]);
+        assertEquals(60 * MINUTE, appDay.foregroundMs[3]);
+        assertEquals(60 * MINUTE, appDay.foregroundMs[24]);
+        assertEquals(270 * MINUTE, appDay.totalForegroundMs());
+
+        assertEquals(30 * MINUTE, ingestor.getDay(nextDay).get(MAIL).foregroundMs[0]);
+    }
+
+    @Test
+    public void keepsOpenSessionAcrossReload() {
+        long day = day(2026, Calendar.OCTOBER, 16);
+        now = day;
+        newIngestor().refresh();
+
+        event(MAIL, MAIL_INBOX, UsageEventIngestor.EVENT_FOREGROUND, at(day, 9, 0));
+        now = at(day, 9, 20);
+        UsageEventIngestor ingestor = newIngestor();
+        ingestor.refresh();
+
+        // The open session is counted up to the last refresh
+        assertEquals(20 * MINUTE, ingestor.getDay(day).get(MAIL).totalForegroundMs());
+
+        event(MAIL, MAIL_INBOX, UsageEventIngestor.EVENT_BACKGROUND, at(day, 9, 40));
+        now = at(day, 10, 0);
+        UsageEventIngestor reloaded = newIngestor();
+        reloaded.refresh();
+
+        UsageEventIngestor.AppDay appDay = reloaded.getDay(day).get(MAIL);
+        assertEquals(40 * MINUTE, appDay.totalForegroundMs());
+        assertEquals(1, appDay.totalSessions());
+        assertNull(reloaded.getDay(day(2026, Calendar.OCTOBER, 15)));
+    }
+
+    @Test
+    public void movingBetweenActivitiesKeepsOneSession() {
+        long day = day(2026, Calendar.OCTOBER, 16);
+        now = day;
+        UsageEventIngestor ingestor = newIngestor();
+        ingestor.refresh();
+        List<String> starts = new ArrayList<>();
+        ingestor.setSessionListener((packageName, timeStamp) -> starts.add(packageName));
+
+        event(MAIL, MAIL_INBOX, UsageEventIngestor.EVENT_FOREGROUND, at(day, 9, 0));
+        event(MAIL, MAIL_INBOX, UsageEventIngestor.EVENT_BACKGROUND, at(day, 9, 10));
+        event(MAIL, MAIL_COMPOSE, UsageEventIngestor.EVENT_FOREGROUND, at(day, 9, 10));
+        event(MAIL, MAIL_INBOX, UsageEventIngestor.EVENT_ACTIVITY_STOPPED, at(day, 9, 11));
+        event(MAIL, MAIL_COMPOSE, UsageEventIngestor.EVENT_BACKGROUND, at(day, 9, 20));
+        event(MAIL, MAIL_INBOX, UsageEventIngestor.EVENT_FOREGROUND, at(day, 9, 20));
+        event(MAIL, MAIL_COMPOSE, UsageEventIngestor.EVENT_ACTIVITY_STOPPED, at(day, 9, 21));
+        event(MAIL, MAIL_INBOX, UsageEventIngestor.EVENT_BACKGROUND, at(day, 9, 30));
+        event(MAIL, MAIL_INBOX, UsageEventIngestor.EVENT_ACTIVITY_STOPPED, at(day, 9, 31));
+
+        // Coming back after the last activity stopped is a new session
+        event(MAIL, MAIL_INBOX, UsageEventIngestor.EVENT_FOREGROUND, at(day, 10, 0));
+        event(MAIL, MAIL_INBOX, UsageEventIngestor.EVENT_BACKGROUND, at(day, 10, 5));
+        now = at(day, 11, 0);
+        ingestor.refresh();
+
+        UsageEventIngestor.AppDay appDay = ingestor.getDay(day).get(MAIL);
+        assertEquals(35 * MINUTE, appDay.totalForegroundMs());
+        assertEquals(1, appDay.sessions[9]);
+        assertEquals(1, appDay.sessions[10]);
+        assertEquals(2, starts.size());
+    }
+
+    @Test
+    public void anotherAppEndsAPausedSession() {
+        // Before Android 10 there are no stop events at all
+        long day = day(2026, Calendar.OCTOBER, 16);
+        now = day;
+        UsageEventIngestor ingestor = newIngestor();
+        ingestor.refresh();
+
+        event(MAIL, MAIL_INBOX, UsageEventIngestor.EVENT_FOREGROUND, at(day, 9, 0));
+        event(MAIL, MAIL_INBOX, UsageEventIngestor.EVENT_BACKGROUND, at(day, 9, 10));
+        event(MAPS, MAPS_MAIN, UsageEventIngestor.EVENT_FOREGROUND, at(day, 9, 10));
+        event(MAPS, MAPS_MAIN, UsageEventIngestor.EVENT_BACKGROUND, at(day, 9, 20));
+        event(MAIL, MAIL_INBOX, UsageEventIngestor.EVENT_FOREGROUND, at(day, 9, 20));
+        event(MAIL, MAIL_INBOX, UsageEventIngestor.EVENT_BACKGROUND, at(day, 9, 30));
+        now = at(day, 10, 0);
+        ingestor.refresh();
+
+        Map<String, UsageEventIngestor.AppDay> buckets = ingestor.getDay(day);
+        assertEquals(2, buckets.get(MAIL).totalSessions());
+        assertEquals(1, buckets.get(MAPS).totalSessions());
+    }
+
+    @Test
+    public void screenOffEndsTheSession() {
+        long day = day(2026, Calendar.OCTOBER, 16);
+        now = day;
+        newIngestor().refresh();
+
+        event(MAIL, MAIL_INBOX, UsageEventIngestor.EVENT_FOREGROUND, at(day, 9, 0));
+        event(MAIL, MAIL_INBOX, UsageEventIngestor.EVENT_BACKGROUND, at(day, 9, 10));
+        now = at(day, 9, 15);
+        newIngestor().refresh();
+
+        // Still paused, not stopped, when the ingestor was reloaded
+        event(MAIL, MAIL_INBOX, UsageEventIngestor.EVENT_FOREGROUND, at(day, 9, 20));
+        event(MAIL, MAIL_INBOX, UsageEventIngestor.EVENT_SCREEN_NON_INTERACTIVE, at(day, 9, 30));
+        event(MAIL, MAIL_INBOX, UsageEventIngestor.EVENT_FOREGROUND, at(day, 9, 40));
+        event(MAIL, MAIL_INBOX, UsageEventIngestor.EVENT_BACKGROUND, at(day, 9, 50));
+        now = at(day, 10, 0);
+        UsageEventIngestor ingestor = newIngestor();
+        ingestor.refresh();
+
+        UsageEventIngestor.AppDay appDay = ingestor.getDay(day).get(MAIL);
+        assertEquals(30 * MINUTE, appDay.totalForegroundMs());
+        assertEquals(2, appDay.totalSessions());
+    }
+
+    private UsageEventIngestor newIngestor() {
+        return new UsageEventIngestor(source, null, clock, new File(folder.getRoot(), "buckets.bin"));
+    }
+
+    private void event(String packageName, String className, int type, long timeStamp) {
+        events.add(new Object[] {packageName, className, type, timeStamp});
+    }
+
+    private static long day(int year, int month, int dayOfMonth) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month, dayOfMonth);
+        return calendar.getTimeInMillis();
+    }
+
+    private static long at(long day, int hour, int minute) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(day);
+        calendar.set(Calendar.HOUR_OF_DAY, hour);
+        calendar.set(Calendar.MINUTE, minute);
+        return calendar.getTimeInMillis();
+    }
+}
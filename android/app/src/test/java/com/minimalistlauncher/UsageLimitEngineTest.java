@@ -0,0 +1,140 @@
+package com.minimalistlauncher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+
+public class UsageLimitEngineTest {
+
+    private static final long MINUTE = 60 * 1000;
+    private static final String MAIL = "com.example.mail";
+
+    private long wallNow;
+    private long elapsedNow;
+    private final List<Runnable> pending = new ArrayList<>();
+    private final List<Long> delays = new ArrayList<>();
+    private final List<String> reached = new ArrayList<>();
+    private final List<String> warned = new ArrayList<>();
+
+    private final Clock clock = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return wallNow;
+        }
+
+        @Override
+        public long elapsedRealtime() {
+            return elapsedNow;
+        }
+    };
+
+    private final UsageLimitEngine.Scheduler scheduler = new UsageLimitEngine.Scheduler() {
+        @Override
+        public void schedule(Runnable task, long delayMs) {
+            pending.add(task);
+            delays.add(delayMs);
+        }
+
+        @Override
+        public void cancel(Runnable task) {
+            int index = pending.indexOf(task);
+            if (index >= 0) {
+                pending.remove(index);
+                delays.remove(index);
+            }
+        }
+    };
+
+    private final UsageLimitEngine.Listener listener = new UsageLimitEngine.Listener() {
+        @Override
+        public void onLimitWarning(String packageName, long remainingMs) {
+            warned.add(packageName);
+        }
+
+        @Override
+        public void onLimitReached(String packageName) {
+            reached.add(packageName);
+        }
+    };
+
+    @Test
+    public void warnsThenReachesLimit() {
+        wallNow = at(10, 0);
+        UsageLimitEngine engine = new UsageLimitEngine(clock, scheduler, listener);
+        engine.setLimits(Collections.singletonMap(MAIL, 30 * MINUTE));
+        engine.onForegroundChanged(MAIL);
+        assertEquals(Long.valueOf(24 * MINUTE), delays.get(0));
+
+        advance(24 * MINUTE);
+        runPending();
+        assertEquals(Collections.singletonList(MAIL), warned);
+        assertEquals(Long.valueOf(6 * MINUTE), delays.get(0));
+
+        advance(6 * MINUTE);
+        runPending();
+        assertEquals(Collections.singletonList(MAIL), reached);
+        assertTrue(engine.isLimitReached(MAIL));
+        assertTrue(pending.isEmpty());
+    }
+
+    @Test
+    public void sessionAcrossMidnightCountsTodaysPart() {
+        wallNow = at(23, 50);
+        UsageLimitEngine engine = new UsageLimitEngine(clock, scheduler, listener);
+        engine.setLimits(Collections.singletonMap(MAIL, 30 * MINUTE));
+        engine.onForegroundChanged(MAIL);
+
+        advance(25 * MINUTE);
+        assertEquals(Long.valueOf(15 * MINUTE), engine.getUsage().get(MAIL));
+        assertFalse(engine.isLimitReached(MAIL));
+
+        // Re-armed for today's numbers, with one check pending
+        assertEquals(1, pending.size());
+        assertEquals(Long.valueOf(9 * MINUTE), delays.get(0));
+    }
+
+    @Test
+    public void newDayClearsReachedLimit() {
+        wallNow = at(23, 0);
+        UsageLimitEngine engine = new UsageLimitEngine(clock, scheduler, listener);
+        engine.setLimits(Collections.singletonMap(MAIL, 30 * MINUTE));
+        engine.onForegroundChanged(MAIL);
+        advance(30 * MINUTE);
+        runPending();
+        assertTrue(engine.isLimitReached(MAIL));
+
+        // Still open at 00:10, so only ten minutes count for the new day
+        advance(40 * MINUTE);
+        assertEquals(Long.valueOf(10 * MINUTE), engine.getUsage().get(MAIL));
+        assertFalse(engine.isLimitReached(MAIL));
+        assertEquals(1, pending.size());
+    }
+
+    private void advance(long ms) {
+        wallNow += ms;
+        elapsedNow += ms;
+    }
+
+    private void runPending() {
+        List<Runnable> tasks = new ArrayList<>(pending);
+        pending.clear();
+        delays.clear();
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+
+    private static long at(int hour, int minute) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(2026, Calendar.OCTOBER, 16, hour, minute);
+        return calendar.getTimeInMillis();
+    }
+}
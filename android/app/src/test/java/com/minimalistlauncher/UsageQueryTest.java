@@ -0,0 +1,117 @@
+package com.minimalistlauncher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class UsageQueryTest {
+
+    private static final long MINUTE = 60 * 1000;
+
+    // 400 packages as the system reports them: most never came to the foreground
+    private static List<UsageEngine.UsageRecord> fixture() {
+        List<UsageEngine.UsageRecord> records = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            long foreground = i % 10 < 7 ? 0 : (i % 37) * MINUTE + i * 1000;
+            records.add(new UsageEngine.UsageRecord(String.format("com.example.app%03d", i),
+                foreground, 1000000 + i, 0, 2000000, foreground > 0 ? 1 + i % 5 : 0));
+        }
+        return records;
+    }
+
+    @Test
+    public void unusedPackagesAreDroppedAndTheRestRanked() {
+        UsageQuery.Page page = new UsageQuery().setPageSize(500).run(fixture());
+
+        assertEquals(120, page.matchedCount);
+        assertEquals(120, page.entries.size());
+        assertNull(page.nextCursor);
+        for (int i = 1; i < page.entries.size(); i++) {
+            assertTrue(page.entries.get(i - 1).totalTimeInForeground
+                >= page.entries.get(i).totalTimeInForeground);
+        }
+    }
+
+    @Test
+    public void minForegroundAndTopNNarrowTheResult() {
+        UsageQuery.Page page = new UsageQuery()
+            .setMinForegroundMs(10 * MINUTE)
+            .setTopN(5)
+            .run(fixture());
+
+        assertEquals(5, page.entries.size());
+        assertEquals(5, page.matchedCount);
+        assertNull(page.nextCursor);
+        for (UsageEngine.UsageRecord record : page.entries) {
+            assertTrue(record.totalTimeInForeground >= 10 * MINUTE);
+        }
+    }
+
+    @Test
+    public void pagesCoverEveryMatchOnce() {
+        List<UsageEngine.UsageRecord> records = fixture();
+        Set<String> seen = new HashSet<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            UsageQuery.Page page = new UsageQuery().setPageSize(20).setCursor(cursor).run(records);
+            for (UsageEngine.UsageRecord record : page.entries) {
+                assertTrue(seen.add(record.packageName));
+            }
+            cursor = page.nextCursor;
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(120, seen.size());
+        assertEquals(6, pages);
+    }
+
+    @Test
+    public void bridgedPayloadHarness() {
+        List<UsageEngine.UsageRecord> records = fixture();
+
+        // Before: every package in one map, as getUsageStats sent it
+        StringBuilder before = new StringBuilder("{");
+        for (UsageEngine.UsageRecord record : records) {
+            if (before.length() > 1) before.append(',');
+            before.append('"').append(record.packageName).append("\":{")
+                .append("\"totalTimeInForeground\":").append((double) record.totalTimeInForeground)
+                .append(",\"lastTimeUsed\":").append((double) record.lastTimeUsed)
+                .append(",\"firstTimeStamp\":").append((double) record.firstTimeStamp)
+                .append(",\"lastTimeStamp\":").append((double) record.lastTimeStamp)
+                .append('}');
+        }
+        before.append('}');
+
+        // After: the first page the Usage Stats screen asks for, as toWritablePage builds it
+        UsageQuery.Page page = new UsageQuery().setPageSize(20).run(records);
+        StringBuilder after = new StringBuilder("{\"entries\":[");
+        for (int i = 0; i < page.entries.size(); i++) {
+            UsageEngine.UsageRecord record = page.entries.get(i);
+            if (i > 0) after.append(',');
+            after.append("{\"packageName\":\"").append(record.packageName)
+                .append("\",\"appName\":\"").append(record.packageName)
+                .append("\",\"totalTimeInForeground\":").append((double) record.totalTimeInForeground)
+                .append(",\"lastTimeUsed\":").append((double) record.lastTimeUsed)
+                .append(",\"sessionCount\":").append(record.sessionCount)
+                .append('}');
+        }
+        after.append("],\"nextCursor\":\"").append(page.nextCursor)
+            .append("\",\"matchedCount\":").append(page.matchedCount)
+            .append(",\"totalForegroundMs\":").append((double) page.totalForegroundMs)
+            .append('}');
+
+        System.out.printf("400 packages: before %d entries, %d bytes; first page %d entries, "
+            + "%d bytes%n", records.size(), before.length(), page.entries.size(), after.length());
+
+        assertEquals(20, page.entries.size());
+        assertTrue(after.length() * 10 < before.length());
+    }
+}
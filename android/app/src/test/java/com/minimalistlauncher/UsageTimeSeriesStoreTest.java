@@ -0,0 +1,87 @@
+package com.minimalistlauncher;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+public class UsageTimeSeriesStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Locale defaultLocale;
+    private TimeZone defaultZone;
+
+    @Before
+    public void setUp() {
+        defaultLocale = Locale.getDefault();
+        defaultZone = TimeZone.getDefault();
+        // Weeks start on Sunday in this locale
+        Locale.setDefault(Locale.US);
+        TimeZone.setDefault(TimeZone.getTimeZone("Europe/Berlin"));
+    }
+
+    @After
+    public void tearDown() {
+        Locale.setDefault(defaultLocale);
+        TimeZone.setDefault(defaultZone);
+    }
+
+    @Test
+    public void weeksStartOnMondayWhateverTheLocale() {
+        // Sunday 2026-03-29 is also the day DST starts in Berlin
+        assertEquals(day(2026, Calendar.MARCH, 23),
+            UsageTimeSeriesStore.weekStart(day(2026, Calendar.MARCH, 29) + 12 * 3600000L));
+        assertEquals(day(2026, Calendar.MARCH, 30),
+            UsageTimeSeriesStore.weekStart(day(2026, Calendar.MARCH, 30)));
+        assertEquals(day(2026, Calendar.MARCH, 30),
+            UsageTimeSeriesStore.nextWeekStart(day(2026, Calendar.MARCH, 23)));
+    }
+
+    @Test
+    public void rangeQueriesAddUpSealedDays() throws IOException {
+        UsageTimeSeriesStore store = new UsageTimeSeriesStore(folder.getRoot());
+        long monday = day(2026, Calendar.MARCH, 23);
+        long day = monday;
+        for (int i = 0; i < 8; i++) {
+            store.sealDay(day, usage("com.example.mail", 10 * 60000L));
+            day = UsageEventIngestor.nextDayStart(day);
+        }
+
+        assertEquals(Long.valueOf(80 * 60000L),
+            store.queryRange(monday, day).get("com.example.mail"));
+        assertEquals(Long.valueOf(30 * 60000L),
+            store.queryRange(day(2026, Calendar.MARCH, 28), day).get("com.example.mail"));
+
+        // Rollups are read back from disk
+        UsageTimeSeriesStore reloaded = new UsageTimeSeriesStore(folder.getRoot());
+        assertEquals(Long.valueOf(80 * 60000L),
+            reloaded.queryRange(monday, day).get("com.example.mail"));
+    }
+
+    private static Map<String, UsageEventIngestor.AppDay> usage(String packageName, long ms) {
+        UsageEventIngestor.AppDay appDay = new UsageEventIngestor.AppDay();
+        appDay.foregroundMs[9] = ms;
+        Map<String, UsageEventIngestor.AppDay> day = new HashMap<>();
+        day.put(packageName, appDay);
+        return day;
+    }
+
+    private static long day(int year, int month, int dayOfMonth) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month, dayOfMonth);
+        return calendar.getTimeInMillis();
+    }
+}
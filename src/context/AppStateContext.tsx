@@ -12,6 +12,7 @@ import {StorageService} from '../services/StorageService';
 interface AppStateContextType {
   installedApps: App[];
   favorites: string[];
+  suggestedApps: App[];
   appUsage: AppUsage;
   loading: boolean;
   refreshApps: () => Promise<void>;
@@ -20,6 +21,9 @@ interface AppStateContextType {
   getUsageCount: (packageName: string) => number;
 }
 
+// Enough to fill the home screen's five slots around any favorites
+const SUGGESTION_LIMIT = 10;
+
 const AppStateContext = createContext<AppStateContextType | undefined>(
   undefined,
 );
@@ -27,6 +31,7 @@ const AppStateContext = createContext<AppStateContextType | undefined>(
 export function AppStateProvider({children}: {children: ReactNode}) {
   const [installedApps, setInstalledApps] = useState<App[]>([]);
   const [favorites, setFavorites] = useState<string[]>([]);
+  const [suggestedApps, setSuggestedApps] = useState<App[]>([]);
   const [appUsage, setAppUsage] = useState<AppUsage>({});
   const [loading, setLoading] = useState(true);
 
@@ -38,14 +43,16 @@ export function AppStateProvider({children}: {children: ReactNode}) {
   const loadData = async () => {
     setLoading(true);
     try {
-      // Load favorites and app usage from storage
-      const [storedFavorites, storedUsage, apps] = await Promise.all([
+      // Load favorites from storage and launch counts from native
+      const [storedFavorites, storedUsage, apps, suggested] = await Promise.all([
         StorageService.getFavorites(),
-        StorageService.getAppUsage(),
+        AppService.getLaunchCounts(),
         AppService.getInstalledApps(),
+        AppService.getSuggestedApps(SUGGESTION_LIMIT),
       ]);
 
       setFavorites(storedFavorites);
+      setSuggestedApps(suggested);
       setAppUsage(storedUsage);
       setInstalledApps(apps);
     } catch (error) {
@@ -67,9 +74,12 @@ export function AppStateProvider({children}: {children: ReactNode}) {
 
   const launchApp = async (packageName: string) => {
     await AppService.launchApp(packageName);
-    // Reload app usage to reflect the new launch
-    const usage = await StorageService.getAppUsage();
-    setAppUsage(usage);
+    // Count locally; native has already recorded the launch
+    setAppUsage(usage => ({
+      ...usage,
+      [packageName]: (usage[packageName] || 0) + 1,
+    }));
+    setSuggestedApps(await AppService.getSuggestedApps(SUGGESTION_LIMIT));
   };
 
   const getUsageCount = (packageName: string): number => {
@@ -81,6 +91,7 @@ export function AppStateProvider({children}: {children: ReactNode}) {
       value={{
         installedApps,
         favorites,
+        suggestedApps,
         appUsage,
         loading,
         refreshApps,
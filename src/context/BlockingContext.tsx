@@ -15,7 +15,7 @@ interface BlockingContextType {
   activeFocusMode: FocusModeConfig | null;
   focusModes: FocusModeConfig[];
   grayscaleEnabled: boolean;
-  activateFocusMode: (mode: FocusModeConfig, installedApps: string[]) => Promise<void>;
+  activateFocusMode: (mode: FocusModeConfig) => Promise<void>;
   deactivateFocusMode: () => Promise<void>;
   toggleGrayscale: () => Promise<void>;
   isAccessibilityEnabled: boolean;
@@ -27,6 +27,38 @@ const BlockingContext = createContext<BlockingContextType | undefined>(
   undefined,
 );
 
+// Switching from one focus mode to another sends only the apps that
+// change. Resolves false when no allowlist is active or it changed meanwhile.
+async function switchAllowedApps(
+  allowedApps: string[],
+  reason: string,
+): Promise<boolean> {
+  const current = await AppBlockingModule.getBlockedApps();
+  if (current.mode !== 'allowlist') {
+    return false;
+  }
+
+  const next = new Set(allowedApps);
+  const previous = new Set(current.packages);
+  // Blocking takes an app off the allowlist, unblocking puts it on
+  const adds = current.packages.filter(p => !next.has(p));
+  const removes = allowedApps.filter(p => !previous.has(p));
+  try {
+    await AppBlockingModule.applyBlocklistDelta(
+      adds,
+      removes,
+      reason,
+      current.version,
+    );
+    return true;
+  } catch (error: any) {
+    if (error?.code === 'STALE_VERSION') {
+      return false;
+    }
+    throw error;
+  }
+}
+
 export function BlockingProvider({children}: {children: ReactNode}) {
   const [activeFocusMode, setActiveFocusMode] =
     useState<FocusModeConfig | null>(null);
@@ -62,7 +94,7 @@ export function BlockingProvider({children}: {children: ReactNode}) {
       }
 
       // Load grayscale state
-      const isGrayscale = await GrayscaleModule.isGrayscaleEnabled();
+      const isGrayscale = GrayscaleModule.isGrayscaleEnabledSync();
       setGrayscaleEnabled(isGrayscale);
     } catch (error) {
       console.error('Error loading blocking data:', error);
@@ -71,7 +103,7 @@ export function BlockingProvider({children}: {children: ReactNode}) {
 
   const checkAccessibilityPermission = async () => {
     try {
-      const isEnabled = await AppBlockingModule.isAccessibilityServiceEnabled();
+      const isEnabled = AppBlockingModule.isAccessibilityServiceEnabledSync();
       setIsAccessibilityEnabled(isEnabled);
     } catch (error) {
       console.error('Error checking accessibility permission:', error);
@@ -87,18 +119,13 @@ export function BlockingProvider({children}: {children: ReactNode}) {
     }
   };
 
-  const activateFocusMode = async (
-    mode: FocusModeConfig,
-    installedApps: string[],
-  ) => {
+  const activateFocusMode = async (mode: FocusModeConfig) => {
     try {
-      // Calculate which apps to block (all apps except allowed ones)
-      const blockedApps = installedApps.filter(
-        pkg => !mode.allowedApps.includes(pkg),
-      );
-
-      // Set blocked apps via native module
-      await AppBlockingModule.setBlockedApps(blockedApps, `Focus Mode: ${mode.name}`);
+      // Native blocks everything else, including apps installed later
+      const reason = `Focus Mode: ${mode.name}`;
+      if (!(await switchAllowedApps(mode.allowedApps, reason))) {
+        await AppBlockingModule.setAllowedApps(mode.allowedApps, reason);
+      }
 
       // Enable grayscale if specified
       if (mode.enableGrayscale) {
@@ -1,14 +1,130 @@
-import {NativeModules} from 'react-native';
+import {NativeEventEmitter} from 'react-native';
+import NativeAppBlockingModule from '../specs/NativeAppBlockingModule';
+
+// Blocks the packages between startMinute and endMinute (minutes after
+// midnight) on the given days (0 = Sunday). An end before the start runs
+// past midnight.
+export interface BlockSchedule {
+  packages: string[];
+  days: number[];
+  startMinute: number;
+  endMinute: number;
+}
+
+export interface BlocklistState {
+  version: number;
+  // In allowlist mode, packages are the apps let through
+  mode: 'blocklist' | 'allowlist';
+  packages: string[];
+  reason: string;
+}
+
+export interface BlockingLatencyStats {
+  count: number;
+  averageMs: number;
+  maxMs: number;
+  lastMs: number;
+}
+
+export interface ForegroundEventStats {
+  foreground: string;
+  received: number;
+  ignored: number;
+  coalesced: number;
+  actedOn: number;
+}
+
+export const FOREGROUND_ALLOWED = 0;
+export const FOREGROUND_BLOCKED = 1;
+
+// A batch of foreground changes; event i is for
+// packages[packageIndexes[i]]. dropped counts events lost to the native
+// buffer overflowing while nothing was listening.
+export interface ForegroundBatch {
+  packages: string[];
+  packageIndexes: number[];
+  timestamps: number[];
+  decisions: number[];
+  dropped: number;
+}
+
+export interface ForegroundTotals {
+  [packageName: string]: {opened: number; blocked: number};
+}
 
 interface AppBlockingModuleType {
   isAccessibilityServiceEnabled(): Promise<boolean>;
+  // Synchronous JSI reads, cheap enough to call during render
+  isAccessibilityServiceEnabledSync(): boolean;
+  isPackageBlockedSync(packageName: string): boolean;
   requestAccessibilityPermission(): Promise<boolean>;
   setBlockedApps(packageNames: string[], reason: string): Promise<boolean>;
+  // Blocks every launchable app except these and system essentials;
+  // apps installed later are blocked too
+  setAllowedApps(packageNames: string[], reason: string): Promise<boolean>;
   addBlockedApp(packageName: string, reason: string): Promise<boolean>;
   removeBlockedApp(packageName: string): Promise<boolean>;
   clearBlockedApps(): Promise<boolean>;
+  // Blocks adds and unblocks removes, in either mode. Resolves with the new
+  // version; rejects with STALE_VERSION if the list changed since
+  // expectedVersion (pass -1 to skip the check)
+  applyBlocklistDelta(
+    adds: string[],
+    removes: string[],
+    reason: string,
+    expectedVersion: number,
+  ): Promise<number>;
+  getBlockedApps(): Promise<BlocklistState>;
   setBreakGlassPhrase(phrase: string): Promise<boolean>;
+  // How long a correct break glass phrase lets the app run
+  setBreakGlassDuration(minutes: number): Promise<boolean>;
+  setAppLimit(packageName: string, minutesPerDay: number): Promise<boolean>;
+  removeAppLimit(packageName: string): Promise<boolean>;
+  getAppLimits(): Promise<{[packageName: string]: number}>;
+  setSchedules(schedules: BlockSchedule[]): Promise<boolean>;
+  getSchedules(): Promise<BlockSchedule[]>;
+  // Event-to-visible latency per blocking path ("overlay" or "activity")
+  getBlockingLatencyStats(): Promise<{[path: string]: BlockingLatencyStats}>;
+  // Window events within this many ms of a foreground change are collapsed
+  setEventCoalescingWindow(windowMs: number): Promise<boolean>;
+  // Null while the accessibility service isn't running
+  getForegroundEventStats(): Promise<ForegroundEventStats | null>;
+  addListener(eventName: string): void;
+  removeListeners(count: number): void;
 }
 
-export const AppBlockingModule: AppBlockingModuleType =
-  NativeModules.AppBlockingModule;
+// The spec types results as Object, since codegen can't describe them
+export const AppBlockingModule =
+  NativeAppBlockingModule as unknown as AppBlockingModuleType;
+
+const FOREGROUND_BATCH_EVENT = 'AppBlockingForegroundBatch';
+
+// Keeps running per-package totals from the native foreground feed. The
+// totals object is updated in place and passed to onChange after each
+// batch; call the returned function to unsubscribe. While subscribed the
+// service watches every app; changes buffered before that only cover the
+// apps the blocking rules name.
+export function subscribeToForegroundTotals(
+  onChange: (totals: ForegroundTotals, dropped: number) => void,
+): () => void {
+  const totals: ForegroundTotals = {};
+  let dropped = 0;
+  const emitter = new NativeEventEmitter(AppBlockingModule);
+  const subscription = emitter.addListener(
+    FOREGROUND_BATCH_EVENT,
+    (batch: ForegroundBatch) => {
+      for (let i = 0; i < batch.packageIndexes.length; i++) {
+        const packageName = batch.packages[batch.packageIndexes[i]];
+        const entry =
+          totals[packageName] ?? (totals[packageName] = {opened: 0, blocked: 0});
+        entry.opened++;
+        if (batch.decisions[i] === FOREGROUND_BLOCKED) {
+          entry.blocked++;
+        }
+      }
+      dropped += batch.dropped;
+      onChange(totals, dropped);
+    },
+  );
+  return () => subscription.remove();
+}
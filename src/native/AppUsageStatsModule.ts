@@ -1,4 +1,33 @@
-import {NativeModules} from 'react-native';
+import NativeAppUsageStatsModule from '../specs/NativeAppUsageStatsModule';
+
+export interface UsageQueryOptions {
+  // Epoch millis; both omitted means today
+  startTime?: number;
+  endTime?: number;
+  minForegroundMs?: number;
+  topN?: number;
+  pageSize?: number;
+  sortBy?: 'foreground' | 'lastUsed';
+  cursor?: string | null;
+  // A newer query in the same group rejects this one with code SUPERSEDED
+  requestGroup?: string;
+}
+
+export interface UsageEntry {
+  packageName: string;
+  // Falls back to the package name for uninstalled apps
+  appName: string;
+  totalTimeInForeground: number;
+  lastTimeUsed: number;
+  sessionCount: number;
+}
+
+export interface UsagePage {
+  entries: UsageEntry[];
+  nextCursor: string | null;
+  matchedCount: number;
+  totalForegroundMs: number;
+}
 
 interface AppUsageStatsModuleType {
   hasUsageStatsPermission(): Promise<boolean>;
@@ -7,6 +36,7 @@ interface AppUsageStatsModuleType {
     [packageName: string]: {
       totalTimeInForeground: number;
       lastTimeUsed: number;
+      sessionCount: number;
       firstTimeStamp: number;
       lastTimeStamp: number;
     };
@@ -15,15 +45,26 @@ interface AppUsageStatsModuleType {
     [packageName: string]: {
       totalTimeInForeground: number;
       lastTimeUsed: number;
+      sessionCount: number;
     };
   }>;
   getTodayUsage(): Promise<{
     [packageName: string]: {
       totalTimeInForeground: number;
       lastTimeUsed: number;
+      sessionCount: number;
+    };
+  }>;
+  // Inclusive YYYY-MM-DD range, served from on-device rollups
+  getUsageHistory(startDate: string, endDate: string): Promise<{
+    [packageName: string]: {
+      totalTimeInForeground: number;
     };
   }>;
+  queryUsage(options: UsageQueryOptions): Promise<UsagePage>;
+  invalidateUsageCache(): Promise<boolean>;
 }
 
-export const AppUsageStatsModule: AppUsageStatsModuleType =
-  NativeModules.AppUsageStatsModule;
+// The spec types results as Object, since codegen can't describe them
+export const AppUsageStatsModule =
+  NativeAppUsageStatsModule as unknown as AppUsageStatsModuleType;
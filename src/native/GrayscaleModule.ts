@@ -1,11 +1,13 @@
-import {NativeModules} from 'react-native';
+import NativeGrayscaleModule from '../specs/NativeGrayscaleModule';
 
 interface GrayscaleModuleType {
   enableGrayscale(): Promise<boolean>;
   disableGrayscale(): Promise<boolean>;
   isGrayscaleEnabled(): Promise<boolean>;
+  // Synchronous JSI call, cheap enough to make during render
+  isGrayscaleEnabledSync(): boolean;
   toggleGrayscale(): Promise<boolean>;
 }
 
-export const GrayscaleModule: GrayscaleModuleType =
-  NativeModules.GrayscaleModule;
+// Null on iOS, where nothing calls it
+export const GrayscaleModule = NativeGrayscaleModule as GrayscaleModuleType;
@@ -1,4 +1,4 @@
-import React, {useState} from 'react';
+import React, {useEffect, useState} from 'react';
 import {
   StyleSheet,
   Text,
@@ -10,6 +10,9 @@ import {
 import {AppListItem} from '../components/AppListItem';
 import {useAppState} from '../context/AppStateContext';
 import {App} from '../types/app.types';
+import {AppService} from '../services/AppService';
+
+const SEARCH_LIMIT = 50;
 
 export function AllAppsScreen() {
   const {
@@ -22,10 +25,27 @@ export function AllAppsScreen() {
 
   const [searchQuery, setSearchQuery] = useState('');
 
-  // Filter apps based on search query
-  const filteredApps = installedApps.filter(app =>
-    app.appName.toLowerCase().includes(searchQuery.toLowerCase()),
-  );
+  const [searchResults, setSearchResults] = useState<App[] | null>(null);
+
+  // Search runs against the native index; the full list is shown when empty
+  useEffect(() => {
+    if (!searchQuery.trim()) {
+      setSearchResults(null);
+      return;
+    }
+
+    let cancelled = false;
+    AppService.searchApps(searchQuery, SEARCH_LIMIT).then(results => {
+      if (!cancelled) {
+        setSearchResults(results);
+      }
+    });
+    return () => {
+      cancelled = true;
+    };
+  }, [searchQuery]);
+
+  const filteredApps = searchResults ?? installedApps;
 
   const renderAppItem = ({item}: {item: App}) => (
     <AppListItem
@@ -10,7 +10,6 @@ import {
   ActivityIndicator,
 } from 'react-native';
 import {useBlocking} from '../context/BlockingContext';
-import {useAppState} from '../context/AppStateContext';
 import {FocusModeConfig} from '../types/app.types';
 
 export function FocusModeScreen() {
@@ -23,7 +22,6 @@ export function FocusModeScreen() {
     requestAccessibilityPermission,
   } = useBlocking();
 
-  const {installedApps} = useAppState();
   const [loading, setLoading] = useState(false);
 
   const handleActivateFocusMode = async (mode: FocusModeConfig) => {
@@ -44,8 +42,7 @@ export function FocusModeScreen() {
 
     setLoading(true);
     try {
-      const allPackages = installedApps.map(app => app.packageName);
-      await activateFocusMode(mode, allPackages);
+      await activateFocusMode(mode);
     } catch (error) {
       Alert.alert('Error', 'Failed to activate focus mode');
     } finally {
@@ -1,4 +1,4 @@
-import React, {useState} from 'react';
+import React, {useEffect, useState} from 'react';
 import {
   StyleSheet,
   Text,
@@ -14,12 +14,14 @@ import {AppListItem} from '../components/AppListItem';
 import {IntentionBanner} from '../components/IntentionBanner';
 import {useAppState} from '../context/AppStateContext';
 import {useIntention} from '../context/IntentionContext';
+import {AppService} from '../services/AppService';
 
 export function HomeScreen() {
   const navigation = useNavigation();
   const {
     installedApps,
     favorites,
+    suggestedApps,
     loading,
     toggleFavorite,
     launchApp,
@@ -28,11 +30,22 @@ export function HomeScreen() {
 
   const {currentIntention} = useIntention();
 
+  useEffect(() => {
+    if (!loading) {
+      AppService.reportHomeReady();
+    }
+  }, [loading]);
+
   // Get favorite apps (limited to 5)
   const favoriteApps = installedApps.filter(app =>
     favorites.includes(app.packageName),
   );
 
+  // Suggestions fill whatever Quick Access slots favorites leave free
+  const suggestions = suggestedApps
+    .filter(app => !favorites.includes(app.packageName))
+    .slice(0, Math.max(0, 5 - favoriteApps.length));
+
   const handleIntentionPress = () => {
     navigation.navigate('IntentionTab' as never);
   };
@@ -79,6 +92,25 @@ export function HomeScreen() {
         </View>
       )}
 
+      {/* Suggested (ranked natively by recent and frequent use) */}
+      {suggestions.length > 0 && (
+        <View style={styles.favoritesContainer}>
+          <Text style={styles.sectionTitle}>SUGGESTED</Text>
+          {suggestions.map(app => (
+            <TouchableOpacity
+              key={app.packageName}
+              style={styles.favoriteItem}
+              onPress={() => launchApp(app.packageName)}
+              onLongPress={() => toggleFavorite(app.packageName)}>
+              <Text style={styles.appName}>{app.appName}</Text>
+              <Text style={styles.usageCount}>
+                {getUsageCount(app.packageName)} opens
+              </Text>
+            </TouchableOpacity>
+          ))}
+        </View>
+      )}
+
       {/* Swipe Up Hint */}
       <View style={styles.hintContainer}>
         <Text style={styles.hintText}>
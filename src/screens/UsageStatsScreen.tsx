@@ -8,8 +8,12 @@ import {
   TouchableOpacity,
   ActivityIndicator,
 } from 'react-native';
-import {AppUsageStatsModule} from '../native/AppUsageStatsModule';
-import {useAppState} from '../context/AppStateContext';
+import {
+  AppUsageStatsModule,
+  UsageEntry,
+} from '../native/AppUsageStatsModule';
+
+const PAGE_SIZE = 20;
 
 interface AppUsageData {
   packageName: string;
@@ -18,11 +22,11 @@ interface AppUsageData {
 }
 
 export function UsageStatsScreen() {
-  const {installedApps} = useAppState();
   const [usageData, setUsageData] = useState<AppUsageData[]>([]);
   const [loading, setLoading] = useState(true);
   const [hasPermission, setHasPermission] = useState(false);
   const [totalScreenTime, setTotalScreenTime] = useState(0);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
 
   useEffect(() => {
     loadUsageStats();
@@ -36,40 +40,59 @@ export function UsageStatsScreen() {
       setHasPermission(permission);
 
       if (permission) {
-        // Get today's usage
-        const stats = await AppUsageStatsModule.getTodayUsage();
-
-        // Convert to array and sort by usage time
-        const usageArray: AppUsageData[] = [];
-        let total = 0;
-
-        Object.keys(stats).forEach(packageName => {
-          const timeMs = stats[packageName].totalTimeInForeground;
-          if (timeMs > 0) {
-            // Find app name
-            const app = installedApps.find(a => a.packageName === packageName);
-            usageArray.push({
-              packageName,
-              appName: app?.appName || packageName,
-              totalTimeInForeground: timeMs,
-            });
-            total += timeMs;
-          }
+        // Native side filters out unused packages and ranks by usage time
+        const page = await AppUsageStatsModule.queryUsage({
+          pageSize: PAGE_SIZE,
+          requestGroup: 'usageStatsScreen',
         });
 
-        // Sort by usage time descending
-        usageArray.sort((a, b) => b.totalTimeInForeground - a.totalTimeInForeground);
-
-        setUsageData(usageArray.slice(0, 20)); // Top 20 apps
-        setTotalScreenTime(total);
+        setUsageData(toUsageData(page.entries));
+        setNextCursor(page.nextCursor);
+        setTotalScreenTime(page.totalForegroundMs);
       }
     } catch (error) {
-      console.error('Error loading usage stats:', error);
+      // A refresh replaced this load; its own results will arrive
+      if ((error as {code?: string}).code !== 'SUPERSEDED') {
+        console.error('Error loading usage stats:', error);
+      }
     } finally {
       setLoading(false);
     }
   };
 
+  // Explicit refresh bypasses the native cache for today's numbers
+  const refreshUsageStats = async () => {
+    try {
+      await AppUsageStatsModule.invalidateUsageCache();
+    } catch (error) {
+      console.error('Error invalidating usage cache:', error);
+    }
+    await loadUsageStats();
+  };
+
+  const loadMore = async () => {
+    if (!nextCursor) {
+      return;
+    }
+    try {
+      const page = await AppUsageStatsModule.queryUsage({
+        pageSize: PAGE_SIZE,
+        cursor: nextCursor,
+      });
+      setUsageData(current => [...current, ...toUsageData(page.entries)]);
+      setNextCursor(page.nextCursor);
+    } catch (error) {
+      console.error('Error loading more usage stats:', error);
+    }
+  };
+
+  const toUsageData = (entries: UsageEntry[]): AppUsageData[] =>
+    entries.map(entry => ({
+      packageName: entry.packageName,
+      appName: entry.appName,
+      totalTimeInForeground: entry.totalTimeInForeground,
+    }));
+
   const formatTime = (ms: number): string => {
     const hours = Math.floor(ms / (1000 * 60 * 60));
     const minutes = Math.floor((ms % (1000 * 60 * 60)) / (1000 * 60));
@@ -127,7 +150,7 @@ export function UsageStatsScreen() {
         <Text style={styles.totalTime}>{formatTime(totalScreenTime)}</Text>
         <TouchableOpacity
           style={styles.refreshButton}
-          onPress={loadUsageStats}>
+          onPress={refreshUsageStats}>
           <Text style={styles.refreshButtonText}>Refresh</Text>
         </TouchableOpacity>
       </View>
@@ -174,6 +197,11 @@ export function UsageStatsScreen() {
             );
           })
         )}
+        {nextCursor && (
+          <TouchableOpacity style={styles.loadMoreButton} onPress={loadMore}>
+            <Text style={styles.refreshButtonText}>Show more</Text>
+          </TouchableOpacity>
+        )}
       </View>
 
       <View style={{height: 40}} />
@@ -269,6 +297,14 @@ const styles = StyleSheet.create({
     fontSize: 12,
     fontWeight: '600',
   },
+  loadMoreButton: {
+    alignSelf: 'center',
+    paddingHorizontal: 16,
+    paddingVertical: 8,
+    backgroundColor: '#333333',
+    borderRadius: 6,
+    marginTop: 8,
+  },
   section: {
     paddingHorizontal: 20,
     marginBottom: 32,
@@ -1,19 +1,82 @@
-import {NativeModules, Platform} from 'react-native';
-import {App, AppUsage} from '../types/app.types';
+import {Platform} from 'react-native';
+import NativeInstalledApplication from '../specs/NativeInstalledApplication';
+import {App, AppSection, AppUsage} from '../types/app.types';
 import {StorageService} from './StorageService';
 
-const {RNInstalledApplication} = NativeModules;
+interface StartupTimings {
+  homeReadyMs: number;
+  catalogMs: number;
+  blocklistMs: number;
+  usageMs: number;
+}
+
+interface LaunchLatencyStats {
+  count: number;
+  averageMs: number;
+  maxMs: number;
+  lastMs: number;
+}
+
+// The spec types results as Object, since codegen can't describe them.
+// Null on iOS; every call below checks the platform first.
+interface InstalledApplicationType {
+  getAppsIfChanged(knownVersion: number): Promise<{
+    version: number;
+    changed: boolean;
+    apps?: App[];
+    sections?: AppSection[];
+  }>;
+  searchApps(query: string, limit: number): Promise<App[]>;
+  reportHomeReady(): void;
+  getStartupTimings(): Promise<StartupTimings | null>;
+  getAppIcon(packageName: string, size: number): Promise<string | null>;
+  launchApplication(packageName: string, tapTime: number): Promise<boolean>;
+  getSuggestedApps(limit: number): Promise<App[]>;
+  getLaunchCounts(): Promise<AppUsage>;
+  importLaunchCounts(counts: AppUsage): Promise<boolean>;
+  getLaunchLatencyStats(): Promise<LaunchLatencyStats>;
+}
+
+const RNInstalledApplication =
+  NativeInstalledApplication as unknown as InstalledApplicationType;
+
+// Last catalog received from native, reused while its version is unchanged.
+// Apps arrive already sorted by the native collator.
+let cachedApps: App[] = [];
+let cachedSections: AppSection[] = [];
+let cachedVersion = -1;
+
+let launchCountsMigrated = false;
+
+// Moves launch counts kept in AsyncStorage by older versions into the
+// native log. Native imports only once, so a crash before the key is
+// cleared can't count them twice.
+async function migrateLaunchCounts(): Promise<void> {
+  if (launchCountsMigrated) {
+    return;
+  }
+  const legacy = await StorageService.getAppUsage();
+  if (Object.keys(legacy).length > 0) {
+    await RNInstalledApplication.importLaunchCounts(legacy);
+    await StorageService.clearAppUsage();
+  }
+  launchCountsMigrated = true;
+}
 
 export class AppService {
   // Get list of installed apps
   static async getInstalledApps(): Promise<App[]> {
     try {
       if (Platform.OS === 'android') {
-        const apps = await RNInstalledApplication.getApps();
-        const sortedApps = apps.sort((a: App, b: App) =>
-          a.appName.localeCompare(b.appName),
+        const result = await RNInstalledApplication.getAppsIfChanged(
+          cachedVersion,
         );
-        return sortedApps;
+        if (result.changed && result.apps && result.sections) {
+          cachedApps = result.apps;
+          cachedSections = result.sections;
+          cachedVersion = result.version;
+        }
+        return cachedApps;
       }
       return [];
     } catch (error) {
@@ -22,30 +85,105 @@ export class AppService {
     }
   }
 
-  // Launch an app
+  // Alphabetical jump-list sections for the last loaded app list
+  static getAppSections(): AppSection[] {
+    return cachedSections;
+  }
+
+  // Search apps by label or package name, best matches first
+  static async searchApps(query: string, limit: number): Promise<App[]> {
+    try {
+      if (Platform.OS === 'android') {
+        return await RNInstalledApplication.searchApps(query, limit);
+      }
+      return [];
+    } catch (error) {
+      // A newer search replaced this one natively
+      if ((error as {code?: string}).code !== 'SUPERSEDED') {
+        console.error('Error searching apps:', error);
+      }
+      return [];
+    }
+  }
+
+  // Marks the end of a cold start for tracing; only the first call counts
+  static reportHomeReady(): void {
+    if (Platform.OS === 'android') {
+      RNInstalledApplication.reportHomeReady();
+    }
+  }
+
+  // Cold start timings in ms: process start to home ready, and each
+  // native prefetch task (-1 if skipped)
+  static async getStartupTimings(): Promise<StartupTimings | null> {
+    if (Platform.OS !== 'android') {
+      return null;
+    }
+    return RNInstalledApplication.getStartupTimings();
+  }
+
+  // PNG data URI of the app icon, cached natively per app version
+  static async getAppIcon(
+    packageName: string,
+    size: number,
+  ): Promise<string | null> {
+    if (Platform.OS !== 'android') {
+      return null;
+    }
+    return RNInstalledApplication.getAppIcon(packageName, size);
+  }
+
+  // Launch an app. Native starts the activity first and counts the launch
+  // in the background, so nothing waits on storage before the app opens.
   static async launchApp(packageName: string): Promise<void> {
     try {
-      // Track app usage
-      const appUsage = await StorageService.getAppUsage();
-      const newUsage = {
-        ...appUsage,
-        [packageName]: (appUsage[packageName] || 0) + 1,
-      };
-      await StorageService.setAppUsage(newUsage);
-
-      // Launch app
       if (Platform.OS === 'android') {
-        await RNInstalledApplication.launchApplication(packageName);
+        await RNInstalledApplication.launchApplication(packageName, Date.now());
       }
     } catch (error) {
       console.error('Error launching app:', error);
     }
   }
 
+  // Launch counts per package, kept natively
+  static async getLaunchCounts(): Promise<AppUsage> {
+    try {
+      if (Platform.OS === 'android') {
+        await migrateLaunchCounts();
+        return await RNInstalledApplication.getLaunchCounts();
+      }
+      return {};
+    } catch (error) {
+      console.error('Error loading launch counts:', error);
+      return {};
+    }
+  }
+
+  // Installed apps ranked natively by recent and frequent use, best first
+  static async getSuggestedApps(limit: number): Promise<App[]> {
+    try {
+      if (Platform.OS === 'android') {
+        return await RNInstalledApplication.getSuggestedApps(limit);
+      }
+      return [];
+    } catch (error) {
+      console.error('Error loading suggested apps:', error);
+      return [];
+    }
+  }
+
   // Get usage count for an app
   static async getUsageCount(packageName: string): Promise<number> {
-    const appUsage = await StorageService.getAppUsage();
-    return appUsage[packageName] || 0;
+    const counts = await AppService.getLaunchCounts();
+    return counts[packageName] || 0;
+  }
+
+  // Tap-to-launch latency measured natively, in ms
+  static async getLaunchLatencyStats(): Promise<LaunchLatencyStats | null> {
+    if (Platform.OS !== 'android') {
+      return null;
+    }
+    return RNInstalledApplication.getLaunchLatencyStats();
   }
 
   // Toggle favorite status (limited to 5)
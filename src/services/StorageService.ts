@@ -53,11 +53,12 @@ export class StorageService {
     }
   }
 
-  static async setAppUsage(usage: AppUsage): Promise<void> {
+  // Launch counts now live natively; this key is only read to migrate them
+  static async clearAppUsage(): Promise<void> {
     try {
-      await AsyncStorage.setItem(this.KEYS.APP_USAGE, JSON.stringify(usage));
+      await AsyncStorage.removeItem(this.KEYS.APP_USAGE);
     } catch (error) {
-      console.error('Error saving app usage:', error);
+      console.error('Error clearing app usage:', error);
     }
   }
 
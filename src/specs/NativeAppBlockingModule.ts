@@ -0,0 +1,37 @@
+import type {TurboModule} from 'react-native';
+import {TurboModuleRegistry} from 'react-native';
+
+// Results keyed by package name are typed as Object here, since codegen
+// can't describe them; src/native/AppBlockingModule.ts has their shapes
+export interface Spec extends TurboModule {
+  addListener(eventName: string): void;
+  removeListeners(count: number): void;
+  isAccessibilityServiceEnabled(): Promise<boolean>;
+  isAccessibilityServiceEnabledSync(): boolean;
+  isPackageBlockedSync(packageName: string): boolean;
+  requestAccessibilityPermission(): Promise<boolean>;
+  setBlockedApps(packageNames: string[], reason: string): Promise<boolean>;
+  setAllowedApps(packageNames: string[], reason: string): Promise<boolean>;
+  addBlockedApp(packageName: string, reason: string): Promise<boolean>;
+  removeBlockedApp(packageName: string): Promise<boolean>;
+  clearBlockedApps(): Promise<boolean>;
+  applyBlocklistDelta(
+    adds: string[],
+    removes: string[],
+    reason: string,
+    expectedVersion: number,
+  ): Promise<number>;
+  getBlockedApps(): Promise<Object>;
+  setBreakGlassPhrase(phrase: string): Promise<boolean>;
+  setBreakGlassDuration(minutes: number): Promise<boolean>;
+  setAppLimit(packageName: string, minutesPerDay: number): Promise<boolean>;
+  removeAppLimit(packageName: string): Promise<boolean>;
+  getAppLimits(): Promise<Object>;
+  setSchedules(schedules: Object[]): Promise<boolean>;
+  getSchedules(): Promise<Object[]>;
+  getBlockingLatencyStats(): Promise<Object>;
+  setEventCoalescingWindow(windowMs: number): Promise<boolean>;
+  getForegroundEventStats(): Promise<Object | null>;
+}
+
+export default TurboModuleRegistry.get<Spec>('AppBlockingModule');
@@ -0,0 +1,17 @@
+import type {TurboModule} from 'react-native';
+import {TurboModuleRegistry} from 'react-native';
+
+// Results keyed by package name are typed as Object here, since codegen
+// can't describe them; src/native/AppUsageStatsModule.ts has their shapes
+export interface Spec extends TurboModule {
+  hasUsageStatsPermission(): Promise<boolean>;
+  requestUsageStatsPermission(): Promise<boolean>;
+  getUsageStats(startDate: string, endDate: string): Promise<Object>;
+  getDailyUsage(date: string): Promise<Object>;
+  getTodayUsage(): Promise<Object>;
+  getUsageHistory(startDate: string, endDate: string): Promise<Object>;
+  queryUsage(options: Object): Promise<Object>;
+  invalidateUsageCache(): Promise<boolean>;
+}
+
+export default TurboModuleRegistry.get<Spec>('AppUsageStatsModule');
@@ -0,0 +1,13 @@
+import type {TurboModule} from 'react-native';
+import {TurboModuleRegistry} from 'react-native';
+
+export interface Spec extends TurboModule {
+  enableGrayscale(): Promise<boolean>;
+  disableGrayscale(): Promise<boolean>;
+  isGrayscaleEnabled(): Promise<boolean>;
+  isGrayscaleEnabledSync(): boolean;
+  toggleGrayscale(): Promise<boolean>;
+}
+
+// Android only; null on iOS
+export default TurboModuleRegistry.get<Spec>('GrayscaleModule');
@@ -0,0 +1,20 @@
+import type {TurboModule} from 'react-native';
+import {TurboModuleRegistry} from 'react-native';
+
+export interface Spec extends TurboModule {
+  getApps(): Promise<Object[]>;
+  getAppsIfChanged(knownVersion: number): Promise<Object>;
+  searchApps(query: string, limit: number): Promise<Object[]>;
+  reportHomeReady(): void;
+  getStartupTimings(): Promise<Object | null>;
+  getAppIcon(packageName: string, size: number): Promise<string | null>;
+  getMetadataCacheStats(): Promise<Object>;
+  launchApplication(packageName: string, tapTime: number): Promise<boolean>;
+  getSuggestedApps(limit: number): Promise<Object[]>;
+  // Launches keyed by package name
+  getLaunchCounts(): Promise<Object>;
+  importLaunchCounts(counts: Object): Promise<boolean>;
+  getLaunchLatencyStats(): Promise<Object>;
+}
+
+export default TurboModuleRegistry.get<Spec>('RNInstalledApplication');
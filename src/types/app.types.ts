@@ -3,6 +3,11 @@ export interface App {
   appName: string;
 }
 
+export interface AppSection {
+  label: string;
+  offset: number; // index of the first app in this section
+}
+
 export interface AppUsage {
   [key: string]: number; // packageName: totalOpens
 }